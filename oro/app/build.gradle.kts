@@ -16,16 +16,8 @@ repositories {
     mavenCentral()
 }
 
-dependencies {
-    // This dependency is used by the application.
-    implementation(libs.guava)
-    // https://mvnrepository.com/artifact/org.apache.pdfbox/pdfbox
-    implementation("org.apache.pdfbox:pdfbox:2.0.1")
-    implementation("edu.stanford.nlp:stanford-corenlp:4.5.4")
-    implementation("edu.stanford.nlp:stanford-corenlp:4.5.4:models") // includes models like NER
-    implementation ("net.sourceforge.tess4j:tess4j:5.4.0")
-
-}
+// The core language has no runtime dependencies. PDF and redaction support live in
+// :oro-pdf and :oro-nlp and register their built-ins through the oro.OroLibrary SPI.
 
 testing {
     suites {
@@ -44,17 +36,41 @@ java {
     }
 }
 
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
 application {
     // Define the main class for the application.
      mainClass = "oro.Oro"
-    // mainClass = "oro.PDFRedactionTool"
-
 }
 
-tasks.named<JavaExec>("run") {
-    jvmArgs = listOf(
-        "-Djna.library.path=/usr/local/lib",
-        "-Dtessdata.path=/usr/local/share/tessdata"
-    )
+
+// Class-data-sharing archive for fast start-up. trainCds runs scripts/warmup.oro on the
+// installed distribution and dumps every class it loaded into lib/oro.jsa, which the
+// launcher maps when invoked as `oro --warm script.oro`.
+val trainCds by tasks.registering(JavaExec::class) {
+    group = "distribution"
+    description = "Trains an AppCDS archive of the interpreter classes into the installed distribution."
+    dependsOn(tasks.installDist)
+    val installDir = layout.buildDirectory.dir("install/app")
+    val archive = installDir.map { it.file("lib/oro.jsa").asFile.absolutePath }
+    javaLauncher = javaToolchains.launcherFor(java.toolchain)
+    mainClass = "oro.Oro"
+    // Must match the launcher's classpath exactly or the JVM ignores the archive
+    classpath = files(installDir.map { it.file("lib/app.jar") })
+    jvmArgumentProviders.add(CommandLineArgumentProvider { listOf("-XX:ArchiveClassesAtExit=" + archive.get()) })
+    args(rootDir.resolve("../scripts/warmup.oro").absolutePath)
 }
 
+tasks.named<CreateStartScripts>("startScripts") {
+    val warmLauncher = layout.projectDirectory.file("src/launcher/warm.sh")
+    inputs.file(warmLauncher)
+    doLast {
+        val script = unixScript.readText()
+        val opts = Regex("(?m)^DEFAULT_JVM_OPTS=.*$").find(script)
+            ?: throw GradleException("DEFAULT_JVM_OPTS not found in start script")
+        val end = opts.range.last + 1
+        unixScript.writeText(script.substring(0, end) + "\n" + warmLauncher.asFile.readText() + script.substring(end))
+    }
+}
@@ -0,0 +1,7 @@
+
+# --warm: start from the AppCDS archive in lib/oro.jsa (trained by the trainCds task).
+# The JVM recreates the archive at exit if it is missing or was built by another JDK.
+if [ "$1" = "--warm" ]; then
+    shift
+    DEFAULT_JVM_OPTS="$DEFAULT_JVM_OPTS \"-XX:SharedArchiveFile=$APP_HOME/lib/oro.jsa\" -XX:+AutoCreateSharedArchive -XX:TieredStopAtLevel=1"
+fi
@@ -0,0 +1,143 @@
+package oro;
+
+import java.util.List;
+
+// Shared aggregation types for parallel scripts: ConcurrentCounter for counts per key
+// and ConcurrentMap for anything else. Both index with [] like JSON objects, and both
+// can be handed to pmap workers or spawned tasks, which update the same instance.
+public class AggregateFunctions {
+
+    public static void registerAll(Environment globals) {
+        globals.define("ConcurrentCounter", new OroCallable() {
+            @Override
+            public int arity() { return 0; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return new OroConcurrentCounter();
+            }
+
+            @Override
+            public String toString() { return "<native fun ConcurrentCounter>"; }
+        });
+
+        globals.define("ConcurrentMap", new OroCallable() {
+            @Override
+            public int arity() { return 0; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return new OroConcurrentMap();
+            }
+
+            @Override
+            public String toString() { return "<native fun ConcurrentMap>"; }
+        });
+
+        // increment(counter, key) or increment(counter, key, amount)
+        globals.define("increment", new OroCallable() {
+            @Override
+            public int arity() { return -1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (args.size() != 2 && args.size() != 3) {
+                    throw new RuntimeError("Expected 2 or 3 arguments for increment(counter, key, amount)");
+                }
+                if (!(args.get(0) instanceof OroConcurrentCounter)) {
+                    throw new RuntimeError("increment: first argument must be a ConcurrentCounter.");
+                }
+                long amount = args.size() == 3 ? wholeNumber(args.get(2), "increment") : 1;
+                ((OroConcurrentCounter) args.get(0)).increment(key(args.get(1), "increment"), amount);
+                return null;
+            }
+
+            @Override
+            public String toString() { return "<native fun increment>"; }
+        });
+
+        // merge(map, key, value, fn): stores value if key is absent, else fn(current, value)
+        globals.define("merge", new OroCallable() {
+            @Override
+            public int arity() { return 4; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroConcurrentMap map = map(args.get(0), "merge");
+                OroCallable fn = function(args.get(3), 2, "merge");
+                if (args.get(2) == null) {
+                    throw new RuntimeError("merge: value must not be null.");
+                }
+                return map.merge(key(args.get(1), "merge"), args.get(2), fn, interpreter);
+            }
+
+            @Override
+            public String toString() { return "<native fun merge>"; }
+        });
+
+        // compute(map, key, fn): stores fn(key, current or null); null removes the key
+        globals.define("compute", new OroCallable() {
+            @Override
+            public int arity() { return 3; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroConcurrentMap map = map(args.get(0), "compute");
+                OroCallable fn = function(args.get(2), 2, "compute");
+                return map.compute(key(args.get(1), "compute"), fn, interpreter);
+            }
+
+            @Override
+            public String toString() { return "<native fun compute>"; }
+        });
+
+        // Plain copy of a ConcurrentCounter or ConcurrentMap, for printing or JSON
+        globals.define("snapshot", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                Object target = args.get(0);
+                if (target instanceof OroConcurrentCounter) return ((OroConcurrentCounter) target).snapshot();
+                if (target instanceof OroConcurrentMap) return ((OroConcurrentMap) target).snapshot();
+                throw new RuntimeError("snapshot: argument must be a ConcurrentCounter or ConcurrentMap.");
+            }
+
+            @Override
+            public String toString() { return "<native fun snapshot>"; }
+        });
+    }
+
+    // Keys are strings, numbers or booleans, normalized the way OroMap keys are: so
+    // size() results, string slices and byte strings find the same entry as the plain
+    // Double or String
+    static Object key(Object key, String name) {
+        Object normalized = OroMap.normalize(key);
+        if (normalized == null) throw new RuntimeError(name + ": keys must be strings, numbers or booleans.");
+        return normalized;
+    }
+
+    static long wholeNumber(Object value, String name) {
+        // size() and length() produce Integers, everything else Doubles
+        if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            if (number == Math.rint(number)) return (long) number;
+        }
+        throw new RuntimeError(name + ": counts must be whole numbers.");
+    }
+
+    private static OroConcurrentMap map(Object value, String name) {
+        if (!(value instanceof OroConcurrentMap)) {
+            throw new RuntimeError(name + ": first argument must be a ConcurrentMap.");
+        }
+        return (OroConcurrentMap) value;
+    }
+
+    private static OroCallable function(Object fn, int arity, String name) {
+        if (!(fn instanceof OroCallable) || (((OroCallable) fn).arity() >= 0 && ((OroCallable) fn).arity() != arity)) {
+            throw new RuntimeError(name + ": last argument must be a function of " + arity + " arguments.");
+        }
+        return (OroCallable) fn;
+    }
+}
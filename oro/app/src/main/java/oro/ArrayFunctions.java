@@ -0,0 +1,264 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// map, filter, reduce, sort, sortBy, reverse, join and flatten. Each returns a new array
+// (or value) and leaves its argument alone.
+//
+// The loops run in Java over the array's own store rather than through a[i] in a while
+// loop. They re-read the size each step, so a function that appends to or removes from
+// the array it is given can't make them read past the end. Oro functions passed in are
+// called through OroFunction's one- and two-argument fast path. sort without a
+// comparator sorts the number or string store directly, in parallel once the array is
+// large.
+public class ArrayFunctions {
+
+    public static void registerAll(Environment globals) {
+        globals.define("map", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroArray array = array(args.get(0), "map");
+                OroCallable fn = function(args.get(1), 1, "map");
+                List<Object> results = new ArrayList<>(array.size());
+                for (int i = 0; i < array.size(); i++) {
+                    results.add(apply(interpreter, fn, array.element(i)));
+                }
+                return new OroArray(results);
+            }
+
+            @Override
+            public String toString() { return "<native fun map>"; }
+        });
+
+        globals.define("filter", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroArray array = array(args.get(0), "filter");
+                OroCallable fn = function(args.get(1), 1, "filter");
+                OroArray kept = new OroArray();
+                for (int i = 0; i < array.size(); i++) {
+                    Object element = array.element(i);
+                    if (Interpreter.isTruthy(apply(interpreter, fn, element))) kept.append(element);
+                }
+                return kept;
+            }
+
+            @Override
+            public String toString() { return "<native fun filter>"; }
+        });
+
+        // reduce(array, fn, init): fn(accumulator, element) from left to right
+        globals.define("reduce", new OroCallable() {
+            @Override
+            public int arity() { return 3; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroArray array = array(args.get(0), "reduce");
+                OroCallable fn = function(args.get(1), 2, "reduce");
+                Object accumulator = args.get(2);
+                for (int i = 0; i < array.size(); i++) {
+                    accumulator = apply(interpreter, fn, accumulator, array.element(i));
+                }
+                return accumulator;
+            }
+
+            @Override
+            public String toString() { return "<native fun reduce>"; }
+        });
+
+        // sort(array) in natural order, or sort(array, fn) where fn(a, b) returns a
+        // negative number, zero or a positive number. Both are stable.
+        globals.define("sort", new OroCallable() {
+            @Override
+            public int arity() { return -1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (args.size() != 1 && args.size() != 2) {
+                    throw new RuntimeError("Expected 1 or 2 arguments for sort(array, compare)");
+                }
+                if (args.get(0) instanceof LineTable) {
+                    if (args.size() == 2) {
+                        throw new RuntimeError("sort: a line table sorts by its bytes and takes no compare function.");
+                    }
+                    return ((LineTable) args.get(0)).sorted();
+                }
+                OroArray array = array(args.get(0), "sort");
+                if (args.size() == 1) {
+                    OroArray sorted = array.sorted();
+                    if (sorted == null) {
+                        throw new RuntimeError("sort: elements must all be numbers or all strings; pass a compare function.");
+                    }
+                    return sorted;
+                }
+
+                OroCallable fn = function(args.get(1), 2, "sort");
+                Object[] elements = array.getArray().toArray();
+                sort(elements, (a, b) -> {
+                    Object result = apply(interpreter, fn, a, b);
+                    if (!(result instanceof Number)) {
+                        throw new RuntimeError("sort: compare function must return a number.");
+                    }
+                    return (int) Math.signum(((Number) result).doubleValue());
+                }, false, "sort");
+                return new OroArray(Arrays.asList(elements));
+            }
+
+            @Override
+            public String toString() { return "<native fun sort>"; }
+        });
+
+        // sortBy(array, fn): stable sort by fn(element), which is called once per element
+        globals.define("sortBy", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroArray array = array(args.get(0), "sortBy");
+                OroCallable fn = function(args.get(1), 1, "sortBy");
+                Object[] elements = array.getArray().toArray();
+                int size = elements.length;
+                Object[] keys = new Object[size];
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = apply(interpreter, fn, elements[i]);
+                    order[i] = i;
+                }
+                Comparator<Object> natural = OroArray.naturalOrder(keys, 0, size);
+                if (natural == null) {
+                    throw new RuntimeError("sortBy: keys must all be numbers or all strings.");
+                }
+                sort(order, (a, b) -> natural.compare(keys[a], keys[b]), true, "sortBy");
+
+                Object[] sorted = new Object[size];
+                for (int i = 0; i < size; i++) {
+                    sorted[i] = elements[order[i]];
+                }
+                return new OroArray(Arrays.asList(sorted));
+            }
+
+            @Override
+            public String toString() { return "<native fun sortBy>"; }
+        });
+
+        globals.define("reverse", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return array(args.get(0), "reverse").reversed();
+            }
+
+            @Override
+            public String toString() { return "<native fun reverse>"; }
+        });
+
+        // join(array, separator): elements are written the way print writes them
+        globals.define("join", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroArray array = array(args.get(0), "join");
+                if (!(args.get(1) instanceof String)) {
+                    throw new RuntimeError("join: separator must be a string.");
+                }
+                String separator = (String) args.get(1);
+                StringBuilder joined = new StringBuilder();
+                for (int i = 0; i < array.size(); i++) {
+                    if (i > 0) joined.append(separator);
+                    joined.append(Interpreter.stringify(array.element(i)));
+                }
+                return joined.toString();
+            }
+
+            @Override
+            public String toString() { return "<native fun join>"; }
+        });
+
+        // flatten(array): splices nested arrays one level deep
+        globals.define("flatten", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroArray array = array(args.get(0), "flatten");
+                List<Object> flat = new ArrayList<>(array.size());
+                for (int i = 0; i < array.size(); i++) {
+                    Object element = array.element(i);
+                    if (element instanceof OroArray) {
+                        flat.addAll(((OroArray) element).getArray());
+                    } else {
+                        flat.add(element);
+                    }
+                }
+                return new OroArray(flat);
+            }
+
+            @Override
+            public String toString() { return "<native fun flatten>"; }
+        });
+    }
+
+    static Object apply(Interpreter interpreter, OroCallable fn, Object argument) {
+        if (fn instanceof OroFunction) return ((OroFunction) fn).call(interpreter, argument);
+        return fn.call(interpreter, Arrays.asList(nativeArgument(fn, argument)));
+    }
+
+    static Object apply(Interpreter interpreter, OroCallable fn, Object first, Object second) {
+        if (fn instanceof OroFunction) return ((OroFunction) fn).call(interpreter, first, second);
+        return fn.call(interpreter, Arrays.asList(nativeArgument(fn, first), nativeArgument(fn, second)));
+    }
+
+    // Built-ins are handed Strings for string slices and byte strings unless they read views themselves
+    private static Object nativeArgument(OroCallable fn, Object argument) {
+        return StringView.isView(argument) && !fn.acceptsViews() ? argument.toString() : argument;
+    }
+
+    // Comparators that call back into Oro run on the caller's thread, since the
+    // interpreter is not thread-safe; the rest may sort in parallel
+    private static <T> void sort(T[] values, Comparator<? super T> order, boolean parallel, String name) {
+        try {
+            if (parallel && values.length >= OroArray.PARALLEL_SORT_THRESHOLD) {
+                Arrays.parallelSort(values, order);
+            } else {
+                Arrays.sort(values, order);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeError(name + ": compare function is inconsistent (" + e.getMessage() + ").");
+        }
+    }
+
+    private static OroArray array(Object array, String name) {
+        if (!(array instanceof OroArray)) {
+            throw new RuntimeError(name + ": first argument must be an array.");
+        }
+        return (OroArray) array;
+    }
+
+    private static OroCallable function(Object fn, int arity, String name) {
+        if (!(fn instanceof OroCallable)) {
+            throw new RuntimeError(name + ": second argument must be a function.");
+        }
+        OroCallable callable = (OroCallable) fn;
+        if (callable.arity() >= 0 && callable.arity() != arity) {
+            throw new RuntimeError(name + ": function must take " + arity + " argument"
+                    + (arity == 1 ? "." : "s."));
+        }
+        return callable;
+    }
+}
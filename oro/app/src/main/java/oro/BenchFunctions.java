@@ -0,0 +1,165 @@
+package oro;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// bench(name, fn, iterations): a microbenchmark harness for comparing implementations
+// from inside a script. fn takes no arguments and is called iterations times per round.
+//
+// A few warmup rounds let the JIT compile the interpreter paths fn exercises, then
+// each measured round is timed in up to BATCHES batches of calls, so clock reads stay
+// out of the numbers and memory stays fixed however many iterations there are. Rounds
+// whose mean lies outside the Tukey fences (1.5 IQR beyond the quartiles) are dropped
+// as noise from GC or other threads. The mean is the remaining rounds' total time over
+// their calls; p50 and p99 are taken over the per-call means of their batches. Allocated
+// bytes per call are read from the JVM's per-thread allocation counter.
+//
+// Prints a summary line and returns the numbers as a JSON-style object, so scripts can
+// compare two results directly. `oro bench file.oro` runs every bench_* function with
+// this harness and prints a JSON report.
+public class BenchFunctions {
+    static final int WARMUP_ROUNDS = 5;
+    static final int ROUNDS = 10;
+    static final int BATCHES = 100;
+
+    // Iterations per round are grown until a round takes at least this long
+    private static final long TARGET_ROUND_NANOS = 20_000_000L;
+    private static final int MAX_ITERATIONS = 1 << 20;
+
+    public static void registerAll(Environment globals) {
+        globals.define("bench", new OroCallable() {
+            @Override
+            public int arity() { return 3; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (!(args.get(0) instanceof String)) {
+                    throw new RuntimeError("bench: name must be a string.");
+                }
+                if (!(args.get(1) instanceof OroCallable) || ((OroCallable) args.get(1)).arity() != 0) {
+                    throw new RuntimeError("bench: second argument must be a function taking no arguments.");
+                }
+                double iterations = args.get(2) instanceof Number ? ((Number) args.get(2)).doubleValue() : 0;
+                if (iterations < 1 || iterations > MAX_ITERATIONS || iterations != Math.rint(iterations)) {
+                    throw new RuntimeError("bench: iterations must be a whole number from 1 to " + MAX_ITERATIONS + ".");
+                }
+                return measure(interpreter, (String) args.get(0), (OroCallable) args.get(1), (int) iterations);
+            }
+
+            @Override
+            public String toString() { return "<native fun bench>"; }
+        });
+    }
+
+    static Map<String, Object> measure(Interpreter interpreter, String name, OroCallable fn, int iterations) {
+        List<Object> noArgs = List.of();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int i = 0; i < iterations; i++) fn.call(interpreter, noArgs);
+        }
+
+        int batches = Math.min(BATCHES, iterations);
+        double[][] batchMeans = new double[ROUNDS][batches];
+        long[] roundNanos = new long[ROUNDS];
+        double[] roundMeans = new double[ROUNDS];
+        long[] roundBytes = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytesBefore = RuntimeStats.threadAllocatedBytes();
+            long total = 0;
+            for (int batch = 0; batch < batches; batch++) {
+                // Batch sizes differ by at most one and add up to iterations
+                int calls = (int) ((long) iterations * (batch + 1) / batches - (long) iterations * batch / batches);
+                long start = System.nanoTime();
+                for (int i = 0; i < calls; i++) fn.call(interpreter, noArgs);
+                long elapsed = System.nanoTime() - start;
+                batchMeans[round][batch] = (double) elapsed / calls;
+                total += elapsed;
+            }
+            roundBytes[round] = RuntimeStats.threadAllocatedBytes() - bytesBefore;
+            roundNanos[round] = total;
+            roundMeans[round] = (double) total / iterations;
+        }
+
+        double[] sortedMeans = roundMeans.clone();
+        Arrays.sort(sortedMeans);
+        double q1 = percentile(sortedMeans, 0.25);
+        double q3 = percentile(sortedMeans, 0.75);
+        double low = q1 - 1.5 * (q3 - q1);
+        double high = q3 + 1.5 * (q3 - q1);
+
+        double[] kept = new double[ROUNDS * batches];
+        int keptBatches = 0;
+        int keptRounds = 0;
+        double nanos = 0;
+        double bytes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            if (roundMeans[round] < low || roundMeans[round] > high) continue;
+            System.arraycopy(batchMeans[round], 0, kept, keptBatches, batches);
+            keptBatches += batches;
+            keptRounds++;
+            nanos += roundNanos[round];
+            bytes += roundBytes[round];
+        }
+        double[] times = Arrays.copyOf(kept, keptBatches);
+        Arrays.sort(times);
+        long keptCalls = (long) keptRounds * iterations;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("name", name);
+        result.put("iterations", (double) iterations);
+        result.put("rounds", (double) ROUNDS);
+        result.put("rejected", (double) (ROUNDS - keptRounds));
+        result.put("mean_ns", nanos / keptCalls);
+        result.put("p50_ns", times[rank(times.length, 0.50)]);
+        result.put("p99_ns", times[rank(times.length, 0.99)]);
+        // null where the JVM doesn't track per-thread allocation
+        result.put("alloc_bytes", RuntimeStats.threadAllocatedBytes() < 0 ? null : bytes / keptCalls);
+
+        interpreter.out().println(summary(result));
+        return result;
+    }
+
+    // Doubles the iteration count until one round runs for TARGET_ROUND_NANOS
+    static int calibrate(Interpreter interpreter, OroCallable fn) {
+        List<Object> noArgs = List.of();
+        int iterations = 1;
+        while (iterations < MAX_ITERATIONS) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) fn.call(interpreter, noArgs);
+            if (System.nanoTime() - start >= TARGET_ROUND_NANOS) break;
+            iterations *= 2;
+        }
+        return iterations;
+    }
+
+    private static String summary(Map<String, Object> result) {
+        Object bytes = result.get("alloc_bytes");
+        return "bench " + result.get("name") + ": mean " + time((Double) result.get("mean_ns"))
+                + ", p50 " + time((Double) result.get("p50_ns"))
+                + ", p99 " + time((Double) result.get("p99_ns"))
+                + (bytes == null ? "" : String.format(", %.0f B/op", (Double) bytes))
+                + String.format(" (%.0f x %.0f calls, %.0f rounds rejected)",
+                        result.get("rounds"), result.get("iterations"), result.get("rejected"));
+    }
+
+    private static String time(double nanos) {
+        if (nanos >= 1e9) return String.format("%.2f s", nanos / 1e9);
+        if (nanos >= 1e6) return String.format("%.2f ms", nanos / 1e6);
+        if (nanos >= 1e3) return String.format("%.2f us", nanos / 1e3);
+        return String.format("%.0f ns", nanos);
+    }
+
+    // Linear interpolation between closest ranks
+    private static double percentile(double[] sorted, double p) {
+        double index = p * (sorted.length - 1);
+        int lower = (int) Math.floor(index);
+        int upper = (int) Math.ceil(index);
+        return sorted[lower] + (sorted[upper] - sorted[lower]) * (index - lower);
+    }
+
+    // Nearest-rank index into a sorted array of n values
+    private static int rank(int n, double p) {
+        return Math.max(0, (int) Math.ceil(p * n) - 1);
+    }
+}
@@ -0,0 +1,80 @@
+package oro;
+
+import java.time.Duration;
+
+/**
+ * Limits for one script run, for hosts that execute untrusted or unreviewed scripts.
+ *
+ * <ul>
+ *   <li>steps: statements executed plus loop iterations, so a runaway while loop is
+ *       stopped even if its body is empty</li>
+ *   <li>timeout: wall-clock time since the run started</li>
+ *   <li>allocated bytes: bytes the run's threads allocated, as counted by the JVM;
+ *       approximate, and only enforced where the JVM tracks per-thread allocation</li>
+ * </ul>
+ *
+ * A run that goes over stops with a runtime error whose message starts with
+ * "Budget exceeded". Time and allocation are sampled every 1024
+ * steps, so a single long-running built-in call (a regex over a huge string, say)
+ * can overshoot them. Tasks, pmap workers and generator bodies count against the same
+ * totals and deadline as the run that started them, and waits on channels, tasks and
+ * generators end with the budget error once the deadline passes.
+ *
+ * Immutable: {@link #unlimited()} and the with methods return new instances.
+ */
+public final class Budget {
+    private static final Budget UNLIMITED = new Budget(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    final long maxSteps;
+    final long timeoutNanos;
+    final long maxAllocatedBytes;
+
+    private Budget(long maxSteps, long timeoutNanos, long maxAllocatedBytes) {
+        this.maxSteps = maxSteps;
+        this.timeoutNanos = timeoutNanos;
+        this.maxAllocatedBytes = maxAllocatedBytes;
+    }
+
+    public static Budget unlimited() {
+        return UNLIMITED;
+    }
+
+    public Budget withMaxSteps(long maxSteps) {
+        return new Budget(positive(maxSteps, "maxSteps"), timeoutNanos, maxAllocatedBytes);
+    }
+
+    public Budget withTimeout(Duration timeout) {
+        return new Budget(maxSteps, positive(timeout.toNanos(), "timeout"), maxAllocatedBytes);
+    }
+
+    public Budget withMaxAllocatedBytes(long maxAllocatedBytes) {
+        return new Budget(maxSteps, timeoutNanos, positive(maxAllocatedBytes, "maxAllocatedBytes"));
+    }
+
+    boolean isUnlimited() {
+        return maxSteps == Long.MAX_VALUE && timeoutNanos == Long.MAX_VALUE && maxAllocatedBytes == Long.MAX_VALUE;
+    }
+
+    // Starts the clock: the deadline is measured from now
+    BudgetMeter start() {
+        long now = System.nanoTime();
+        long deadline = timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : now + timeoutNanos;
+        return new BudgetMeter(this, deadline);
+    }
+
+    @Override
+    public String toString() {
+        if (isUnlimited()) return "Budget[unlimited]";
+        StringBuilder text = new StringBuilder("Budget[");
+        if (maxSteps != Long.MAX_VALUE) text.append("steps=").append(maxSteps).append(' ');
+        if (timeoutNanos != Long.MAX_VALUE) text.append("timeout=").append(Duration.ofNanos(timeoutNanos)).append(' ');
+        if (maxAllocatedBytes != Long.MAX_VALUE) text.append("bytes=").append(maxAllocatedBytes).append(' ');
+        text.setLength(text.length() - 1);
+        return text.append(']').toString();
+    }
+
+    private static long positive(long value, String name) {
+        if (value <= 0) throw new IllegalArgumentException(name + " must be positive: " + value);
+        return value;
+    }
+}
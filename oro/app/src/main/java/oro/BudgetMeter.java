@@ -0,0 +1,101 @@
+package oro;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Running count against a Budget for one run. Each interpreter of the run (the script,
+// its tasks, pmap workers and generator bodies) has its own meter, used only by the
+// thread running that interpreter, but all meters forked from the same start() add
+// into one step count and one allocation total, so the limits cover the whole run.
+//
+// Steps are counted in a plain field and added to the shared total every
+// CHECK_INTERVAL steps and when the interpreter finishes its work (see flush), so a
+// statement costs no atomic write. A meter alone catches the limit exactly, but with
+// several meters running the run can overshoot it by up to CHECK_INTERVAL steps for
+// each worker, since each may hold that many not yet added.
+final class BudgetMeter {
+    // nanoTime, the allocation counter and the shared step total cost far more than a
+    // step, so they are touched every CHECK_INTERVAL steps
+    static final int CHECK_INTERVAL = 1024;
+    private static final long UNSET = Long.MIN_VALUE;
+
+    private final Budget budget;
+    private final long deadline;
+    private final AtomicLong steps;
+    private final AtomicLong allocated;
+    // The shared step total as of this meter's last flush, and steps taken since
+    private long counted;
+    private long pending;
+    // This thread's allocation counter at its last check, captured on the first step
+    private long lastAllocated = UNSET;
+    private int untilCheck = 1;
+
+    BudgetMeter(Budget budget, long deadline) {
+        this(budget, deadline, new AtomicLong(), new AtomicLong());
+    }
+
+    private BudgetMeter(Budget budget, long deadline, AtomicLong steps, AtomicLong allocated) {
+        this.budget = budget;
+        this.deadline = deadline;
+        this.steps = steps;
+        this.allocated = allocated;
+    }
+
+    // Called for every executed statement and loop iteration
+    void step() {
+        pending++;
+        if (--untilCheck == 0) {
+            untilCheck = CHECK_INTERVAL;
+            flush();
+            checkClockAndHeap();
+        } else if (counted + pending > budget.maxSteps) {
+            flush();
+        }
+    }
+
+    // Adds the steps taken since the last flush to the run's total, failing if that
+    // is over the limit. The interpreter calls it once its work is done, so a short
+    // task or pmap worker still counts every step it took.
+    void flush() {
+        if (pending == 0) return;
+        counted = steps.addAndGet(pending);
+        pending = 0;
+        if (counted > budget.maxSteps) {
+            throw new RuntimeError("Budget exceeded: more than " + budget.maxSteps + " steps.");
+        }
+    }
+
+    // Meter for a task, pmap worker or generator body: same deadline, and its steps and
+    // allocations count against the same totals as this one's
+    BudgetMeter forWorker() {
+        return new BudgetMeter(budget, deadline, steps, allocated);
+    }
+
+    // Time a blocking wait may take: Long.MAX_VALUE without a meter or a timeout, and a
+    // budget error once the deadline has passed
+    static long nanosLeft(BudgetMeter meter) {
+        if (meter == null || meter.deadline == Long.MAX_VALUE) return Long.MAX_VALUE;
+        long left = meter.deadline - System.nanoTime();
+        if (left <= 0) throw meter.timedOut();
+        return left;
+    }
+
+    private void checkClockAndHeap() {
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+            throw timedOut();
+        }
+        if (budget.maxAllocatedBytes != Long.MAX_VALUE) {
+            long now = RuntimeStats.threadAllocatedBytes();
+            if (now < 0) return;
+            long previous = lastAllocated;
+            lastAllocated = now;
+            if (previous != UNSET && allocated.addAndGet(now - previous) > budget.maxAllocatedBytes) {
+                throw new RuntimeError("Budget exceeded: allocated more than "
+                        + budget.maxAllocatedBytes + " bytes.");
+            }
+        }
+    }
+
+    private RuntimeError timedOut() {
+        return new RuntimeError("Budget exceeded: ran longer than " + budget.timeoutNanos / 1_000_000 + " ms.");
+    }
+}
@@ -0,0 +1,27 @@
+package oro;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// JFR event for a built-in call that took longer than the threshold (getPDFText,
+// redactHIPAA, parseJSON on a large document, ...). Costs nothing unless a recording
+// is running, e.g.
+//   JAVA_OPTS="-XX:StartFlightRecording=filename=oro.jfr" oro script.oro
+// The threshold can be changed per recording with oro.BuiltinCall#threshold=1ms.
+@Name("oro.BuiltinCall")
+@Label("Oro Built-in Call")
+@Description("A call to a native Oro built-in that exceeded the threshold")
+@Category("Oro")
+@Threshold("10 ms")
+@StackTrace(false)
+class BuiltinCallEvent extends jdk.jfr.Event {
+    @Label("Built-in")
+    String builtin;
+
+    @Label("Line")
+    int line;
+}
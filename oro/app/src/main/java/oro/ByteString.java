@@ -0,0 +1,200 @@
+package oro;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Text kept as the bytes it was read from, one byte per character (Latin-1, which ASCII
+// UTF-8 is a subset of). Documents that are all ASCII are read into one of these rather
+// than decoded into a String, and slicing, trimming and substring share the same bytes.
+//
+// Scripts see byte strings as strings, the same way as StringViews: built-ins that
+// acceptsViews() get them as they are, and length, contains, substring, replace,
+// toUpper, toLower, trim and the regex built-ins work on the bytes. Everything else is
+// handed the decoded String. Case mapping only stays on the bytes for ASCII text; other
+// text goes through String so the results match String's.
+final class ByteString implements CharSequence {
+    private final byte[] bytes;
+    private final int start;
+    private final int end;
+
+    private ByteString(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+    }
+
+    // The first length bytes, which the caller has checked are ASCII. The array is kept,
+    // not copied.
+    static ByteString ofAscii(byte[] bytes, int length) {
+        return new ByteString(bytes, 0, length);
+    }
+
+    // Latin-1 bytes, which are always one character each
+    static ByteString ofLatin1(byte[] bytes) {
+        return new ByteString(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= end - start) throw new IndexOutOfBoundsException(index);
+        return (char) (bytes[start + index] & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > end - start || from > to) {
+            throw new IndexOutOfBoundsException("[" + from + ", " + to + ")");
+        }
+        return slice(from, to);
+    }
+
+    // Shares the bytes; bounds are already checked
+    ByteString slice(int from, int to) {
+        if (from == 0 && to == end - start) return this;
+        return new ByteString(bytes, start + from, start + to);
+    }
+
+    // String.substring's bounds and exception, without the copy
+    ByteString substring(int from, int to) {
+        if (from < 0 || to > end - start || from > to) {
+            throw new StringIndexOutOfBoundsException("begin " + from + ", end " + to + ", length " + (end - start));
+        }
+        return slice(from, to);
+    }
+
+    // Drops characters up to ' ' at either end, as String.trim does
+    ByteString trim() {
+        int from = start;
+        int to = end;
+        while (from < to && (bytes[from] & 0xff) <= ' ') from++;
+        while (to > from && (bytes[to - 1] & 0xff) <= ' ') to--;
+        return slice(from - start, to - start);
+    }
+
+    int indexOf(CharSequence target) {
+        int at = indexOf(target, start);
+        return at < 0 ? -1 : at - start;
+    }
+
+    boolean contains(CharSequence target) {
+        return indexOf(target) >= 0;
+    }
+
+    // String.replace(target, replacement). Text that has no match comes back as it is;
+    // an empty target, or a replacement that is not Latin-1, is left to String.
+    CharSequence replace(CharSequence target, CharSequence replacement) {
+        int step = target.length();
+        if (step == 0) return toString().replace(target, replacement);
+        int first = indexOf(target, start);
+        if (first < 0) return this;
+        byte[] with = latin1(replacement);
+        if (with == null) return toString().replace(target, replacement);
+
+        int matches = 0;
+        for (int at = first; at >= 0; at = indexOf(target, at + step)) matches++;
+        byte[] result = new byte[end - start + matches * (with.length - step)];
+        int copied = start;
+        int written = 0;
+        for (int at = first; at >= 0; at = indexOf(target, at + step)) {
+            System.arraycopy(bytes, copied, result, written, at - copied);
+            written += at - copied;
+            System.arraycopy(with, 0, result, written, with.length);
+            written += with.length;
+            copied = at + step;
+        }
+        System.arraycopy(bytes, copied, result, written, end - copied);
+        return ofLatin1(result);
+    }
+
+    CharSequence toUpperCase() {
+        return mapCase('a', 'z');
+    }
+
+    CharSequence toLowerCase() {
+        return mapCase('A', 'Z');
+    }
+
+    // Flips the case of letters first..last. Non-ASCII text, and locales whose case rules
+    // differ for ASCII letters (the dotted and dotless i), go through String.
+    private CharSequence mapCase(char first, char last) {
+        String language = Locale.getDefault().getLanguage();
+        if (language.equals("tr") || language.equals("az")) return mapCaseAsString(first);
+        byte[] result = null;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b < 0) return mapCaseAsString(first);
+            if (b >= first && b <= last) {
+                if (result == null) result = Arrays.copyOfRange(bytes, start, end);
+                result[i - start] = (byte) (b ^ 0x20);
+            }
+        }
+        return result == null ? this : ofLatin1(result);
+    }
+
+    private String mapCaseAsString(char first) {
+        return first == 'a' ? toString().toUpperCase() : toString().toLowerCase();
+    }
+
+    // The absolute position of needle at or after from, or -1. Characters outside
+    // Latin-1 never match a byte.
+    private int indexOf(CharSequence needle, int from) {
+        int length = needle.length();
+        if (length == 0) return from <= end ? from : -1;
+        char head = needle.charAt(0);
+        int last = end - length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            if ((bytes[i] & 0xff) != head) continue;
+            for (int j = 1; j < length; j++) {
+                if ((bytes[i + j] & 0xff) != needle.charAt(j)) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // The text's Latin-1 bytes, or null if it has a character outside Latin-1
+    private static byte[] latin1(CharSequence text) {
+        if (text instanceof ByteString) {
+            ByteString other = (ByteString) text;
+            if (other.start == 0 && other.end == other.bytes.length) return other.bytes;
+        }
+        byte[] result = new byte[text.length()];
+        for (int i = 0; i < result.length; i++) {
+            char c = text.charAt(i);
+            if (c > 0xff) return null;
+            result[i] = (byte) c;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    // Equal to another byte string with the same characters; use contentEquals against Strings
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof ByteString)) return false;
+        ByteString text = (ByteString) other;
+        return Arrays.equals(bytes, start, end, text.bytes, text.start, text.end);
+    }
+
+    // Same value String.hashCode gives for these characters
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + (bytes[i] & 0xff);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,50 @@
+package oro;
+
+import java.util.Arrays;
+
+// Oro-level call stack of one interpreter, kept only while profiling: the name of each
+// active function and the line it is executing. Written by the interpreter's thread and
+// read without locking by the profiler's sampler, so a sample can occasionally mix two
+// neighbouring states. That is harmless for statistics and keeps push/pop cheap.
+class CallStack {
+    private String[] names = new String[64];
+    private int[] lines = new int[64];
+    private volatile int depth = 0;
+
+    // line is where the frame starts: a function's declaration, a built-in's call site
+    void push(String name, int line) {
+        int top = depth;
+        if (top == names.length) grow();
+        names[top] = name;
+        lines[top] = line;
+        depth = top + 1;
+    }
+
+    void pop() {
+        depth = depth - 1;
+    }
+
+    void line(int line) {
+        int top = depth;
+        if (top > 0) lines[top - 1] = line;
+    }
+
+    // Copies the frames, outermost first, into the given arrays and returns how many
+    // there were; the arrays must be at least as long as the stack
+    int sample(String[] sampledNames, int[] sampledLines) {
+        String[] currentNames = names;
+        int[] currentLines = lines;
+        int count = Math.min(depth, Math.min(currentNames.length, currentLines.length));
+        count = Math.min(count, sampledNames.length);
+        System.arraycopy(currentNames, 0, sampledNames, 0, count);
+        System.arraycopy(currentLines, 0, sampledLines, 0, count);
+        return count;
+    }
+
+    private void grow() {
+        String[] grownNames = Arrays.copyOf(names, names.length * 2);
+        int[] grownLines = Arrays.copyOf(lines, lines.length * 2);
+        names = grownNames;
+        lines = grownLines;
+    }
+}
@@ -0,0 +1,46 @@
+package oro;
+
+import java.util.Collections;
+import java.util.List;
+
+// Scanned, parsed and resolved Oro source. Immutable once compiled, so one instance can
+// be executed any number of times, by any number of interpreters.
+public final class CompiledScript {
+    private final String source;
+    private final List<Stmt> statements;
+    private final List<Diagnostic> diagnostics;
+
+    CompiledScript(String source, List<Stmt> statements, List<Diagnostic> diagnostics) {
+        this.source = source;
+        this.statements = Collections.unmodifiableList(statements);
+        this.diagnostics = diagnostics;
+    }
+
+    static CompiledScript compile(String source) {
+        Diagnostics diagnostics = new Diagnostics();
+        List<Token> tokens = new Scanner(source, diagnostics).scanTokens();
+        List<Stmt> statements = new Parser(tokens, diagnostics).parse();
+
+        if (!diagnostics.hadError()) {
+            new Resolver(diagnostics).resolve(statements);
+        }
+        return new CompiledScript(source, statements, diagnostics.list());
+    }
+
+    public String source() {
+        return source;
+    }
+
+    // Syntax and resolution errors. A script with errors cannot be executed.
+    public List<Diagnostic> diagnostics() {
+        return diagnostics;
+    }
+
+    public boolean hasErrors() {
+        return !diagnostics.isEmpty();
+    }
+
+    List<Stmt> statements() {
+        return statements;
+    }
+}
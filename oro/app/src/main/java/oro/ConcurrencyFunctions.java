@@ -0,0 +1,135 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// spawn/await and channels. Every spawned call runs on its own virtual thread with an
+// isolated interpreter (see Interpreter.isolated), and the script or task that spawned
+// it waits for it before finishing.
+//
+// The function passed to spawn must not assign to variables declared outside itself;
+// pass data in as arguments and get it back through await or a channel.
+public class ConcurrencyFunctions {
+
+    public static void registerAll(Environment globals) {
+        // spawn(fn, args...)
+        globals.define("spawn", new OroCallable() {
+            @Override
+            public int arity() { return -1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (args.isEmpty() || !(args.get(0) instanceof OroCallable)) {
+                    throw new RuntimeError("spawn: first argument must be a function.");
+                }
+                OroCallable function = (OroCallable) args.get(0);
+                List<Object> arguments = new ArrayList<>(args.subList(1, args.size()));
+                if (function.arity() >= 0 && arguments.size() != function.arity()) {
+                    throw new RuntimeError("spawn: " + function + " expects " + function.arity()
+                            + " arguments but got " + arguments.size() + ".");
+                }
+                if (function instanceof OroFunction && ((OroFunction) function).assignsOuterVariables()) {
+                    throw new RuntimeError("spawn: " + function + " assigns to a variable outside itself, "
+                            + "which would race between tasks. Return values or use a channel instead.");
+                }
+                return interpreter.spawn(function, arguments);
+            }
+
+            @Override
+            public String toString() { return "<native fun spawn>"; }
+        });
+
+        globals.define("await", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (!(args.get(0) instanceof OroTask)) {
+                    throw new RuntimeError("await: argument must be a task returned by spawn.");
+                }
+                return ((OroTask) args.get(0)).await(interpreter.meter());
+            }
+
+            @Override
+            public String toString() { return "<native fun await>"; }
+        });
+
+        globals.define("channel", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                // NaN fails the first comparison
+                if (!(args.get(0) instanceof Double) || (Double) args.get(0) != Math.floor((Double) args.get(0))
+                        || (Double) args.get(0) < 1 || (Double) args.get(0) > OroChannel.MAX_CAPACITY) {
+                    throw new RuntimeError("channel: capacity must be a whole number from 1 to "
+                            + OroChannel.MAX_CAPACITY + ".");
+                }
+                return new OroChannel(((Double) args.get(0)).intValue());
+            }
+
+            @Override
+            public String toString() { return "<native fun channel>"; }
+        });
+
+        globals.define("send", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                try {
+                    channel(args.get(0), "send").send(args.get(1), interpreter.meter());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeError("send: interrupted.");
+                }
+                return null;
+            }
+
+            @Override
+            public String toString() { return "<native fun send>"; }
+        });
+
+        globals.define("receive", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                try {
+                    return channel(args.get(0), "receive").receive(interpreter.meter());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeError("receive: interrupted.");
+                }
+            }
+
+            @Override
+            public String toString() { return "<native fun receive>"; }
+        });
+
+        globals.define("close", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                channel(args.get(0), "close").close();
+                return null;
+            }
+
+            @Override
+            public String toString() { return "<native fun close>"; }
+        });
+    }
+
+    private static OroChannel channel(Object value, String name) {
+        if (!(value instanceof OroChannel)) {
+            throw new RuntimeError(name + ": first argument must be a channel.");
+        }
+        return (OroChannel) value;
+    }
+}
@@ -0,0 +1,54 @@
+package oro;
+
+// A compile or runtime error reported by the scanner, parser, resolver or interpreter
+public final class Diagnostic {
+    public enum Kind { COMPILE, RUNTIME }
+
+    private final Kind kind;
+    private final int line;
+    private final int column;
+    private final String where;
+    private final String message;
+
+    Diagnostic(Kind kind, int line, int column, String where, String message) {
+        this.kind = kind;
+        this.line = line;
+        this.column = column;
+        this.where = where;
+        this.message = message;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    // 1-based source line, or -1 if the error has no location
+    public int line() {
+        return line;
+    }
+
+    // Column within the line, or -1 if only the line is known
+    public int column() {
+        return column;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    // " at 'lexeme'" / " at end" for parser and resolver errors, empty otherwise
+    String where() {
+        return where;
+    }
+
+    @Override
+    public String toString() {
+        if (kind == Kind.RUNTIME) {
+            return line < 0 ? message : message + "\n[line " + line + "]";
+        }
+        if (column < 0) {
+            return "[line " + line + "] Error" + where + ": " + message;
+        }
+        return "[line " + line + ", column " + column + "] Error" + where + ": " + message;
+    }
+}
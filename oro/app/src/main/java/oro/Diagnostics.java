@@ -0,0 +1,52 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Collects the errors of one compile or run instead of printing them, so the CLI and
+// embedders decide how to surface them
+class Diagnostics {
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    private boolean hadError = false;
+    private boolean hadRuntimeError = false;
+
+    void error(int line, int column, String message) {
+        report(line, column, "", message);
+    }
+
+    void error(int line, String message) {
+        report(line, -1, "", message);
+    }
+
+    void error(Token token, String message) {
+        if (token.type == TokenType.EOF) {
+            report(token.line, token.column, " at end", message);
+        } else {
+            report(token.line, token.column, " at '" + token.lexeme + "'", message);
+        }
+    }
+
+    void runtimeError(RuntimeError error) {
+        int line = error.token != null ? error.token.line : -1;
+        diagnostics.add(new Diagnostic(Diagnostic.Kind.RUNTIME, line, -1, "", error.getMessage()));
+        hadRuntimeError = true;
+    }
+
+    private void report(int line, int column, String where, String message) {
+        diagnostics.add(new Diagnostic(Diagnostic.Kind.COMPILE, line, column, where, message));
+        hadError = true;
+    }
+
+    boolean hadError() {
+        return hadError;
+    }
+
+    boolean hadRuntimeError() {
+        return hadRuntimeError;
+    }
+
+    List<Diagnostic> list() {
+        return Collections.unmodifiableList(new ArrayList<>(diagnostics));
+    }
+}
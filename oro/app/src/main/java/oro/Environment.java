@@ -1,18 +1,41 @@
 package oro;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 class Environment {
   final Environment enclosing;
-  private final Map<String, Object> values = new HashMap<>();
+  private final Map<String, Object> values;
+  // Read-only layer under a global scope (built-ins, host bindings). Lookups fall
+  // through to it; assigning to a name found there shadows it in this scope instead.
+  private final Environment base;
+  // Set on forks of a snapshot: copies mutable values out of the base layers the
+  // first time they are read, so the snapshot itself is never modified. Also set on
+  // a task's globals (see isolate), where everything was copied up front.
+  private final SnapshotCopier copier;
 
   Environment() {
-    enclosing = null;
+    this(null, new HashMap<>(), null, null);
   }
 
   Environment(Environment enclosing) {
+    this(enclosing, new HashMap<>(), null, null);
+  }
+
+  // Global scope stored directly in the given map, layered over base
+  Environment(Map<String, Object> values, Environment base) {
+    this(null, values, base, null);
+  }
+
+  private Environment(Environment enclosing, Map<String, Object> values, Environment base,
+                      SnapshotCopier copier) {
     this.enclosing = enclosing;
+    this.values = values;
+    this.base = base;
+    this.copier = copier;
   }
 
   // Retrieve corresponding value when variable is accessed
@@ -23,6 +46,17 @@ class Environment {
 
     if (enclosing != null) return enclosing.get(name);
 
+    for (Environment layer = base; layer != null; layer = layer.base) {
+      if (layer.values.containsKey(name.lexeme)) {
+        Object value = layer.values.get(name.lexeme);
+        if (copier == null) return value;
+
+        Object copy = copier.copy(value);
+        if (copy != value) values.put(name.lexeme, copy);
+        return copy;
+      }
+    }
+
     throw new RuntimeError(name,
         "Undefined variable '" + name.lexeme + "'.");
   }
@@ -38,6 +72,13 @@ class Environment {
         return;
       }
 
+    for (Environment layer = base; layer != null; layer = layer.base) {
+      if (layer.values.containsKey(name.lexeme)) {
+        values.put(name.lexeme, value);
+        return;
+      }
+    }
+
     throw new RuntimeError(name,
         "Undefined variable '" + name.lexeme + "'.");
   }
@@ -47,6 +88,61 @@ class Environment {
     values.put(name, value);
   }
 
+  void defineAll(Map<String, ?> definitions) {
+    values.putAll(definitions);
+  }
+
+  void clear() {
+    values.clear();
+  }
+
+  // Read-only copy of this scope's own variables, excluding the base layers
+  Map<String, Object> snapshot() {
+    return Collections.unmodifiableMap(new HashMap<>(values));
+  }
+
+  // Read-only environment over a copy of this scope, usable as a base layer
+  Environment freeze() {
+    return new Environment(null, snapshot(), base, null);
+  }
+
+  // New global scope over this frozen one in constant time. Nothing is copied up
+  // front; arrays, maps, instances and closures are copied on first read (flat ones
+  // only on first write), so the fork shares no mutable state with the snapshot or
+  // with other forks. flat is what SnapshotCopier.scan found in this scope.
+  Environment fork(Set<Object> flat) {
+    return new Environment(null, new HashMap<>(), this, new SnapshotCopier(flat));
+  }
+
+  // New global scope holding copies of this one's values, taken now on the calling
+  // thread, over the same built-ins. Used for spawned tasks; pass the same copier for
+  // the task's function and arguments so aliasing between them is kept.
+  Environment isolate(SnapshotCopier copier) {
+    Environment copy = new Environment(null, new HashMap<>(), freeze(), copier);
+    copy.materialize();
+    return copy;
+  }
+
+  // Copies every snapshot value this fork has not read yet, after which reads never
+  // write. Needed before several threads read the same fork concurrently.
+  void materialize() {
+    if (copier == null) return;
+    // A name in an upper layer hides the same name further down
+    Set<String> seen = new HashSet<>(values.keySet());
+    for (Environment layer = base; layer != null; layer = layer.base) {
+      for (Map.Entry<String, Object> entry : layer.values.entrySet()) {
+        if (!seen.add(entry.getKey())) continue;
+        Object copy = copier.copy(entry.getValue());
+        if (copy != entry.getValue()) values.put(entry.getKey(), copy);
+      }
+    }
+  }
+
+  // This scope's own variables, for SnapshotCopier
+  Map<String, Object> values() {
+    return values;
+  }
+
   Environment ancestor(int distance) {
     Environment environment = this;
     for (int i = 0; i < distance; i++) {
@@ -0,0 +1,44 @@
+package oro;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Outcome of one OroEngine.execute call: captured output, errors and the globals the
+// script defined. Globals holding string views are handed out as Strings.
+public final class ExecutionResult {
+    private final List<Diagnostic> diagnostics;
+    private final String output;
+    private final Map<String, Object> globals;
+
+    ExecutionResult(List<Diagnostic> diagnostics, String output, Map<String, Object> globals) {
+        this.diagnostics = diagnostics;
+        this.output = output;
+        Map<String, Object> exported = new HashMap<>(globals);
+        exported.replaceAll((name, value) -> StringView.export(value));
+        this.globals = Collections.unmodifiableMap(exported);
+    }
+
+    public boolean succeeded() {
+        return diagnostics.isEmpty();
+    }
+
+    public List<Diagnostic> diagnostics() {
+        return diagnostics;
+    }
+
+    // Everything the script printed
+    public String output() {
+        return output;
+    }
+
+    // Value of a global defined or assigned by the script, or null
+    public Object get(String name) {
+        return globals.get(name);
+    }
+
+    public Map<String, Object> globals() {
+        return globals;
+    }
+}
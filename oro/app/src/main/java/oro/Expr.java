@@ -3,6 +3,11 @@ package oro;
 import java.util.List;
 
 abstract class Expr {
+  // Number of scopes between this variable reference and its declaration, filled in
+  // by the Resolver. -1 means the variable is global. Stored on the node so a
+  // resolved AST can be executed by any number of interpreters.
+  int depth = -1;
+
   interface Visitor<R> {
     R visitAssignExpr(Assign expr);
     R visitBinaryExpr(Binary expr);
@@ -18,6 +23,7 @@ abstract class Expr {
     R visitVariableExpr(Variable expr);
     R visitFStringExpr(Expr.FString expr);
     R visitArrayLiteralExpr(ArrayLiteral expr);
+    R visitMapLiteralExpr(MapLiteral expr);
     R visitIndexExpr(Index expr);
     R visitIndexAssignExpr(IndexAssign expr);
   }
@@ -215,13 +221,39 @@ static class ArrayLiteral extends Expr {
   }
 }
 
+static class MapLiteral extends Expr {
+  final Token brace;
+  final List<Expr> keys;
+  final List<Expr> values;
+
+  MapLiteral(Token brace, List<Expr> keys, List<Expr> values) {
+      this.brace = brace;
+      this.keys = keys;
+      this.values = values;
+  }
+
+  @Override
+  <R> R accept(Visitor<R> visitor) {
+      return visitor.visitMapLiteralExpr(this);
+  }
+}
+
 static class Index extends Expr {
   final Expr array;
   final Expr index;
+  // Slices, a[index:end], have the ':' token; either bound may be null
+  final Token colon;
+  final Expr end;
 
   Index(Expr array, Expr index) {
+      this(array, index, null, null);
+  }
+
+  Index(Expr array, Expr index, Token colon, Expr end) {
       this.array = array;
       this.index = index;
+      this.colon = colon;
+      this.end = end;
   }
 
   @Override
@@ -0,0 +1,22 @@
+package oro;
+
+import java.util.Set;
+
+// Frozen global state left behind by a prelude script, created by OroEngine.snapshot.
+// Any number of executions, on any number of threads, can start from it: each one
+// forks the snapshot in constant time and copies only the values it actually touches.
+public final class GlobalSnapshot {
+    private final Environment globals;
+    private final Set<Object> flat;
+
+    // Throws IllegalArgumentException if a global holds a generator, stream, channel,
+    // task or open reader
+    GlobalSnapshot(Environment globals) {
+        this.globals = globals;
+        this.flat = SnapshotCopier.scan(globals.values());
+    }
+
+    Environment fork() {
+        return globals.fork(flat);
+    }
+}
@@ -1,22 +1,196 @@
 package oro;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
-
-import static oro.OroPDFDocument.redactHIPAA;
-import static oro.OroPDFDocument.redactHIPAARef;
+import java.util.ServiceLoader;
+import java.util.regex.Pattern;
 
 class Interpreter implements Expr.Visitor<Object>,
                              Stmt.Visitor<Void> {
-    final Environment globals = new Environment();
-    private Environment environment = globals;
-    // Resolution info from Resolver
-    private final Map<Expr, Integer> locals = new HashMap<>();
+    // Built-ins are stateless, so they are created once per process and shared by
+    // every Interpreter as the read-only base layer of its global scope
+    private static final Environment builtIns = createBuiltIns();
+    // Display name of each built-in for stats, profiles and JFR events
+    private static final Map<OroCallable, String> builtinNames = nameBuiltIns();
+
+    final Environment globals;
+    private Environment environment;
+    // Destination of print statements and printJSON
+    private PrintWriter out = STDOUT;
+    // Tasks started by spawn() from this interpreter, created on first use
+    private TaskScope tasks;
+    // Both null unless running under --profile
+    private Profiler profiler;
+    private CallStack stack;
+    // Null unless the host set a budget for this run
+    private BudgetMeter meter;
+    // Set on the worker that runs a generator's body; yield hands values to it
+    private OroGenerator generator;
+    // Set on pmap, pfilter and preduce workers, which run alongside each other
+    private boolean parallel;
+    // Counters for this run, shared with its workers
+    private RuntimeStats stats = new RuntimeStats();
+
+    private static final PrintWriter STDOUT = new PrintWriter(System.out, true);
 
     Interpreter() {
-      initBuiltIns();
+      this(new HashMap<>());
+    }
+
+    // Globals are stored directly in the given map, on top of the built-ins
+    Interpreter(Map<String, Object> globalValues) {
+      this(new Environment(globalValues, builtIns));
+    }
+
+    Interpreter(Environment globals) {
+      this.globals = globals;
+      this.environment = globals;
+    }
+
+    static Environment builtIns() {
+      return builtIns;
+    }
+
+    PrintWriter out() {
+      return out;
+    }
+
+    void setOutput(PrintWriter out) {
+      this.out = out;
+    }
+
+    // Return to a freshly constructed state so a pooled interpreter can run another script
+    void reset() {
+      globals.clear();
+      environment = globals;
+      out = STDOUT;
+      tasks = null;
+      meter = null;
+      stats = new RuntimeStats();
+    }
+
+    // Interpreter for code that runs concurrently with this one. It has its own scope
+    // stack and a private copy of the current globals (over the same built-ins), so
+    // neither side sees the other's later definitions, assignments or writes to arrays,
+    // maps and instances. Channels, tasks and concurrent counters and maps stay shared.
+    Interpreter isolated(SnapshotCopier copier) {
+      return worker(globals.isolate(copier));
+    }
+
+    // Interpreter for work done on behalf of this one on another thread: same output
+    // and profiler, its own scope stack
+    Interpreter worker(Environment workerGlobals) {
+      Interpreter worker = new Interpreter(workerGlobals);
+      worker.out = out;
+      worker.stats = stats;
+      if (profiler != null) worker.setProfiler(profiler);
+      if (meter != null) worker.meter = meter.forWorker();
+      return worker;
+    }
+
+    // Worker for one range of pmap, pfilter or preduce. Functions declared outside it
+    // may not assign to variables outside themselves (OroFunction checks on each call).
+    Interpreter parallelWorker() {
+      Interpreter worker = worker(globals);
+      worker.parallel = true;
+      return worker;
+    }
+
+    boolean isParallelWorker() {
+      return parallel;
+    }
+
+    RuntimeStats stats() {
+      return stats;
+    }
+
+    // Null unless the run has a budget
+    BudgetMeter meter() {
+      return meter;
+    }
+
+    void runAsGenerator(OroGenerator generator) {
+      this.generator = generator;
+    }
+
+    // Limits for the run about to start; the deadline counts from this call
+    void setBudget(Budget budget) {
+      meter = budget.isUnlimited() ? null : budget.start();
+    }
+
+    void setProfiler(Profiler profiler) {
+      this.profiler = profiler;
+      this.stack = profiler.register();
+    }
+
+    // Profiler frame bookkeeping around Oro function calls; no-ops unless profiling
+    void enter(String function, int line) {
+      if (stack != null) stack.push(function, line);
+    }
+
+    void exit() {
+      if (stack != null) stack.pop();
+    }
+
+    OroTask spawn(OroCallable function, List<Object> arguments) {
+      SnapshotCopier copier = SnapshotCopier.forTask();
+      Interpreter worker = isolated(copier);
+      List<Object> copies = new ArrayList<>(arguments.size());
+      for (Object argument : arguments) {
+        copies.add(copier.copy(argument));
+      }
+      OroTask task = new OroTask(worker, (OroCallable) copier.copy(function), copies);
+      if (tasks == null) tasks = new TaskScope();
+      tasks.add(task);
+      task.start();
+      return task;
+    }
+
+    // Wait for every task this interpreter spawned, then count this interpreter's last
+    // steps against the budget
+    void closeTasks() {
+      if (tasks != null) tasks.join();
+      if (meter != null) meter.flush();
+    }
+
+    void cancelTasks() {
+      if (tasks != null) tasks.cancel();
+    }
+
+    // Globals defined by the script; built-ins live in a separate layer
+    Map<String, Object> definedGlobals() {
+      return globals.snapshot();
+    }
+
+    private static Map<OroCallable, String> nameBuiltIns() {
+      Map<OroCallable, String> names = new IdentityHashMap<>();
+      builtIns.snapshot().forEach((name, value) -> {
+        if (value instanceof OroCallable) names.put((OroCallable)value, "<native fun " + name + ">");
+      });
+      return names;
+    }
+
+    private static Environment createBuiltIns() {
+      Environment table = new Environment();
+      initBuiltIns(table);
+      RegexFunctions.registerAll(table);
+      ParallelFunctions.registerAll(table);
+      ConcurrencyFunctions.registerAll(table);
+      AggregateFunctions.registerAll(table);
+      MapFunctions.registerAll(table);
+      SetFunctions.registerAll(table);
+      ArrayFunctions.registerAll(table);
+      IterationFunctions.registerAll(table);
+      LineTableFunctions.registerAll(table);
+      BenchFunctions.registerAll(table);
+      loadLibraries(table);
+      return table.freeze();
     }
 
 
@@ -26,7 +200,13 @@ class Interpreter implements Expr.Visitor<Object>,
       }
     }
 
-    private void initBuiltIns(){
+    // The string built-ins below take views so byte strings reach their byte paths;
+    // any other mix of text goes through the String methods
+    private static Object plain(Object value) {
+      return StringView.isView(value) ? value.toString() : value;
+    }
+
+    private static void initBuiltIns(Environment globals){
       // Native functions with implementation using native Java //
       globals.define("clock", new OroCallable() {
         @Override
@@ -46,10 +226,14 @@ class Interpreter implements Expr.Visitor<Object>,
         @Override
         public int arity() { return 1; }
 
+        @Override
+        public boolean acceptsViews() { return true; }
+
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
+            if (arguments.get(0) instanceof ByteString) return ((ByteString) arguments.get(0)).toUpperCase();
             try{
-              return ((String) arguments.get(0)).toUpperCase();
+              return ((String) plain(arguments.get(0))).toUpperCase();
             }
             catch (ClassCastException e){
               return "OroError: " + arguments.get(0).getClass().getSimpleName() + " cannot be cast as String";
@@ -65,22 +249,21 @@ class Interpreter implements Expr.Visitor<Object>,
         @Override
         public int arity() { return 2; }
 
+        // Matches slices and byte strings in place
+        @Override
+        public boolean acceptsViews() { return true; }
+
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
-          try {
-            String input = (String) arguments.get(0);
-            String pattern = (String) arguments.get(1);
-            return input.matches(pattern);
-            }
-            catch (ClassCastException e){
-              if (!(arguments.get(0) instanceof String)) {
-                return "OroError: " + arguments.get(0).getClass().getSimpleName() + " cannot be cast to String (first argument)";
-              } 
-              else if (!(arguments.get(1) instanceof String)) {
-                return "OroError: " + arguments.get(1).getClass().getSimpleName() + " cannot be cast to String (second argument)";
-              }
-              return "OroError: Unexpected error in arguments.";            
-            }
+          String pattern = StringView.string(arguments.get(1));
+          if (!isText(arguments.get(0))) {
+            return "OroError: " + arguments.get(0).getClass().getSimpleName() + " cannot be cast to String (first argument)";
+          }
+          if (pattern == null) {
+            return "OroError: " + arguments.get(1).getClass().getSimpleName() + " cannot be cast to String (second argument)";
+          }
+          interpreter.stats().regexCompiled();
+          return Pattern.matches(pattern, (CharSequence) arguments.get(0));
         }
 
         @Override
@@ -92,10 +275,14 @@ class Interpreter implements Expr.Visitor<Object>,
         @Override
         public int arity() { return 1; }
     
+        @Override
+        public boolean acceptsViews() { return true; }
+
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
+          if (arguments.get(0) instanceof ByteString) return ((ByteString) arguments.get(0)).toLowerCase();
           try{
-            return ((String) arguments.get(0)).toLowerCase();
+            return ((String) plain(arguments.get(0))).toLowerCase();
           }
           catch (ClassCastException e){
             return "OroError: " + arguments.get(0).getClass().getSimpleName() + " cannot be cast as String";
@@ -134,10 +321,14 @@ class Interpreter implements Expr.Visitor<Object>,
         @Override
         public int arity() { return 1; }
     
+        @Override
+        public boolean acceptsViews() { return true; }
+
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
+          if (arguments.get(0) instanceof ByteString) return ((ByteString) arguments.get(0)).trim();
           try{  
-            return ((String) arguments.get(0)).trim();
+            return ((String) plain(arguments.get(0))).trim();
           } 
           catch (ClassCastException e){
             return "OroError: " + arguments.get(0).getClass().getSimpleName() + " cannot be cast as String";
@@ -153,13 +344,18 @@ class Interpreter implements Expr.Visitor<Object>,
         @Override
         public int arity() { return 3; }
     
+        // A byte string's substring shares its bytes
+        @Override
+        public boolean acceptsViews() { return true; }
+
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
-            String text = (String) arguments.get(0);
+            Object text = arguments.get(0);
             int start = ((Double) arguments.get(1)).intValue();
             int end = ((Double) arguments.get(2)).intValue();
             try{
-              return text.substring(start, end);
+              if (text instanceof ByteString) return ((ByteString) text).substring(start, end);
+              return ((String) plain(text)).substring(start, end);
             }
             catch (StringIndexOutOfBoundsException e){
               return "OroError: Error calling substring(String text, Int start, Int end)";
@@ -175,22 +371,28 @@ class Interpreter implements Expr.Visitor<Object>,
         @Override
         public int arity() { return 3; }
 
+        @Override
+        public boolean acceptsViews() { return true; }
+
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
+          if (arguments.get(0) instanceof ByteString && isText(arguments.get(1)) && isText(arguments.get(2))) {
+            return ((ByteString) arguments.get(0)).replace((CharSequence) arguments.get(1), (CharSequence) arguments.get(2));
+          }
           try{
-            String text = (String) arguments.get(0);
-            String target = (String) arguments.get(1);
-            String replacement = (String) arguments.get(2);
+            String text = (String) plain(arguments.get(0));
+            String target = (String) plain(arguments.get(1));
+            String replacement = (String) plain(arguments.get(2));
             return text.replace(target, replacement);
           }
           catch (ClassCastException e){
-            if (!(arguments.get(0) instanceof String)) {
+            if (!isText(arguments.get(0))) {
               return "OroError: " + arguments.get(0).getClass().getSimpleName() + " cannot be cast to String (first argument)";
             } 
-            else if (!(arguments.get(1) instanceof String)) {
+            else if (!isText(arguments.get(1))) {
               return "OroError: " + arguments.get(1).getClass().getSimpleName() + " cannot be cast to String (second argument)";
             }
-            else if (!(arguments.get(1) instanceof String)) {
+            else if (!isText(arguments.get(2))) {
               return "OroError: " + arguments.get(2).getClass().getSimpleName() + " cannot be cast to String (third argument)";
             }
             return "OroError: Unexpected error in arguments.";       
@@ -206,16 +408,22 @@ class Interpreter implements Expr.Visitor<Object>,
         @Override
         public int arity() { return 2; }
     
+        @Override
+        public boolean acceptsViews() { return true; }
+
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (arguments.get(0) instanceof ByteString && isText(arguments.get(1))) {
+          return ((ByteString) arguments.get(0)).contains((CharSequence) arguments.get(1));
+        }
         try{   
-          return ((String) arguments.get(0)).contains((String) arguments.get(1));
+          return ((String) plain(arguments.get(0))).contains((String) plain(arguments.get(1)));
         }
         catch (ClassCastException e){
-          if (!(arguments.get(0) instanceof String)) {
+          if (!isText(arguments.get(0))) {
             return "OroError: " + arguments.get(0).getClass().getSimpleName() + " cannot be cast to String (first argument)";
           } 
-          else if (!(arguments.get(1) instanceof String)) {
+          else if (!isText(arguments.get(1))) {
             return "OroError: " + arguments.get(1).getClass().getSimpleName() + " cannot be cast to String (second argument)";
           }
           else {
@@ -233,10 +441,14 @@ class Interpreter implements Expr.Visitor<Object>,
         @Override
         public int arity() { return 1; }
     
+        // Counts a string slice or byte string without copying it
+        @Override
+        public boolean acceptsViews() { return true; }
+
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
           try{
-            return ((String) arguments.get(0)).length();
+            return ((CharSequence) arguments.get(0)).length();
           }
           catch (ClassCastException e){
             return "OroError: " + arguments.get(0).getClass().getSimpleName() + " cannot be cast to String";
@@ -296,7 +508,7 @@ class Interpreter implements Expr.Visitor<Object>,
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
         if (!(arguments.get(0) instanceof OroArray)) {
-            System.out.println("OroError: First argument must be an array.");
+            interpreter.out().println("OroError: First argument must be an array.");
             return null;
         }
         ((OroArray) arguments.get(0)).append(arguments.get(1));
@@ -313,8 +525,17 @@ class Interpreter implements Expr.Visitor<Object>,
 
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (arguments.get(0) instanceof OroMap) {
+            return ((OroMap) arguments.get(0)).size();
+        }
+        if (arguments.get(0) instanceof OroSet) {
+            return ((OroSet) arguments.get(0)).size();
+        }
+        if (arguments.get(0) instanceof LineTable) {
+            return ((LineTable) arguments.get(0)).size();
+        }
         if (!(arguments.get(0) instanceof OroArray)) {
-          System.out.println("OroError: Argument must be an array.");
+          interpreter.out().println("OroError: Argument must be an array, map, set or line table.");
             return null;
         }
         return ((OroArray) arguments.get(0)).size();
@@ -343,7 +564,7 @@ class Interpreter implements Expr.Visitor<Object>,
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
         for (Object arg : arguments) {
-            System.out.println(JSONParser.toJson(arg));  // Use toJson for proper formatting
+            interpreter.out().println(JSONParser.toJson(arg));  // Use toJson for proper formatting
         }
         return null;
     }
@@ -407,7 +628,7 @@ class Interpreter implements Expr.Visitor<Object>,
         }
         else{
           OroDocument doc = (OroDocument) arguments.get(0);
-          return doc.getDocText(doc.getFilePath()); // Returns a new instance of Document
+          return doc.readText(doc.getFilePath()); // Undecoded bytes for ASCII files
         }
         
     }
@@ -445,190 +666,88 @@ class Interpreter implements Expr.Visitor<Object>,
     }
   });
 
+  globals.define("workingDir", new OroCallable() {
+    @Override
+    public int arity() {
+        return 0;
+    }
 
-        globals.define("PDFDocument", new OroCallable() {
-            @Override
-            public int arity() {
-                return 1; // File Path
-            }
-
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                if (((String) arguments.get(0)).toLowerCase().endsWith(".pdf") != true) {
-                    throw new RuntimeError("Error: Unsupported file type");
-                }
-                else{
-                    try{
-                        return new OroPDFDocument((String) arguments.get(0)); // Returns a new instance of Document
-                    }
-                    catch (IOException e){
-                        throw new RuntimeError("Error loading PDF: " + e.getMessage());
-                    }
-                }
-
-            }
-
-            @Override
-            public String toString() {
-                return "<native class PDFDocument>";
-            }
-        });
-
-        globals.define("getPDFText", new OroCallable() {
-            @Override
-            public int arity() {
-                return 1; // Document Instance
-            }
-
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                if (!(arguments.get(0) instanceof OroPDFDocument))  {
-                    throw new RuntimeError("Error: Expected argument of type PDF");
-                }
-                else{
-                    try {
-                        OroPDFDocument pdf = (OroPDFDocument) arguments.get(0);
-                        return pdf.getPDFText();
-                    } catch (IOException e) {
-                        throw new RuntimeException("Error getting PDF text: " + e.getMessage());
-                    }
-                }
-
-            }
-
-            @Override
-            public String toString() {
-                return "<native fun getPDFText>";
-            }
-        });
-
-        globals.define("workingDir", new OroCallable() {
-            @Override
-            public int arity() {
-                return 0;
-            }
-
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                return System.getProperty("user.dir");
-
-            }
-
-            @Override
-            public String toString() {
-                return "<native fun workingDir>";
-            }
-        });
-
-        globals.define("createPDF", new OroCallable() {
-            @Override
-            public int arity() {
-                return 2; // File path, replacement text
-            }
-
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                if (!(arguments.get(0) instanceof String) || !(arguments.get(1) instanceof String))  {
-                    throw new RuntimeError("Error: Expected arguments of type String");
-                }
-                else{
-
-                    String filePath = (String) arguments.get(0);
-                    String replacementText = (String) arguments.get(1);
-                    // 1 if successful, 0 if not
-                    try {
-                        OroPDFDocument.createPDF(filePath, replacementText);
-                    }
-                    catch (IOException e){
-                        throw new RuntimeError("Error creating PDF: " + e.getMessage());
-                    }
-                    return null;
-                }
-            }
-
-            @Override
-            public String toString() {
-                return "<native fun createPDF>";
-            }
-        });
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return System.getProperty("user.dir");
 
-        // Given a PDF instance, redact all information required under HIPAA and save to a new PDF
-        globals.define("redactHIPAA", new OroCallable() {
-            @Override
-            public int arity() {
-                return 2; // PDF instance, redacted file path
-            }
+    }
 
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                if (!(arguments.get(0) instanceof OroPDFDocument) || !(arguments.get(1) instanceof String))  {
-                    throw new RuntimeError("Error: Expected arguments of type PDF, String");
-                }
-                else{
-
-                    OroPDFDocument pdf = (OroPDFDocument) arguments.get(0);
-                    String redactedPath = (String) arguments.get(1);
-                    // 1 if successful, 0 if not
-                    try {
-                        redactHIPAA(pdf, redactedPath);
-                    }
-                    catch (IOException e){
-                        throw new RuntimeError("Error redacting HIPAA: " + e.getMessage());
-                    }
-                    return null;
-                }
-            }
+    @Override
+    public String toString() {
+        return "<native fun workingDir>";
+    }
+  });
 
-            @Override
-            public String toString() {
-                return "<native fun redactHIPAA>";
-            }
-        });
+  // Interpreter counters, see RuntimeStats
+  globals.define("stats", new OroCallable() {
+    @Override
+    public int arity() {
+        return 0;
+    }
 
-        // Has optional parameter to act as blank document template
-        globals.define("redactHIPAA", new OroCallable() {
-            @Override
-            public int arity() {
-                return 3; // PDF instance form, redacted file path, PDF instance template
-            }
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return interpreter.stats().snapshot();
+    }
 
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                if (!(arguments.get(0) instanceof OroPDFDocument) || !(arguments.get(1) instanceof String))  {
-                    throw new RuntimeError("Error: Expected arguments of type PDF, String");
-                }
-                else{
-
-                    OroPDFDocument pdf = (OroPDFDocument) arguments.get(0);
-                    String redactedPath = (String) arguments.get(1);
-                    OroPDFDocument template = (OroPDFDocument) arguments.get(2);
-                    // 1 if successful, 0 if not
-                    try {
-                        redactHIPAARef(pdf, redactedPath, template);
-                    }
-                    catch (IOException e){
-                        throw new RuntimeError("Error redacting HIPAA: " + e.getMessage());
-                    }
-                    return null;
-                }
-            }
+    @Override
+    public String toString() {
+        return "<native fun stats>";
+    }
+  });
 
-            @Override
-            public String toString() {
-                return "<native fun redactHIPAA>";
-            }
-        });
+    }
 
+    // Built-ins contributed by optional modules (oro-pdf, oro-nlp) found on the classpath
+    private static void loadLibraries(Environment globals) {
+      for (OroLibrary library : ServiceLoader.load(OroLibrary.class)) {
+        library.registerAll(globals);
+      }
+    }
 
+    // Runs the statements and returns the value of a trailing expression statement.
+    // Runtime errors propagate to the caller.
+    Object run(List<Stmt> statements) {
+      try {
+        Object value = null;
+        int last = statements.size() - 1;
+        for (int i = 0; i < last; i++) {
+          execute(statements.get(i));
+        }
+        if (last >= 0) {
+          Stmt tail = statements.get(last);
+          if (tail instanceof Stmt.Expression) {
+            value = evaluate(((Stmt.Expression)tail).expression);
+          } else {
+            execute(tail);
+          }
+        }
+        closeTasks();
+        return value;
+      } catch (RuntimeError error) {
+        cancelTasks();
+        throw error;
+      }
     }
 
-    void interpret(List<Stmt> statements) {
+    void interpret(List<Stmt> statements, Diagnostics diagnostics) {
+      enter("<script>", 1);
       try {
         for (Stmt statement : statements) {
           execute(statement);
         }
+        closeTasks();
       } catch (RuntimeError error) {
-        Oro.runtimeError(error);
+        cancelTasks();
+        diagnostics.runtimeError(error);
+      } finally {
+        exit();
       }
     }
 
@@ -666,7 +785,7 @@ class Interpreter implements Expr.Visitor<Object>,
 
     @Override
     public Object visitSuperExpr(Expr.Super expr) {
-      int distance = locals.get(expr);
+      int distance = expr.depth;
       OroClass superclass = (OroClass)environment.getAt(distance, "super");
 
       OroInstance object = (OroInstance)environment.getAt(distance - 1, "this");
@@ -719,8 +838,9 @@ class Interpreter implements Expr.Visitor<Object>,
 
 
     private Object lookUpVariable(Token name, Expr expr) {
-      Integer distance = locals.get(expr);
-      if (distance != null) {
+      int distance = expr.depth;
+      stats.lookup(distance);
+      if (distance >= 0) {
         return environment.getAt(distance, name.lexeme);
       } else {
         return globals.get(name);
@@ -739,7 +859,7 @@ class Interpreter implements Expr.Visitor<Object>,
     }
 
     // Determine what values are defined to be true or false
-    private boolean isTruthy(Object object) {
+    static boolean isTruthy(Object object) {
         if (object == null) return false;
         if (object instanceof Boolean) return (boolean)object;
         if (object instanceof Double) return ((Double)object) != 0.0;
@@ -749,10 +869,17 @@ class Interpreter implements Expr.Visitor<Object>,
     private boolean isEqual(Object a, Object b) {
         if (a == null && b == null) return true;
         if (a == null) return false;
+        if ((StringView.isView(a) || StringView.isView(b)) && isText(a) && isText(b)) {
+          return CharSequence.compare((CharSequence)a, (CharSequence)b) == 0;
+        }
         return a.equals(b);
     }
 
-    private String stringify(Object object) {
+    private static boolean isText(Object value) {
+        return StringView.isText(value);
+    }
+
+    static String stringify(Object object) {
         if (object == null) return "null";
     
         if (object instanceof Double) {
@@ -776,13 +903,11 @@ class Interpreter implements Expr.Visitor<Object>,
     }
 
     private void execute(Stmt stmt) {
+      if (meter != null) meter.step();
+      if (stack != null && stmt.line > 0) stack.line(stmt.line);
       stmt.accept(this);
     }
 
-    void resolve(Expr expr, int depth) {
-      locals.put(expr, depth);
-    }
-
     void executeBlock(List<Stmt> statements, Environment environment) {
     Environment previous = this.environment;
     try {
@@ -798,6 +923,7 @@ class Interpreter implements Expr.Visitor<Object>,
 
     @Override
     public Void visitBlockStmt(Stmt.Block stmt) {
+      stats.environmentCreated();
       executeBlock(stmt.statements, new Environment(environment));
       return null;
     }
@@ -817,6 +943,7 @@ class Interpreter implements Expr.Visitor<Object>,
 
       // Create super environment on subclass declaration
       if (stmt.superclass != null) {
+        stats.environmentCreated();
         environment = new Environment(environment);
         environment.define("super", superclass);
       }
@@ -824,7 +951,8 @@ class Interpreter implements Expr.Visitor<Object>,
       // Method declaration --> OroFunction object
       Map<String, OroFunction> methods = new HashMap<>();
       for (Stmt.Function method : stmt.methods) {
-        OroFunction function = new OroFunction(method, environment, method.name.lexeme.equals(stmt.name.lexeme));
+        OroFunction function = new OroFunction(method, environment, method.name.lexeme.equals(stmt.name.lexeme),
+            parallel ? this : null);
         methods.put(method.name.lexeme, function);
       }
   
@@ -847,7 +975,7 @@ class Interpreter implements Expr.Visitor<Object>,
 
     @Override
     public Void visitFunctionStmt(Stmt.Function stmt) {
-      OroFunction function = new OroFunction(stmt, environment, false);
+      OroFunction function = new OroFunction(stmt, environment, false, parallel ? this : null);
       environment.define(stmt.name.lexeme, function);
       return null;
     }
@@ -865,7 +993,7 @@ class Interpreter implements Expr.Visitor<Object>,
     @Override
     public Void visitPrintStmt(Stmt.Print stmt) {
       Object value = evaluate(stmt.expression);
-      System.out.println(stringify(value));
+      out.println(stringify(value));
       return null;
     }
 
@@ -891,17 +1019,58 @@ class Interpreter implements Expr.Visitor<Object>,
     @Override
     public Void visitWhileStmt(Stmt.While stmt) {
       while (isTruthy(evaluate(stmt.condition))) {
+        // Counts the back-edge, so even a loop with an empty body is stopped
+        if (meter != null) meter.step();
         execute(stmt.body);
       }
       return null;
     }
 
+    @Override
+    public Void visitYieldStmt(Stmt.Yield stmt) {
+      Object value = null;
+      if (stmt.value != null) value = evaluate(stmt.value);
+      generator.emit(value);
+      return null;
+    }
+
+    // Pulls one element at a time from the iteration protocol; each pass gets a fresh
+    // scope holding the loop variable, so closures capture that pass's element
+    @Override
+    public Void visitForInStmt(Stmt.ForIn stmt) {
+      Object iterable = evaluate(stmt.iterable);
+      Iterator<Object> iterator = IterationFunctions.iterator(iterable, this);
+      if (iterator == null) {
+        throw new RuntimeError(stmt.name,
+            "Can only loop over arrays, maps, sets, strings and lines.");
+      }
+      List<Stmt> body = Collections.singletonList(stmt.body);
+      try {
+        while (iterator.hasNext()) {
+          if (meter != null) meter.step();
+          stats.environmentCreated();
+          Environment scope = new Environment(environment);
+          scope.define(stmt.name.lexeme, iterator.next());
+          executeBlock(body, scope);
+        }
+      } finally {
+        if (iterator instanceof AutoCloseable) {
+          try {
+            ((AutoCloseable) iterator).close();
+          } catch (Exception e) {
+            // Closing only releases the source; the loop's outcome stands
+          }
+        }
+      }
+      return null;
+    }
+
     @Override
     public Object visitAssignExpr(Expr.Assign expr) {
       Object value = evaluate(expr.value);
       
-      Integer distance = locals.get(expr);
-      if (distance != null) {
+      int distance = expr.depth;
+      if (distance >= 0) {
         environment.assignAt(distance, expr.name, value);
       } else {
         globals.assign(expr.name, value);
@@ -928,6 +1097,10 @@ class Interpreter implements Expr.Visitor<Object>,
         case LESS_EQUAL:
           checkNumberOperands(expr.operator, left, right);
           return (double)left <= (double)right;
+        case IN:
+          if (right instanceof OroSet) return ((OroSet)right).contains(left);
+          if (right instanceof OroMap) return ((OroMap)right).containsKey(left);
+          throw new RuntimeError(expr.operator, "Right operand of 'in' must be a set or map.");
         case BANG_EQUAL: 
           return !isEqual(left, right);
         case EQUAL_EQUAL: 
@@ -944,6 +1117,13 @@ class Interpreter implements Expr.Visitor<Object>,
           return (String)left + (String)right;
         }
 
+        // String slices are views; the result of concatenating them is a String
+        if (isText(left) && isText(right)) {
+          CharSequence a = (CharSequence)left;
+          CharSequence b = (CharSequence)right;
+          return new StringBuilder(a.length() + b.length()).append(a).append(b).toString();
+        }
+
         throw new RuntimeError(expr.operator, "Operands must be two numbers or two strings.");
         case SLASH:
           checkNumberOperands(expr.operator, left, right);
@@ -972,12 +1152,51 @@ class Interpreter implements Expr.Visitor<Object>,
       }
 
       OroCallable function = (OroCallable)callee;
-      if (arguments.size() != function.arity()) {
+      // A negative arity marks a variadic built-in that checks its own arguments
+      if (function.arity() >= 0 && arguments.size() != function.arity()) {
         throw new RuntimeError(expr.paren, "Expected " +
             function.arity() + " arguments but got " +
             arguments.size() + ".");
       }
-      return function.call(this, arguments);
+
+      if (function instanceof OroFunction) {
+        stats.call((OroFunction)function);
+        return function.call(this, arguments);
+      }
+      if (function instanceof OroClass) {
+        stats.call((OroClass)function);
+        return function.call(this, arguments);
+      }
+      return callBuiltin(function, arguments, expr.paren.line);
+    }
+
+    // Built-ins are counted, get their own profiler frame and report slow calls to JFR.
+    // Oro functions push their profiler frames in OroFunction.call.
+    private Object callBuiltin(OroCallable builtin, List<Object> arguments, int line) {
+      String name = builtinNames.get(builtin);
+      if (name == null) name = builtin.toString();
+      stats.call(name);
+
+      if (!builtin.acceptsViews()) {
+        for (int i = 0; i < arguments.size(); i++) {
+          if (StringView.isView(arguments.get(i))) arguments.set(i, arguments.get(i).toString());
+        }
+      }
+
+      BuiltinCallEvent event = new BuiltinCallEvent();
+      event.begin();
+      if (stack != null) stack.push(name, line);
+      try {
+        return builtin.call(this, arguments);
+      } finally {
+        if (stack != null) stack.pop();
+        event.end();
+        if (event.shouldCommit()) {
+          event.builtin = name;
+          event.line = line;
+          event.commit();
+        }
+      }
     }
 
     @Override
@@ -986,6 +1205,9 @@ class Interpreter implements Expr.Visitor<Object>,
       if (object instanceof OroInstance) {
         return ((OroInstance) object).get(expr.name);
       }
+      if (object instanceof OroStream) {
+        return ((OroStream) object).method(expr.name);
+      }
   
       throw new RuntimeError(expr.name,
           "Only instances have properties.");
@@ -1000,11 +1222,43 @@ class Interpreter implements Expr.Visitor<Object>,
         return new OroArray(values);
     }
 
+    @Override
+    public Object visitMapLiteralExpr(Expr.MapLiteral expr) {
+        OroMap map = new OroMap(expr.keys.size());
+        for (int i = 0; i < expr.keys.size(); i++) {
+            Object key = evaluate(expr.keys.get(i));
+            Object value = evaluate(expr.values.get(i));
+            try {
+                map.put(key, value);
+            } catch (RuntimeError error) {
+                throw new RuntimeError(expr.brace, error.getMessage());
+            }
+        }
+        return map;
+    }
+
     @Override
     public Object visitIndexExpr(Expr.Index expr) {
         Object array = evaluate(expr.array);
+        if (expr.colon != null) return slice(expr, array);
         Object index = evaluate(expr.index);
 
+        if (array instanceof OroConcurrentCounter) {
+            return ((OroConcurrentCounter) array).get(AggregateFunctions.key(index, "[]"));
+        }
+        if (array instanceof OroConcurrentMap) {
+            return ((OroConcurrentMap) array).get(AggregateFunctions.key(index, "[]"));
+        }
+        if (array instanceof OroMap) {
+            return ((OroMap) array).get(OroMap.key(index));
+        }
+        if (array instanceof LineTable) {
+            if (!(index instanceof Double)) {
+                throw new RuntimeError("Line index must be a number.");
+            }
+            return ((LineTable) array).get((int) ((double) index));
+        }
+
         if (array instanceof Map) {
         // Safe suppress since the only way array isinstance of map is if parsed as a Json (String, Object)by JSONParser
         @SuppressWarnings("unchecked")
@@ -1026,12 +1280,63 @@ class Interpreter implements Expr.Visitor<Object>,
         return ((OroArray) array).get((int) ((double) index));
     }
 
+    // a[i:j] on arrays and strings, as a view that shares their storage. Bounds work as
+    // in Python: a missing bound is the start or the end, a negative one counts from
+    // the end, and both are clamped to the length.
+    private Object slice(Expr.Index expr, Object target) {
+        int length;
+        if (target instanceof OroArray) {
+            length = ((OroArray) target).size();
+        } else if (target instanceof LineTable) {
+            length = ((LineTable) target).size();
+        } else if (isText(target)) {
+            length = ((CharSequence) target).length();
+        } else {
+            throw new RuntimeError(expr.colon, "Can only slice arrays, strings and line tables.");
+        }
+        int from = sliceBound(expr.colon, expr.index, 0, length);
+        int to = Math.max(from, sliceBound(expr.colon, expr.end, length, length));
+
+        if (target instanceof OroArray) return ((OroArray) target).slice(from, to);
+        if (target instanceof LineTable) return ((LineTable) target).slice(from, to);
+        return StringView.slice((CharSequence) target, from, to);
+    }
+
+    private int sliceBound(Token colon, Expr bound, int missing, int length) {
+        if (bound == null) return missing;
+        Object value = evaluate(bound);
+        if (!(value instanceof Number)) {
+            throw new RuntimeError(colon, "Slice bounds must be numbers.");
+        }
+        int index = ((Number) value).intValue();
+        if (index < 0) index += length;
+        return Math.max(0, Math.min(index, length));
+    }
+
   @Override
   public Object visitIndexAssignExpr(Expr.IndexAssign expr) {
       Object array = evaluate(expr.array);
       Object index = evaluate(expr.index);
       Object value = evaluate(expr.value);
 
+      if (array instanceof OroConcurrentCounter) {
+        ((OroConcurrentCounter) array).set(AggregateFunctions.key(index, "[]"),
+            AggregateFunctions.wholeNumber(value, "[]"));
+        return value;
+      }
+      if (array instanceof OroConcurrentMap) {
+        ((OroConcurrentMap) array).put(AggregateFunctions.key(index, "[]"), value);
+        return value;
+      }
+      if (array instanceof OroMap) {
+        Object key = OroMap.normalize(index);
+        if (key == null) {
+          throw new RuntimeError(expr.equals, "Map keys must be strings, numbers or booleans.");
+        }
+        ((OroMap) array).put(key, value);
+        return value;
+      }
+
       if (array instanceof Map) {
         // Safe suppress since the only way array isinstance of map is if parsed as a Json (String, Object)by JSONParser
         @SuppressWarnings("unchecked")
@@ -1051,14 +1356,13 @@ class Interpreter implements Expr.Visitor<Object>,
       }
 
       OroArray oroarray = (OroArray) array;
-      List<Object> arrayList = oroarray.getArray();
       int idx = ((Double) index).intValue();
 
-      if (idx < 0 || idx >= arrayList.size()) {
+      if (idx < 0 || idx >= oroarray.size()) {
           throw new RuntimeError(expr.equals, "Index out of bounds.");
       }
 
-      arrayList.set(idx, value);
+      oroarray.set(idx, value);
       return value;
   }
 
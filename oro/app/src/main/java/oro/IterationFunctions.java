@@ -0,0 +1,142 @@
+package oro;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// The iteration protocol behind for-in loops and streams, and the built-ins that make
+// line sources and streams.
+//
+// iterator(value) is the one place that knows what can be looped over: arrays (by
+// element), maps (by key, in insertion order), sets, strings and string slices (by
+// character), and any native Iterable such as the line sources from lines(s) and
+// readLines(path). Elements are pulled one at a time, so nothing is materialized.
+//   for line in readLines("notes.txt") { if (regex_match("MRN.*", line)) print line; }
+public class IterationFunctions {
+    // One-character strings for ASCII, so looping over a string allocates nothing
+    private static final String[] ASCII = new String[128];
+
+    static {
+        for (char c = 0; c < ASCII.length; c++) ASCII[c] = String.valueOf(c);
+    }
+
+    public static void registerAll(Environment globals) {
+        // stream(x): a lazy pipeline over anything for-in accepts; see OroStream
+        globals.define("stream", new OroCallable() {
+            @Override
+            public boolean acceptsViews() { return true; }
+
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (!isIterable(args.get(0))) {
+                    throw new RuntimeError("stream: argument must be an array, map, set, string, lines or stream.");
+                }
+                return new OroStream(args.get(0), interpreter);
+            }
+
+            @Override
+            public String toString() { return "<native fun stream>"; }
+        });
+
+        // lines(s): the lines of a string, as slices of it
+        globals.define("lines", new OroCallable() {
+            @Override
+            public boolean acceptsViews() { return true; }
+
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (!StringView.isText(args.get(0))) {
+                    throw new RuntimeError("lines: argument must be a string.");
+                }
+                return LineSource.of((CharSequence) args.get(0));
+            }
+
+            @Override
+            public String toString() { return "<native fun lines>"; }
+        });
+
+        // readLines(path): the lines of a UTF-8 file, read as the loop goes
+        globals.define("readLines", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (!(args.get(0) instanceof String)) {
+                    throw new RuntimeError("readLines: argument must be a file path.");
+                }
+                try {
+                    return LineSource.ofFile(Path.of((String) args.get(0)));
+                } catch (InvalidPathException e) {
+                    throw new RuntimeError("readLines: invalid path " + args.get(0) + ".");
+                }
+            }
+
+            @Override
+            public String toString() { return "<native fun readLines>"; }
+        });
+    }
+
+    static boolean isIterable(Object value) {
+        return value instanceof OroArray || value instanceof OroMap || value instanceof Iterable
+                || StringView.isText(value);
+    }
+
+    // An iterator over the value's elements, or null if it can't be looped over. The
+    // caller closes it if it is AutoCloseable. A stream runs its stages on interpreter,
+    // the one doing the looping.
+    @SuppressWarnings("unchecked")
+    static Iterator<Object> iterator(Object value, Interpreter interpreter) {
+        if (value instanceof OroArray) return elements((OroArray) value);
+        if (value instanceof OroStream) return ((OroStream) value).iterator(interpreter);
+        if (value instanceof OroMap) return ((OroMap) value).keyIterator();
+        if (value instanceof Iterable) return ((Iterable<Object>) value).iterator();
+        if (StringView.isText(value)) return characters((CharSequence) value);
+        return null;
+    }
+
+    // By index, re-reading the size each step, so elements appended by the loop body
+    // are visited and removals never read past the end
+    private static Iterator<Object> elements(OroArray array) {
+        return new Iterator<Object>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < array.size();
+            }
+
+            @Override
+            public Object next() {
+                if (index >= array.size()) throw new NoSuchElementException();
+                return array.element(index++);
+            }
+        };
+    }
+
+    private static Iterator<Object> characters(CharSequence text) {
+        return new Iterator<Object>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < text.length();
+            }
+
+            @Override
+            public Object next() {
+                if (index >= text.length()) throw new NoSuchElementException();
+                char c = text.charAt(index++);
+                return c < ASCII.length ? ASCII[c] : String.valueOf(c);
+            }
+        };
+    }
+}
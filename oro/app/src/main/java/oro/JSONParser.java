@@ -1,6 +1,5 @@
 package oro;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -35,8 +34,8 @@ public class JSONParser {
         }
     }
 
-    private Map<String, Object> parseObject() {
-        Map<String, Object> object = new LinkedHashMap<>();
+    private OroMap parseObject() {
+        OroMap object = new OroMap();
         consume('{');
         skipWhitespace();
 
@@ -247,13 +246,20 @@ public class JSONParser {
     }
 
     public static String toJson(Object obj) {
-        if (obj instanceof Map) {
+        if (obj instanceof OroConcurrentCounter) {
+            return toJson(((OroConcurrentCounter) obj).snapshot());
+        } else if (obj instanceof OroConcurrentMap) {
+            return toJson(((OroConcurrentMap) obj).snapshot());
+        } else if (obj instanceof OroSet) {
+            return toJson(new ArrayList<>((OroSet) obj));
+        } else if (obj instanceof Map) {
             StringBuilder sb = new StringBuilder();
             sb.append("{");
             boolean first = true;
             for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
                 if (!first) sb.append(", ");
-                sb.append("\"").append(entry.getKey()).append("\": ").append(toJson(entry.getValue()));
+                // Keys read the way print shows them: 2, not 2.0
+                sb.append("\"").append(Interpreter.stringify(entry.getKey())).append("\": ").append(toJson(entry.getValue()));
                 first = false;
             }
             sb.append("}");
@@ -269,7 +275,7 @@ public class JSONParser {
             }
             sb.append("]");
             return sb.toString();
-        } else if (obj instanceof String) {
+        } else if (StringView.isText(obj)) {
             return "\"" + obj + "\"";  // Properly quote strings
         } else if (obj == null) {
             return "null";
@@ -0,0 +1,121 @@
+package oro;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// The lines of a string, lines(s), or of a file, readLines(path), produced one at a time
+// as a loop asks for them. Line breaks are \n or \r\n and are not part of the line; a
+// final line break does not start an empty line.
+//
+// Lines of a string are StringViews over it (ByteStrings over a byte string), so nothing
+// is copied. A file is read through a buffered reader only while a loop is pulling from
+// it and is closed when the loop ends, early or not, so files far larger than the heap
+// can be scanned. Each loop over a source starts from the first line again.
+final class LineSource implements Iterable<Object> {
+    private final CharSequence text;
+    private final Path path;
+
+    private LineSource(CharSequence text, Path path) {
+        this.text = text;
+        this.path = path;
+    }
+
+    static LineSource of(CharSequence text) {
+        return new LineSource(text, null);
+    }
+
+    static LineSource ofFile(Path path) {
+        return new LineSource(null, path);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return text != null ? new TextLines(text) : new FileLines(path);
+    }
+
+    @Override
+    public String toString() {
+        return path != null ? "<lines of " + path + ">" : "<lines>";
+    }
+
+    private static final class TextLines implements Iterator<Object> {
+        private final CharSequence text;
+        private int start;
+
+        TextLines(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return start < text.length();
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int length = text.length();
+            int end = start;
+            while (end < length && text.charAt(end) != '\n') end++;
+            int lineEnd = end > start && text.charAt(end - 1) == '\r' ? end - 1 : end;
+            CharSequence line = StringView.slice(text, start, lineEnd);
+            start = end + 1;
+            return line;
+        }
+    }
+
+    // Closed by the loop that drives it, or as soon as the last line has been read
+    static final class FileLines implements Iterator<Object>, AutoCloseable {
+        private final Path path;
+        private BufferedReader reader;
+        private String next;
+
+        FileLines(Path path) {
+            this.path = path;
+            try {
+                reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeError("readLines: cannot open " + path + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (reader == null) return false;
+            try {
+                next = reader.readLine();
+            } catch (IOException e) {
+                close();
+                throw new RuntimeError("readLines: error reading " + path + ": " + e.getMessage());
+            }
+            if (next == null) close();
+            return next != null;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String line = next;
+            next = null;
+            return line;
+        }
+
+        @Override
+        public void close() {
+            if (reader == null) return;
+            try {
+                reader.close();
+            } catch (IOException e) {
+                // Nothing is lost; every line read has been handed out
+            } finally {
+                reader = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package oro;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+
+// A large, read-only collection of lines kept off the Java heap, made by lineTable(x)
+// and readLineTable(path). The text is UTF-8 bytes in direct buffers, or in the file's
+// own memory-mapped pages; an index of one packed long per line, itself in a direct
+// buffer, says where each line's bytes are. A line costs its bytes plus 8 bytes, none
+// of it visible to the garbage collector, where an array of Strings costs an object
+// header, an array header and padding per line.
+//
+// size, slicing t[i:j], sort and regex_filter work on the bytes and the index and
+// share the text with the table they came from. A String is made only when a line
+// escapes into ordinary Oro code: t[i] and for-in. sort orders lines by their UTF-8
+// bytes, which is code point order; it differs from sort on an array of strings only
+// for characters outside the Basic Multilingual Plane.
+//
+// Reads use absolute positions only, so one table can be shared by concurrent tasks.
+final class LineTable implements Iterable<Object> {
+    // Index entry: all-ASCII flag (sign bit) | chunk | position in chunk | length
+    private static final int LENGTH_BITS = 24;
+    private static final int POSITION_BITS = 30;
+    private static final int CHUNK_BITS = 9;
+    static final int MAX_LINE = (1 << LENGTH_BITS) - 1;
+    static final int MAX_CHUNK = 1 << POSITION_BITS;
+    static final int MAX_CHUNKS = 1 << CHUNK_BITS;
+    // Index entries that fit one direct buffer
+    static final int MAX_LINES = Integer.MAX_VALUE / Long.BYTES;
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+
+    private final ByteBuffer[] chunks;
+    private final LongBuffer index;
+    private final int first;
+    private final int size;
+
+    private LineTable(ByteBuffer[] chunks, LongBuffer index, int first, int size) {
+        this.chunks = chunks;
+        this.index = index;
+        this.first = first;
+        this.size = size;
+    }
+
+    // The lines of a string, split the way lines(s) splits them
+    static LineTable ofText(CharSequence text) {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        Builder builder = new Builder();
+        int start = 0;
+        while (start < bytes.length) {
+            int limit = (int) Math.min(bytes.length, (long) start + MAX_CHUNK);
+            int end = cut(ByteBuffer.wrap(bytes), start, limit, limit == bytes.length);
+            ByteBuffer chunk = ByteBuffer.allocateDirect(end - start);
+            chunk.put(0, bytes, start, end - start);
+            builder.addChunk(chunk);
+            start = end;
+        }
+        return builder.build();
+    }
+
+    // One line per string, even a string that contains line breaks
+    static LineTable ofStrings(List<?> strings) {
+        Builder builder = new Builder();
+        for (Object string : strings) {
+            String line = StringView.string(string);
+            if (line == null) throw new RuntimeError("lineTable: array elements must be strings.");
+            builder.addLine(line.getBytes(StandardCharsets.UTF_8));
+        }
+        return builder.build();
+    }
+
+    // The lines of a UTF-8 file, mapped into memory a chunk of at most 1 GB at a time
+    static LineTable ofFile(Path path) throws IOException {
+        return ofFile(path, MAX_CHUNK);
+    }
+
+    // Chunks of at most chunkSize bytes, each ending at a line break; tests use small ones
+    static LineTable ofFile(Path path, int chunkSize) throws IOException {
+        Builder builder = new Builder();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                int length = (int) Math.min(chunkSize, size - start);
+                ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                int end = cut(region, 0, length, start + length == size);
+                builder.addChunk(region.slice(0, end));
+                start += end;
+            }
+        }
+        return builder.build();
+    }
+
+    // End of the chunk from start to limit: limit if the text ends there, otherwise just
+    // past the last line break before limit, so no line (or UTF-8 character) is split
+    private static int cut(ByteBuffer bytes, int start, int limit, boolean textEnds) {
+        if (textEnds) return limit;
+        for (int i = limit - 1; i >= start; i--) {
+            if (bytes.get(i) == '\n') return i + 1;
+        }
+        throw new RuntimeError("Line table: a line is longer than " + (limit - start) + " bytes.");
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Line i as a String; this is where a line leaves the table
+    String get(int i) {
+        if (i < 0 || i >= size) throw new RuntimeError("Line index out of bounds: " + i);
+        return line(index.get(first + i));
+    }
+
+    // Lines from..to, sharing this table's text and index
+    LineTable slice(int from, int to) {
+        return new LineTable(chunks, index, first + from, to - from);
+    }
+
+    // Stable sort by UTF-8 bytes. The entries are sorted in a long[] on the heap (8
+    // bytes a line, freed on return); no line is decoded.
+    LineTable sorted() {
+        long[] entries = new long[size];
+        index.get(first, entries);
+        long[] scratch = entries.clone();
+        mergeSort(scratch, entries, 0, size);
+        LongBuffer sorted = newIndex(size);
+        sorted.put(0, entries);
+        return new LineTable(chunks, sorted, 0, size);
+    }
+
+    // Lines in which the pattern is found, sharing this table's text. ASCII lines are
+    // searched in place through one reused view of their bytes; others are decoded
+    // for the search and dropped.
+    LineTable filter(Regex regex) {
+        Matcher matcher = regex.matcher("");
+        AsciiLine ascii = new AsciiLine();
+        LongBuffer kept = newIndex(Math.max(1, size / 8));
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            long entry = index.get(first + i);
+            CharSequence text = isAscii(entry)
+                    ? ascii.over(chunks[chunk(entry)], position(entry), length(entry))
+                    : line(entry);
+            if (matcher.reset(text).find()) {
+                if (count == kept.capacity()) kept = grow(kept, count);
+                kept.put(count++, entry);
+            }
+        }
+        return new LineTable(chunks, kept, 0, count);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Object next() {
+                if (next >= size) throw new NoSuchElementException();
+                return line(index.get(first + next++));
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "<line table " + size + " lines>";
+    }
+
+    private String line(long entry) {
+        byte[] bytes = new byte[length(entry)];
+        chunks[chunk(entry)].get(position(entry), bytes);
+        return new String(bytes, isAscii(entry) ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    // Unsigned byte order, eight bytes at a time while both lines have them
+    private int compare(long a, long b) {
+        ByteBuffer left = chunks[chunk(a)];
+        ByteBuffer right = chunks[chunk(b)];
+        int leftStart = position(a);
+        int rightStart = position(b);
+        int leftLength = length(a);
+        int rightLength = length(b);
+        int common = Math.min(leftLength, rightLength);
+        int i = 0;
+        for (; i + Long.BYTES <= common; i += Long.BYTES) {
+            long x = left.getLong(leftStart + i);
+            long y = right.getLong(rightStart + i);
+            if (x != y) return Long.compareUnsigned(x, y);
+        }
+        for (; i < common; i++) {
+            int difference = (left.get(leftStart + i) & 0xFF) - (right.get(rightStart + i) & 0xFF);
+            if (difference != 0) return difference;
+        }
+        return Integer.compare(leftLength, rightLength);
+    }
+
+    // Merge sort from src into dest, which start out holding the same entries
+    private void mergeSort(long[] src, long[] dest, int low, int high) {
+        if (high - low < 8) {
+            for (int i = low + 1; i < high; i++) {
+                long entry = dest[i];
+                int j = i - 1;
+                while (j >= low && compare(dest[j], entry) > 0) {
+                    dest[j + 1] = dest[j];
+                    j--;
+                }
+                dest[j + 1] = entry;
+            }
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        mergeSort(dest, src, low, mid);
+        mergeSort(dest, src, mid, high);
+        if (compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, low, dest, low, high - low);
+            return;
+        }
+        for (int i = low, p = low, q = mid; i < high; i++) {
+            if (q >= high || (p < mid && compare(src[p], src[q]) <= 0)) {
+                dest[i] = src[p++];
+            } else {
+                dest[i] = src[q++];
+            }
+        }
+    }
+
+    private static long entry(int chunk, int position, int length, boolean ascii) {
+        long entry = ((long) chunk << (POSITION_BITS + LENGTH_BITS))
+                | ((long) position << LENGTH_BITS) | length;
+        return ascii ? entry | Long.MIN_VALUE : entry;
+    }
+
+    private static boolean isAscii(long entry) {
+        return entry < 0;
+    }
+
+    private static int chunk(long entry) {
+        return (int) (entry >>> (POSITION_BITS + LENGTH_BITS)) & (MAX_CHUNKS - 1);
+    }
+
+    private static int position(long entry) {
+        return (int) (entry >>> LENGTH_BITS) & (MAX_CHUNK - 1);
+    }
+
+    private static int length(long entry) {
+        return (int) entry & MAX_LINE;
+    }
+
+    private static LongBuffer newIndex(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    private static LongBuffer grow(LongBuffer index, int count) {
+        if (count == MAX_LINES) throw new RuntimeError("Line table: more than " + MAX_LINES + " lines.");
+        LongBuffer grown = newIndex((int) Math.min(MAX_LINES, count * 2L));
+        grown.put(0, index, 0, count);
+        return grown;
+    }
+
+    // Collects chunks of text and their index entries
+    private static final class Builder {
+        private static final int MIN_CHUNK = 1 << 16;
+
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        // Chunk addLine writes into, the last of chunks; null after addChunk
+        private ByteBuffer current;
+        private LongBuffer index = newIndex(1 << 12);
+        private int count;
+
+        // Indexes every line of a chunk that ends at a line break or at the end of the text.
+        // Words of eight bytes with no line break in them are checked for non-ASCII bytes
+        // in one step; the bytes around a line break are looked at one at a time.
+        void addChunk(ByteBuffer chunk) {
+            int number = register(chunk);
+            current = null;
+            int limit = chunk.limit();
+            int start = 0;
+            boolean ascii = true;
+            int i = 0;
+            while (i < limit) {
+                if (i + Long.BYTES <= limit) {
+                    long word = chunk.getLong(i);
+                    long x = word ^ NEWLINES;
+                    if (((x - ONES) & ~x & HIGH_BITS) == 0) {
+                        if ((word & HIGH_BITS) != 0) ascii = false;
+                        i += Long.BYTES;
+                        continue;
+                    }
+                }
+                byte b = chunk.get(i);
+                if (b == '\n') {
+                    int end = i > start && chunk.get(i - 1) == '\r' ? i - 1 : i;
+                    add(number, start, end - start, ascii);
+                    start = i + 1;
+                    ascii = true;
+                } else if (b < 0) {
+                    ascii = false;
+                }
+                i++;
+            }
+            if (start < limit) add(number, start, limit - start, ascii);
+        }
+
+        void addLine(byte[] bytes) {
+            if (bytes.length > MAX_LINE) {
+                throw new RuntimeError("Line table: line " + (count + 1) + " is longer than " + MAX_LINE + " bytes.");
+            }
+            int needed = (current == null ? 0 : current.position()) + bytes.length;
+            if (current == null || needed > MAX_CHUNK) {
+                current = ByteBuffer.allocateDirect(Math.max(MIN_CHUNK, bytes.length));
+                register(current);
+            } else if (needed > current.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(MAX_CHUNK, Math.max(needed, current.capacity() * 2L)));
+                grown.put(current.flip());
+                chunks.set(chunks.size() - 1, grown);
+                current = grown;
+            }
+            int position = current.position();
+            current.put(bytes);
+            boolean ascii = true;
+            for (byte b : bytes) {
+                if (b < 0) {
+                    ascii = false;
+                    break;
+                }
+            }
+            add(chunks.size() - 1, position, bytes.length, ascii);
+        }
+
+        LineTable build() {
+            return new LineTable(chunks.toArray(new ByteBuffer[0]), index, 0, count);
+        }
+
+        private int register(ByteBuffer chunk) {
+            if (chunks.size() == MAX_CHUNKS) {
+                throw new RuntimeError("Line table: text is larger than " + MAX_CHUNKS + " chunks of " + MAX_CHUNK + " bytes.");
+            }
+            chunks.add(chunk);
+            return chunks.size() - 1;
+        }
+
+        private void add(int chunk, int position, int length, boolean ascii) {
+            if (length > MAX_LINE) {
+                throw new RuntimeError("Line table: line " + (count + 1) + " is longer than " + MAX_LINE + " bytes.");
+            }
+            if (count == index.capacity()) index = grow(index, count);
+            index.put(count++, entry(chunk, position, length, ascii));
+        }
+    }
+
+    // An ASCII line's bytes read as chars in place, repointed for each line
+    private static final class AsciiLine implements CharSequence {
+        private ByteBuffer chunk;
+        private int start;
+        private int length;
+
+        AsciiLine over(ByteBuffer chunk, int start, int length) {
+            this.chunk = chunk;
+            this.start = start;
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int i) {
+            if (i < 0 || i >= length) throw new IndexOutOfBoundsException(i);
+            return (char) chunk.get(start + i);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            chunk.get(start, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
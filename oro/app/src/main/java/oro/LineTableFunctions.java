@@ -0,0 +1,63 @@
+package oro;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.List;
+
+// lineTable(x) and readLineTable(path), which make the off-heap line tables described in
+// LineTable. Indexing, slicing, size, sort, regex_filter and for-in accept them.
+//   def notes = sort(readLineTable("notes.txt"));
+//   for line in regex_filter("MRN: [0-9]+", notes) print line;
+public class LineTableFunctions {
+
+    public static void registerAll(Environment globals) {
+        // lineTable(s) holds the lines of a string; lineTable(array) one line per element
+        globals.define("lineTable", new OroCallable() {
+            @Override
+            public boolean acceptsViews() { return true; }
+
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                Object source = args.get(0);
+                if (StringView.isText(source)) {
+                    return LineTable.ofText((CharSequence) source);
+                }
+                if (source instanceof OroArray) {
+                    return LineTable.ofStrings(((OroArray) source).getArray());
+                }
+                throw new RuntimeError("lineTable: argument must be a string or an array of strings.");
+            }
+
+            @Override
+            public String toString() { return "<native fun lineTable>"; }
+        });
+
+        // readLineTable(path): the lines of a UTF-8 file, mapped rather than read
+        globals.define("readLineTable", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (!(args.get(0) instanceof String)) {
+                    throw new RuntimeError("readLineTable: argument must be a file path.");
+                }
+                String path = (String) args.get(0);
+                try {
+                    return LineTable.ofFile(Path.of(path));
+                } catch (InvalidPathException e) {
+                    throw new RuntimeError("readLineTable: invalid path " + path + ".");
+                } catch (IOException e) {
+                    throw new RuntimeError("readLineTable: cannot read " + path + ": " + e.getMessage());
+                }
+            }
+
+            @Override
+            public String toString() { return "<native fun readLineTable>"; }
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Built-ins for maps, whether written as {key: value} literals or parsed from JSON.
+// keys, values and entries return arrays in insertion order, so
+//   def e = entries(m); def i = 0; while (i < size(e)) { ... e[i][0] ... e[i][1] ... }
+// walks a map the way it was built.
+public class MapFunctions {
+
+    public static void registerAll(Environment globals) {
+        globals.define("keys", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return new OroArray(new ArrayList<>(map(args.get(0), "keys: first argument must be a map.").keySet()));
+            }
+
+            @Override
+            public String toString() { return "<native fun keys>"; }
+        });
+
+        globals.define("values", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return new OroArray(new ArrayList<>(map(args.get(0), "values: first argument must be a map.").values()));
+            }
+
+            @Override
+            public String toString() { return "<native fun values>"; }
+        });
+
+        // entries(m): an array of [key, value] pairs
+        globals.define("entries", new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                Map<Object, Object> map = map(args.get(0), "entries: first argument must be a map.");
+                List<Object> pairs = new ArrayList<>(map.size());
+                for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                    pairs.add(new OroArray(Arrays.asList(entry.getKey(), entry.getValue())));
+                }
+                return new OroArray(pairs);
+            }
+
+            @Override
+            public String toString() { return "<native fun entries>"; }
+        });
+
+        // has(m, key), or has(s, x) on a set
+        globals.define("has", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (args.get(0) instanceof OroSet) return ((OroSet) args.get(0)).contains(args.get(1));
+                return map(args.get(0), "has: first argument must be a map or set.").containsKey(OroMap.key(args.get(1)));
+            }
+
+            @Override
+            public String toString() { return "<native fun has>"; }
+        });
+
+        // remove(m, key): deletes the entry and returns its value, or null if there was none.
+        // On a set, remove(s, x) returns whether x was there.
+        globals.define("remove", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (args.get(0) instanceof OroSet) return ((OroSet) args.get(0)).remove(args.get(1));
+                return map(args.get(0), "remove: first argument must be a map or set.").remove(OroMap.key(args.get(1)));
+            }
+
+            @Override
+            public String toString() { return "<native fun remove>"; }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> map(Object value, String error) {
+        if (!(value instanceof OroMap)) {
+            throw new RuntimeError(error);
+        }
+        return (Map<Object, Object>) value;
+    }
+}
@@ -3,111 +3,180 @@ package oro;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintWriter;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+// Command line front end. Each script run gets its own Interpreter and Diagnostics, so
+// nothing here is shared between runs.
 public class Oro {
-  private static final Interpreter interpreter = new Interpreter();
-  private static String gSource;
-  static boolean hadError = false;
-  static boolean hadRuntimeError = false;
+  private static final String USAGE = "Usage: oro [--profile[=interval ms]] [--stats] [script]\n"
+      + "       oro bench <script>";
+
   public static void main(String[] args) throws IOException {
-    RegexFunctions.registerAll(interpreter);
-    if (args.length > 1) {
-      System.out.println("Usage: oro [script]");
-      System.exit(64); 
-    } else if (args.length == 1) {
-      runFile(args[0]);
+    if (args.length > 0 && args[0].equals("bench")) {
+      if (args.length != 2) usage();
+      benchFile(args[1]);
+      return;
+    }
+
+    String script = null;
+    Profiler profiler = null;
+    boolean stats = false;
+
+    for (String arg : args) {
+      if (arg.equals("--stats")) {
+        stats = true;
+      } else if (arg.equals("--profile")) {
+        profiler = new Profiler(1.0);
+      } else if (arg.startsWith("--profile=")) {
+        profiler = new Profiler(parseInterval(arg.substring("--profile=".length())));
+      } else if (arg.startsWith("--") || script != null) {
+        usage();
+      } else {
+        script = arg;
+      }
+    }
+
+    // The script, or the whole REPL session, runs on this one interpreter, so its
+    // counters are the process's
+    Interpreter interpreter = new Interpreter();
+    if (stats) {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(interpreter.stats().format())));
+    }
+
+    if (script != null) {
+      runFile(script, interpreter, profiler);
+    } else if (profiler == null) {
+      runPrompt(interpreter);
     } else {
-      runPrompt();
+      usage();
+    }
+  }
+
+  private static void usage() {
+    System.out.println(USAGE);
+    System.exit(64);
+  }
+
+  private static double parseInterval(String millis) {
+    try {
+      double interval = Double.parseDouble(millis);
+      if (interval > 0) return interval;
+    } catch (NumberFormatException e) {
+      // Fall through to usage
     }
+    usage();
+    return 0;
   }
 
-  private static void runFile(String path) throws IOException {
+  private static void runFile(String path, Interpreter interpreter, Profiler profiler) throws IOException {
     byte[] bytes = Files.readAllBytes(Paths.get(path));
-    run(new String(bytes, Charset.defaultCharset()));
+    if (profiler != null) {
+      interpreter.setProfiler(profiler);
+      profiler.start();
+    }
+
+    Diagnostics diagnostics = run(new String(bytes, Charset.defaultCharset()), interpreter);
+
+    if (profiler != null) {
+      profiler.stop();
+      profiler.write(Paths.get(path));
+    }
 
     // Indicate an error in the exit code.
-    if (hadError) System.exit(65);
-    if (hadRuntimeError) System.exit(70);
+    if (diagnostics.hadError()) System.exit(65);
+    if (diagnostics.hadRuntimeError()) System.exit(70);
+  }
+
+  // Runs the script, then every zero-argument bench_* function it defines, in name
+  // order. The JSON report goes to stdout; script output and progress go to stderr.
+  private static void benchFile(String path) throws IOException {
+    byte[] bytes = Files.readAllBytes(Paths.get(path));
+    Interpreter interpreter = new Interpreter();
+    interpreter.setOutput(new PrintWriter(System.err, true));
+
+    Diagnostics diagnostics = run(new String(bytes, Charset.defaultCharset()), interpreter);
+    if (diagnostics.hadError()) System.exit(65);
+    if (diagnostics.hadRuntimeError()) System.exit(70);
+
+    Map<String, OroCallable> benches = new TreeMap<>();
+    interpreter.definedGlobals().forEach((name, value) -> {
+      if (name.startsWith("bench_") && value instanceof OroFunction && ((OroFunction)value).arity() == 0) {
+        benches.put(name, (OroFunction)value);
+      }
+    });
+
+    List<Object> results = new ArrayList<>();
+    try {
+      for (Map.Entry<String, OroCallable> bench : benches.entrySet()) {
+        int iterations = BenchFunctions.calibrate(interpreter, bench.getValue());
+        results.add(BenchFunctions.measure(interpreter, bench.getKey(), bench.getValue(), iterations));
+      }
+    } catch (RuntimeError error) {
+      diagnostics.runtimeError(error);
+      diagnostics.list().forEach(System.err::println);
+      System.exit(70);
+    }
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("script", path);
+    report.put("java", System.getProperty("java.version"));
+    report.put("benchmarks", results);
+    System.out.println(JSONParser.toJson(report));
   }
 
-  private static void runPrompt() throws IOException {
+  private static void runPrompt(Interpreter interpreter) throws IOException {
     InputStreamReader input = new InputStreamReader(System.in);
     BufferedReader reader = new BufferedReader(input);
 
+    // One interpreter for the whole session so definitions carry over between lines
     System.out.println("REPL Started \n");
     for (;;) { 
       System.out.print("> ");
       String line = reader.readLine();
       if (line == null) break;
-      run(line);
-      hadError = false;
+      run(line, interpreter);
     }
   }
 
-  private static void run(String source) {
-    gSource = source;
-    Scanner scanner = new Scanner(source);
+  private static Diagnostics run(String source, Interpreter interpreter) {
+    Diagnostics diagnostics = new Diagnostics();
+    Scanner scanner = new Scanner(source, diagnostics);
     List<Token> tokens = scanner.scanTokens();
-    Parser parser = new Parser(tokens);
+    Parser parser = new Parser(tokens, diagnostics);
     List<Stmt> statements = parser.parse();
 
-
     // Stop if there was a syntax error
-    if (hadError) return;
-
-    Resolver resolver = new Resolver(interpreter);
-    resolver.resolve(statements);
+    if (!diagnostics.hadError()) {
+      Resolver resolver = new Resolver(diagnostics);
+      resolver.resolve(statements);
+    }
 
     // Stop if there was a resolution error.
-    if (hadError) return;
-    
-    interpreter.interpret(statements);
-  }
-
-  static void error(int line, int column, String message) {
-    report(line, column, "", message);
-  }
-
-  static void error(int line, String message) {
-    report(line, "", message);
-  }
-
-  static void runtimeError(RuntimeError error) {
-    if (error.token != null){
-      System.err.println(error.getMessage() + "\n[line " + error.token.line + "]");
+    if (!diagnostics.hadError()) {
+      interpreter.interpret(statements, diagnostics);
     }
-    else{
-      System.err.println(error.getMessage());
-    }
-    
-    hadRuntimeError = true;
-  }
 
-  private static void report(int line, int column, String where, String message) {
-    String lineContent;
-    String[] lines = gSource.split("\n");
-    if (line - 1 >= lines.length){
-      lineContent = lines[lines.length - 1];
-      line = lines.length;
-    }
-    else{
-      lineContent = lines[line - 1];
+    for (Diagnostic diagnostic : diagnostics.list()) {
+      report(source, diagnostic);
     }
-
-    System.err.println("[line " + line + ", column " + column + "] Error" + where + ": " + message);
-    System.err.println(line + " | " + lineContent);
-    System.err.print(" ".repeat(column + (Integer.toString(line).length() + 3)));  // Position under the error
-    System.err.println("^--");
-    hadError = true;
+    return diagnostics;
   }
 
-  private static void report(int line, String where, String message) {
+  static void report(String source, Diagnostic diagnostic) {
+    System.err.println(diagnostic);
+    if (diagnostic.kind() == Diagnostic.Kind.RUNTIME) return;
+
+    int line = diagnostic.line();
     String lineContent;
-    String[] lines = gSource.split("\n");
+    String[] lines = source.split("\n");
     if (line - 1 >= lines.length){
       lineContent = lines[lines.length - 1];
       line = lines.length;
@@ -116,17 +185,10 @@ public class Oro {
       lineContent = lines[line - 1];
     }
 
-    System.err.println("[line " + line + "] Error" + where + ": " + message);
     System.err.println(line + " | " + lineContent);
-    hadError = true;
-  }
-
-
-  static void error(Token token, String message) {
-    if (token.type == TokenType.EOF) {
-      report(token.line, token.column, " at end", message);
-    } else {
-      report(token.line, token.column, " at '" + token.lexeme + "'", message);
+    if (diagnostic.column() >= 0) {
+      System.err.print(" ".repeat(diagnostic.column() + (Integer.toString(line).length() + 3)));  // Position under the error
+      System.err.println("^--");
     }
   }
-}
\ No newline at end of file
+}
@@ -1,56 +1,317 @@
 package oro;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
+// Oro array. The backing store follows the contents: a double[] while every element is
+// a number, a String[] while every element is a string, and an Object[] for anything
+// else. A million numbers take 8 MB instead of a million boxed Doubles plus pointers.
+//
+// Storing an element that doesn't fit the current store moves the array to the Object[]
+// store. The move is one-way; an array never narrows again.
+//
+// a[i:j] returns a view: a new OroArray over the same store, starting at an offset.
+// Both sides are then marked shared, and whichever is written to first copies its own
+// elements out before the write (copy on write), so neither ever sees the other's
+// changes. An array that isn't shared always starts at offset 0.
 class OroArray {
-    private final List<Object> elements;
+    private static final int EMPTY = 0;
+    private static final int NUMBERS = 1;
+    private static final int STRINGS = 2;
+    private static final int OBJECTS = 3;
+
+    private static final int INITIAL_CAPACITY = 8;
+    // Below this Arrays.parallelSort would sort sequentially anyway
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    private int kind = EMPTY;
+    // Exactly one of these is non-null once the array has held an element
+    private double[] numbers;
+    private String[] strings;
+    private Object[] objects;
+    // Index of element 0 in the store; only a view that hasn't been written to has one
+    private int offset;
+    private int size;
+    // The store may be read by another array, so it must be copied before a write
+    private boolean shared;
 
     OroArray(List<Object> elements) {
-        this.elements = new ArrayList<>(elements);
+        if (elements.isEmpty()) return;
+        kind = kindOf(elements);
+        ensureCapacity(elements.size());
+        for (Object element : elements) {
+            append(element);
+        }
     }
 
     OroArray() {
-        this.elements = new ArrayList<>();
     }
 
     Object get(int index) {
-        if (index < 0 || index >= elements.size()) {
+        if (index < 0 || index >= size) {
             return "OroError: Array index out of bounds: " + index;
         }
-        return elements.get(index);
+        return element(index);
     }
-    
+
     void set(int index, Object value) {
-        if (index < 0 || index >= elements.size()) {
+        if (index < 0 || index >= size) {
             System.out.println("OroError: Array index out of bounds: " + index);
             return;
         }
-        elements.set(index, value);
+        store(index, value);
     }
 
     void append(Object value) {
-        elements.add(value);
+        if (shared) unshare();
+        if (kind == EMPTY) kind = kindOf(value);
+        ensureCapacity(size + 1);
+        size++;
+        store(size - 1, value);
     }
 
     Object remove(int index) {
-        if (index < 0 || index >= elements.size()) {
+        if (index < 0 || index >= size) {
             return "Array index out of bounds: " + index;
         }
-        return elements.remove(index);
+        if (shared) unshare();
+        Object removed = element(index);
+        int tail = size - index - 1;
+        switch (kind) {
+            case NUMBERS: System.arraycopy(numbers, index + 1, numbers, index, tail); break;
+            case STRINGS: System.arraycopy(strings, index + 1, strings, index, tail); strings[size - 1] = null; break;
+            default: System.arraycopy(objects, index + 1, objects, index, tail); objects[size - 1] = null; break;
+        }
+        size--;
+        return removed;
     }
 
     int size() {
-        return elements.size();
+        return size;
+    }
+
+    // Holds only numbers or strings, so a copy can share the store until either side
+    // writes (see slice)
+    boolean isFlat() {
+        return kind != OBJECTS;
+    }
+
+    // Elements from up to to, as a view sharing this array's store; bounds are already
+    // clamped to 0..size
+    OroArray slice(int from, int to) {
+        OroArray view = new OroArray();
+        if (from >= to) return view;
+        view.kind = kind;
+        view.numbers = numbers;
+        view.strings = strings;
+        view.objects = objects;
+        view.offset = offset + from;
+        view.size = to - from;
+        view.shared = true;
+        shared = true;
+        return view;
+    }
+
+    // A new array over this one's whole store, marked shared so it copies before its
+    // first write. This side is left unmarked: it belongs to a frozen snapshot that is
+    // never written again, and many forks may be taking copies of it at once.
+    OroArray sharedCopy() {
+        OroArray copy = new OroArray();
+        copy.kind = kind;
+        copy.numbers = numbers;
+        copy.strings = strings;
+        copy.objects = objects;
+        copy.offset = offset;
+        copy.size = size;
+        copy.shared = true;
+        return copy;
     }
 
     @Override
     public String toString() {
-        return elements.toString();
+        return getArray().toString();
+    }
+
+    // A copy in natural order, or null unless the elements are all numbers or all
+    // strings. The number and string stores are sorted as they are, a double[] with no
+    // comparator at all, and large arrays are sorted on the common ForkJoinPool.
+    OroArray sorted() {
+        OroArray copy = new OroArray();
+        copy.kind = kind;
+        copy.size = size;
+        switch (kind) {
+            case EMPTY:
+                return copy;
+            case NUMBERS:
+                copy.numbers = Arrays.copyOfRange(numbers, offset, offset + size);
+                if (size >= PARALLEL_SORT_THRESHOLD) Arrays.parallelSort(copy.numbers); else Arrays.sort(copy.numbers);
+                return copy;
+            case STRINGS:
+                copy.strings = Arrays.copyOfRange(strings, offset, offset + size);
+                if (size >= PARALLEL_SORT_THRESHOLD) Arrays.parallelSort(copy.strings); else Arrays.sort(copy.strings);
+                return copy;
+            default:
+                Comparator<Object> order = naturalOrder(objects, offset, offset + size);
+                if (order == null) return null;
+                copy.objects = Arrays.copyOfRange(objects, offset, offset + size);
+                if (size >= PARALLEL_SORT_THRESHOLD) Arrays.parallelSort(copy.objects, order); else Arrays.sort(copy.objects, order);
+                return copy;
+        }
+    }
+
+    OroArray reversed() {
+        OroArray copy = new OroArray();
+        copy.kind = kind;
+        copy.size = size;
+        switch (kind) {
+            case EMPTY: break;
+            case NUMBERS: copy.numbers = new double[size]; break;
+            case STRINGS: copy.strings = new String[size]; break;
+            default: copy.objects = new Object[size]; break;
+        }
+        for (int i = 0, j = offset + size - 1; i < size; i++, j--) {
+            switch (kind) {
+                case NUMBERS: copy.numbers[i] = numbers[j]; break;
+                case STRINGS: copy.strings[i] = strings[j]; break;
+                default: copy.objects[i] = objects[j]; break;
+            }
+        }
+        return copy;
     }
 
-    // Helper method for index assignment in Interpreter
+    // Numbers by value or strings lexicographically, or null if the values are
+    // neither all numbers nor all strings. Slices of strings count as strings and are
+    // compared in place.
+    static Comparator<Object> naturalOrder(Object[] values, int from, int to) {
+        boolean numbers = true;
+        boolean strings = true;
+        for (int i = from; i < to; i++) {
+            numbers &= values[i] instanceof Number;
+            strings &= StringView.isText(values[i]);
+        }
+        if (numbers) return (a, b) -> Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        if (strings) return (a, b) -> CharSequence.compare((CharSequence) a, (CharSequence) b);
+        return null;
+    }
+
+    // List view over the elements, for code that works on java.util collections.
+    // Reads and writes go straight to the backing store.
     public List<Object> getArray(){
-        return elements;
+        return new AbstractList<Object>() {
+            @Override
+            public Object get(int index) {
+                if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+                return element(index);
+            }
+
+            @Override
+            public Object set(int index, Object value) {
+                Object previous = get(index);
+                store(index, value);
+                return previous;
+            }
+
+            @Override
+            public boolean add(Object value) {
+                append(value);
+                return true;
+            }
+
+            @Override
+            public Object remove(int index) {
+                Object removed = get(index);
+                OroArray.this.remove(index);
+                return removed;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Unchecked read, for native built-ins looping below size()
+    Object element(int index) {
+        switch (kind) {
+            case NUMBERS: return numbers[offset + index];
+            case STRINGS: return strings[offset + index];
+            default: return objects[offset + index];
+        }
+    }
+
+    private void store(int index, Object value) {
+        if (shared) unshare();
+        if (kind == NUMBERS && value instanceof Double) {
+            numbers[index] = (Double) value;
+        } else if (kind == STRINGS && value instanceof String) {
+            strings[index] = (String) value;
+        } else {
+            if (kind != OBJECTS) generalize();
+            objects[index] = value;
+        }
+    }
+
+    // Gives this array a store of its own holding just its elements. The other side
+    // stays marked shared and makes one unnecessary copy on its next write, which is
+    // cheaper than tracking how many arrays still read a store.
+    private void unshare() {
+        switch (kind) {
+            case NUMBERS: numbers = Arrays.copyOfRange(numbers, offset, offset + size); break;
+            case STRINGS: strings = Arrays.copyOfRange(strings, offset, offset + size); break;
+            case OBJECTS: objects = Arrays.copyOfRange(objects, offset, offset + size); break;
+            default: break;
+        }
+        offset = 0;
+        shared = false;
+    }
+
+    // Moves the elements to an Object[] store of the same capacity
+    private void generalize() {
+        Object[] general = new Object[capacity()];
+        for (int i = 0; i < size; i++) {
+            general[i] = element(i);
+        }
+        kind = OBJECTS;
+        objects = general;
+        numbers = null;
+        strings = null;
+    }
+
+    private int capacity() {
+        if (numbers != null) return numbers.length;
+        if (strings != null) return strings.length;
+        if (objects != null) return objects.length;
+        return 0;
+    }
+
+    private void ensureCapacity(int needed) {
+        int capacity = capacity();
+        if (needed <= capacity) return;
+        int grown = Math.max(needed, Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1)));
+        switch (kind) {
+            case NUMBERS: numbers = numbers == null ? new double[grown] : Arrays.copyOf(numbers, grown); break;
+            case STRINGS: strings = strings == null ? new String[grown] : Arrays.copyOf(strings, grown); break;
+            default: objects = objects == null ? new Object[grown] : Arrays.copyOf(objects, grown); break;
+        }
+    }
+
+    // Only Doubles go in the number store: size() and length() produce Integers, which
+    // print differently and must come back out unchanged
+    private static int kindOf(Object value) {
+        if (value instanceof Double) return NUMBERS;
+        if (value instanceof String) return STRINGS;
+        return OBJECTS;
+    }
+
+    private static int kindOf(List<Object> elements) {
+        if (elements.isEmpty()) return EMPTY;
+        int kind = kindOf(elements.get(0));
+        for (Object element : elements) {
+            if (kindOf(element) != kind) return OBJECTS;
+        }
+        return kind;
     }
 }
@@ -0,0 +1,52 @@
+package oro;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.script.SimpleBindings;
+
+// Script-engine bindings that keep values in the form each side expects. Oro has a
+// single number type, so host numbers are stored and read as doubles; a string the
+// script holds as a view over other text is stored as its String.
+//
+// createBindings() returns these, and the engine reads any other host-supplied
+// bindings (ENGINE_SCOPE and GLOBAL_SCOPE) through one, so numbers a host put straight
+// into a plain map are converted as they are looked up.
+final class OroBindings extends SimpleBindings {
+    OroBindings() {
+        this(new HashMap<>());
+    }
+
+    OroBindings(Map<String, Object> values) {
+        super(values);
+    }
+
+    // The bindings as scripts should see them
+    static OroBindings of(Map<String, Object> bindings) {
+        return bindings instanceof OroBindings ? (OroBindings) bindings : new OroBindings(bindings);
+    }
+
+    @Override
+    public Object put(String name, Object value) {
+        return super.put(name, toOro(StringView.export(value)));
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends Object> values) {
+        for (Map.Entry<? extends String, ? extends Object> entry : values.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Object get(Object name) {
+        return toOro(super.get(name));
+    }
+
+    static Object toOro(Object value) {
+        if (value instanceof Number && !(value instanceof Double)) {
+            return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+}
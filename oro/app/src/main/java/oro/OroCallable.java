@@ -7,4 +7,8 @@ import java.util.List;
 interface OroCallable {
   int arity();
   Object call(Interpreter interpreter, List<Object> arguments);
+
+  // Built-ins that read string slices (StringView) and byte strings (ByteString) in
+  // place; the rest are handed Strings
+  default boolean acceptsViews() { return false; }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package oro;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounded FIFO for passing values between tasks. send blocks while the channel is full,
+// receive blocks while it is empty. After close, send fails and receive drains what is
+// left and then returns null, so a consumer can loop until it sees null.
+//
+// Uses a ReentrantLock rather than synchronized so blocked virtual threads unmount
+// from their carrier. Waits end with a budget error at the run's deadline, if it has one.
+class OroChannel {
+    // Largest capacity channel() accepts. The buffer grows as values arrive, so this
+    // bounds what a channel can hold rather than what it allocates up front.
+    static final int MAX_CAPACITY = 1 << 20;
+
+    private final ArrayDeque<Object> buffer = new ArrayDeque<>();
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private boolean closed = false;
+
+    // ArrayDeque does not hold nulls
+    private static final Object NULL = new Object();
+
+    OroChannel(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void send(Object value, BudgetMeter meter) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (buffer.size() == capacity && !closed) {
+                await(notFull, meter);
+            }
+            if (closed) throw new RuntimeError("Cannot send on a closed channel.");
+            buffer.addLast(value == null ? NULL : value);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Object receive(BudgetMeter meter) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (buffer.isEmpty() && !closed) {
+                await(notEmpty, meter);
+            }
+            if (buffer.isEmpty()) return null;
+            Object value = buffer.removeFirst();
+            notFull.signal();
+            return value == NULL ? null : value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void await(Condition condition, BudgetMeter meter) throws InterruptedException {
+        long left = BudgetMeter.nanosLeft(meter);
+        if (left == Long.MAX_VALUE) {
+            condition.await();
+        } else {
+            condition.awaitNanos(left);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<channel " + capacity + ">";
+    }
+}
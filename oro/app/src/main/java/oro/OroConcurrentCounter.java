@@ -0,0 +1,41 @@
+package oro;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts per key that any number of tasks or pmap workers can bump at once. Each key
+// has its own LongAdder, which spreads contended increments over striped cells, so
+// there is no lock shared by all keys.
+class OroConcurrentCounter {
+    private final ConcurrentHashMap<Object, LongAdder> counts = new ConcurrentHashMap<>();
+
+    void increment(Object key, long amount) {
+        counts.computeIfAbsent(key, k -> new LongAdder()).add(amount);
+    }
+
+    double get(Object key) {
+        LongAdder count = counts.get(key);
+        return count == null ? 0.0 : count.sum();
+    }
+
+    // Replaces the count. Increments racing with the replacement may be lost.
+    void set(Object key, long value) {
+        LongAdder count = new LongAdder();
+        count.add(value);
+        counts.put(key, count);
+    }
+
+    // Point-in-time copy as a plain map, usable with printJSON and indexing
+    Map<Object, Object> snapshot() {
+        Map<Object, Object> copy = new LinkedHashMap<>();
+        counts.forEach((key, count) -> copy.put(key, (double) count.sum()));
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
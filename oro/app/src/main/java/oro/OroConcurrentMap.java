@@ -0,0 +1,53 @@
+package oro;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Map that tasks and pmap workers can update at once. merge and compute run their Oro
+// callable atomically for one key; other keys stay available meanwhile. A null value
+// means "absent": storing null removes the key.
+class OroConcurrentMap {
+    private final ConcurrentHashMap<Object, Object> entries = new ConcurrentHashMap<>();
+
+    Object get(Object key) {
+        return entries.get(key);
+    }
+
+    void put(Object key, Object value) {
+        if (value == null) {
+            entries.remove(key);
+        } else {
+            entries.put(key, value);
+        }
+    }
+
+    Object merge(Object key, Object value, OroCallable fn, Interpreter interpreter) {
+        try {
+            return entries.merge(key, value,
+                    (current, given) -> fn.call(interpreter, Arrays.asList(current, given)));
+        } catch (IllegalStateException e) {
+            throw new RuntimeError("merge: the function must not update the same map.");
+        }
+    }
+
+    Object compute(Object key, OroCallable fn, Interpreter interpreter) {
+        try {
+            return entries.compute(key,
+                    (k, current) -> fn.call(interpreter, Arrays.asList(k, current)));
+        } catch (IllegalStateException e) {
+            throw new RuntimeError("compute: the function must not update the same map.");
+        }
+    }
+
+    // Point-in-time copy as a plain map, usable with printJSON and indexing
+    Map<Object, Object> snapshot() {
+        return new LinkedHashMap<>(entries);
+    }
+
+    @Override
+    public String toString() {
+        return entries.toString();
+    }
+}
@@ -3,6 +3,8 @@
 package oro;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -46,6 +48,26 @@ public class OroDocument {
         }
     }
 
+    // The text getDocText returns, left as bytes if the file is all ASCII (see ByteString).
+    // Anything else, a missing file included, goes through getDocText.
+    CharSequence readText(String filePath) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(Path.of(filePath));
+        }
+        catch (IOException e) {
+            return getDocText(filePath);
+        }
+
+        // getDocText joins the lines, so every line break goes
+        int length = 0;
+        for (byte b : bytes) {
+            if (b < 0) return getDocText(filePath);
+            if (b != '\n' && b != '\r') bytes[length++] = b;
+        }
+        return ByteString.ofAscii(bytes, length);
+    }
+
     // Not really needed, since redacted documents serve as copies, not replace the original file
     public int replaceDocText(String filePath, String replacementText){
         File file = new File(filePath);
@@ -0,0 +1,134 @@
+package oro;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedding API. Compile a source once into a {@link CompiledScript}, then execute it as
+ * often as needed. Every execution starts from a clean global environment holding only
+ * the built-ins and the bindings passed in. Output and errors come back in the
+ * {@link ExecutionResult} instead of going to the console.
+ *
+ * Interpreters are pooled and reset between executions, so repeated runs skip
+ * setting up a new global environment.
+ *
+ * Jobs that all need the same setup can run it once with {@link #snapshot} and start
+ * every execution from the resulting {@link GlobalSnapshot}.
+ *
+ * A {@link Budget} limits the steps, time and memory each execution may use, so one
+ * runaway script cannot hold up a batch. Set a default for the engine or pass one per
+ * execution; a run that exceeds it fails with a "Budget exceeded" diagnostic.
+ *
+ * For javax.script hosts the same machinery is available through {@link OroScriptEngine}.
+ */
+public final class OroEngine {
+    private final ConcurrentLinkedQueue<Interpreter> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final int maxPooled;
+    private final Budget budget;
+
+    public OroEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // maxPooled = 0 gives every execution a brand new interpreter
+    public OroEngine(int maxPooled) {
+        this(maxPooled, Budget.unlimited());
+    }
+
+    // budget applies to every execution and snapshot prelude run by this engine
+    public OroEngine(int maxPooled, Budget budget) {
+        this.maxPooled = maxPooled;
+        this.budget = budget;
+    }
+
+    public CompiledScript compile(String source) {
+        return CompiledScript.compile(source);
+    }
+
+    public ExecutionResult execute(CompiledScript script) {
+        return execute(script, Map.of());
+    }
+
+    // Bindings are defined as globals before the script runs
+    public ExecutionResult execute(CompiledScript script, Map<String, ?> bindings) {
+        return execute(script, bindings, budget);
+    }
+
+    // Runs with the given budget instead of the engine's
+    public ExecutionResult execute(CompiledScript script, Map<String, ?> bindings, Budget budget) {
+        if (script.hasErrors()) {
+            return new ExecutionResult(script.diagnostics(), "", Map.of());
+        }
+
+        Interpreter interpreter = acquire();
+        try {
+            return run(interpreter, script, bindings, budget);
+        } finally {
+            release(interpreter);
+        }
+    }
+
+    // Runs the prelude once and freezes the globals it defines. Throws
+    // IllegalArgumentException if the prelude does not compile, fails at runtime, or
+    // leaves a generator, stream, channel or task in a global.
+    public GlobalSnapshot snapshot(CompiledScript prelude) {
+        if (prelude.hasErrors()) {
+            throw new IllegalArgumentException("Prelude has errors: " + prelude.diagnostics());
+        }
+
+        // Not pooled: the prelude's closures keep referring to this interpreter's globals
+        Interpreter interpreter = new Interpreter();
+        ExecutionResult result = run(interpreter, prelude, Map.of(), budget);
+        if (!result.succeeded()) {
+            throw new IllegalArgumentException("Prelude failed: " + result.diagnostics());
+        }
+        return new GlobalSnapshot(interpreter.globals.freeze());
+    }
+
+    public ExecutionResult execute(CompiledScript script, GlobalSnapshot snapshot) {
+        return execute(script, snapshot, Map.of());
+    }
+
+    // Starts from a fork of the snapshot. The result's globals hold what the script
+    // defined or touched; untouched prelude values are left out.
+    public ExecutionResult execute(CompiledScript script, GlobalSnapshot snapshot, Map<String, ?> bindings) {
+        if (script.hasErrors()) {
+            return new ExecutionResult(script.diagnostics(), "", Map.of());
+        }
+        return run(new Interpreter(snapshot.fork()), script, bindings, budget);
+    }
+
+    private ExecutionResult run(Interpreter interpreter, CompiledScript script, Map<String, ?> bindings,
+                                Budget budget) {
+        StringWriter output = new StringWriter();
+        Diagnostics diagnostics = new Diagnostics();
+        interpreter.setOutput(new PrintWriter(output, true));
+        // Host numbers arrive as Integer, Long and so on; Oro only has doubles
+        bindings.forEach((name, value) -> interpreter.globals.define(name, OroBindings.toOro(value)));
+        interpreter.setBudget(budget);
+        interpreter.interpret(script.statements(), diagnostics);
+
+        return new ExecutionResult(diagnostics.list(), output.toString(),
+                interpreter.definedGlobals());
+    }
+
+    private Interpreter acquire() {
+        Interpreter interpreter = pool.poll();
+        if (interpreter == null) return new Interpreter();
+        pooled.decrementAndGet();
+        return interpreter;
+    }
+
+    private void release(Interpreter interpreter) {
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        interpreter.reset();
+        pool.offer(interpreter);
+    }
+}
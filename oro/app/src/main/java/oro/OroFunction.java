@@ -6,17 +6,45 @@ class OroFunction implements OroCallable {
   private final Stmt.Function declaration;
   private final Environment closure;
   private final boolean isInitializer;
+  // The pmap/pfilter/preduce worker that declared this function, or null
+  private final Interpreter owner;
 
   OroFunction(Stmt.Function declaration, Environment closure, boolean isInitializer) {
+    this(declaration, closure, isInitializer, null);
+  }
+
+  OroFunction(Stmt.Function declaration, Environment closure, boolean isInitializer, Interpreter owner) {
     this.isInitializer = isInitializer;
     this.closure = closure;
     this.declaration = declaration;
+    this.owner = owner;
+  }
+
+  String name() {
+    return declaration.name.lexeme;
+  }
+
+  boolean assignsOuterVariables() {
+    return declaration.assignsOuterVariables;
+  }
+
+  Stmt.Function declaration() {
+    return declaration;
+  }
+
+  Environment closure() {
+    return closure;
+  }
+
+  // Same function over a different captured scope
+  OroFunction withClosure(Environment closure) {
+    return new OroFunction(declaration, closure, isInitializer, owner);
   }
 
   OroFunction bind(OroInstance instance) {
     Environment environment = new Environment(closure);
     environment.define("self", instance);
-    return new OroFunction(declaration, environment, isInitializer);
+    return new OroFunction(declaration, environment, isInitializer, owner);
   }
 
   @Override
@@ -32,18 +60,56 @@ class OroFunction implements OroCallable {
   // Every function call gets own environment to store locally declared variables
   @Override
   public Object call(Interpreter interpreter, List<Object> arguments) {
-    Environment environment = new Environment(closure);
+    Environment environment = scope(interpreter);
     for (int i = 0; i < declaration.params.size(); i++) {
       environment.define(declaration.params.get(i).lexeme,
           arguments.get(i));
     }
+    return run(interpreter, environment);
+  }
+
+  // Calls from native built-ins that run a function once per element (map, filter,
+  // sort...). The caller has checked the arity; the arguments go straight into the
+  // new scope without an argument list per call.
+  Object call(Interpreter interpreter, Object argument) {
+    Environment environment = scope(interpreter);
+    environment.define(declaration.params.get(0).lexeme, argument);
+    return run(interpreter, environment);
+  }
+
+  Object call(Interpreter interpreter, Object first, Object second) {
+    Environment environment = scope(interpreter);
+    environment.define(declaration.params.get(0).lexeme, first);
+    environment.define(declaration.params.get(1).lexeme, second);
+    return run(interpreter, environment);
+  }
+
+  // The scope for one call
+  private Environment scope(Interpreter interpreter) {
+    interpreter.stats().environmentCreated();
+    return new Environment(closure);
+  }
+
+  private Object run(Interpreter interpreter, Environment environment) {
+    // pmap only checks the function it is given; this catches the ones that calls.
+    // Functions declared inside the worker assign to that worker's own variables.
+    if (declaration.assignsOuterVariables && interpreter.isParallelWorker() && owner != interpreter) {
+      throw new RuntimeError(declaration.name, toString() + " assigns to a variable outside itself, "
+          + "which would race between threads. Return values instead.");
+    }
+
+    // The body of a generator runs when it is looped over
+    if (declaration.isGenerator) return new OroGenerator(interpreter, declaration, environment);
 
     // Discard function local environment
+    interpreter.enter(declaration.name.lexeme, declaration.name.line);
     try {
         interpreter.executeBlock(declaration.body, environment);
       } catch (Return returnValue) {
         if (isInitializer) return closure.getAt(0, "self");
         return returnValue.value;
+      } finally {
+        interpreter.exit();
       }
 
     if (isInitializer) return closure.getAt(0, "self");
@@ -0,0 +1,217 @@
+package oro;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.LockSupport;
+
+// Value returned by calling a function whose body contains yield. Nothing runs until
+// it is looped over (for-in, stream); then the body runs on its own virtual thread with
+// its own interpreter, and each yield hands one value to the loop and parks the body
+// until the loop asks for the next one.
+//
+// The two sides take strict turns: while the body runs the loop is parked and the other
+// way round, so the body reads and assigns globals and captured variables exactly as a
+// plain call would. Each handoff is a volatile write of the turn and an unpark, with a
+// short spin first on multi-core machines, so a value costs no allocation beyond the
+// values themselves and usually no trip through the scheduler.
+//
+// A handoff still costs far more than running a few statements, so a self-contained
+// body (see Stmt.Function.selfContained) runs ahead: its yields fill a buffer and it
+// hands over only when the buffer is full, taking turns as before. The batch starts at
+// one value and doubles each time the loop drains it, up to MAX_BATCH, so a loop that
+// stops after a few values makes the body do little extra work. A container passed to
+// such a body is read up to a batch ahead of the loop. Any other body hands over at
+// every yield, since what it yields may depend on what the loop did with the last value.
+//
+// A generator can be looped over once. A loop that stops early (return, first(), take)
+// closes it: the parked body is unwound from its yield and its thread ends. One that is
+// simply dropped part way leaves its virtual thread parked until the process exits, or
+// until the run's deadline if it has a timeout budget: both sides wait no longer than
+// that and then fail with the budget error.
+final class OroGenerator implements Iterable<Object>, Iterator<Object>, AutoCloseable {
+    private static final int CONSUMER = 0;
+    private static final int PRODUCER = 1;
+    private static final int MAX_BATCH = 128;
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 1 << 8 : 0;
+
+    private final String name;
+    private final int line;
+    private final List<Stmt> body;
+    private final Environment scope;
+    private final Interpreter worker;
+
+    private boolean iterated;
+    private Thread producer;
+    private Thread consumer;
+    // Whose turn it is; written last by each side, so it publishes everything before it
+    private volatile int turn = CONSUMER;
+    // Values yielded since the last handoff: the body fills it up to batch, the loop
+    // reads it from read up to filled and then empties it
+    private final Object[] buffer;
+    private int batch = 1;
+    private int filled;
+    private int read;
+    private Throwable failure;
+    private boolean finished;
+    // Set by the loop once it has read everything, or closed the generator
+    private boolean done;
+    // Read by the body before it yields, in case the loop gave up while it was running
+    private volatile boolean closing;
+
+    OroGenerator(Interpreter interpreter, Stmt.Function declaration, Environment scope) {
+        this.name = declaration.name.lexeme;
+        this.line = declaration.name.line;
+        this.body = declaration.body;
+        this.scope = scope;
+        this.buffer = new Object[declaration.selfContained ? MAX_BATCH : 1];
+        this.worker = interpreter.worker(interpreter.globals);
+        worker.runAsGenerator(this);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        if (iterated) throw new RuntimeError("Generator " + name + " can only be looped over once.");
+        iterated = true;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (done) return false;
+        if (read == filled) fetch();
+        return read < filled;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Object next = buffer[read];
+        buffer[read++] = null;
+        return next;
+    }
+
+    // Unwinds a body parked at a yield and waits for its thread to end
+    @Override
+    public void close() {
+        done = true;
+        if (producer == null || finished) return;
+        closing = true;
+        // Still the body's turn only if the loop's wait ran out of budget; the body stops
+        // at its next yield or budget check
+        if (turn == PRODUCER) return;
+        handTo(PRODUCER, producer);
+        try {
+            producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Called by the body's interpreter at each yield
+    void emit(Object yielded) {
+        if (closing) throw new Closed();
+        buffer[filled++] = yielded;
+        if (filled < batch) return;
+        handTo(CONSUMER, consumer);
+        await(PRODUCER);
+        if (closing) throw new Closed();
+    }
+
+    // Empties the drained buffer and runs the body until it fills it or finishes. A
+    // failure is thrown once the values yielded before it have been read.
+    private void fetch() {
+        filled = 0;
+        read = 0;
+        if (!finished) {
+            consumer = Thread.currentThread();
+            if (producer == null) {
+                producer = Thread.ofVirtual().name("oro-generator " + name).unstarted(this::produce);
+                turn = PRODUCER;
+                producer.start();
+            } else {
+                batch = Math.min(batch * 2, buffer.length);
+                handTo(PRODUCER, producer);
+            }
+            await(CONSUMER);
+        }
+        if (filled == 0) {
+            done = true;
+            rethrowFailure();
+        }
+    }
+
+    private void rethrowFailure() {
+        if (failure == null) return;
+        Throwable cause = failure;
+        failure = null;
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        throw new RuntimeError("Generator " + name + " failed: " + cause);
+    }
+
+    private void produce() {
+        worker.enter(name, line);
+        try {
+            worker.executeBlock(body, scope);
+        } catch (Return returned) {
+            // return ends the generator; a returned value is dropped
+        } catch (Closed closed) {
+            // close() is waiting for this thread to end
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            worker.exit();
+            // Tasks spawned by the body finish before it does; a task's failure is the
+            // generator's unless the body failed first
+            try {
+                worker.closeTasks();
+            } catch (Throwable e) {
+                if (failure == null) failure = e;
+            }
+            finished = true;
+            handTo(CONSUMER, consumer);
+        }
+    }
+
+    private void handTo(int side, Thread thread) {
+        turn = side;
+        LockSupport.unpark(thread);
+    }
+
+    private void await(int side) {
+        for (int i = 0; i < SPINS; i++) {
+            if (turn == side) return;
+            Thread.onSpinWait();
+        }
+        // An interrupt can't cut a handoff short: the other side still expects its turn.
+        // The run's deadline can, with a budget error.
+        boolean interrupted = false;
+        try {
+            while (turn != side) {
+                long left = BudgetMeter.nanosLeft(worker.meter());
+                if (left == Long.MAX_VALUE) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, left);
+                }
+                if (Thread.interrupted()) interrupted = true;
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<generator " + name + ">";
+    }
+
+    // Thrown from yield into a body whose loop has been closed
+    private static final class Closed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Closed() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -28,6 +28,14 @@ class OroInstance {
     fields.put(name.lexeme, value);
   }
 
+  OroClass klass() {
+    return klass;
+  }
+
+  Map<String, Object> fields() {
+    return fields;
+  }
+
 
   @Override
   public String toString() {
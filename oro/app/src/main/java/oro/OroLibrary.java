@@ -0,0 +1,9 @@
+// Service provider interface for optional modules (oro-pdf, oro-nlp) that add built-ins.
+// Providers are listed in META-INF/services/oro.OroLibrary and picked up by the
+// Interpreter through ServiceLoader whenever their jar is on the classpath.
+
+package oro;
+
+public interface OroLibrary {
+  void registerAll(Environment globals);
+}
@@ -0,0 +1,336 @@
+package oro;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Oro map, created by {key: value} literals and parseJSON. Keys are strings, numbers
+// or booleans; iteration follows insertion order.
+//
+// Entries live in insertion-ordered parallel arrays (keys, values, hashes). A separate
+// open-addressing table of int slots, probed linearly, points into them. A lookup
+// touches one int array and one key, with no Entry objects and no boxed chain nodes.
+// Removing an entry leaves a hole in the entry arrays and a tombstone in the table;
+// both are squeezed out the next time the table is rebuilt.
+//
+// Iterators walk the entry arrays by index, which a rebuild reorders, so adding or
+// removing a key while iterating raises a RuntimeError on the next step instead of
+// silently skipping entries. Changing the value of an existing key is fine, and so is
+// removing through the iterator itself.
+//
+// sharedCopy() hands a fork of a global snapshot a map over the same arrays; the
+// copy clones them before its first write, so reading a prelude table costs nothing.
+//
+// Implements java.util.Map so hosts, toJson and the snapshot copier can treat it like
+// the LinkedHashMaps parseJSON used to return.
+final class OroMap extends AbstractMap<Object, Object> {
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final Object REMOVED = new Object();
+    private static final int MIN_SLOTS = 8;
+
+    // Slot values: EMPTY, DELETED, or entry index + 1
+    private int[] slots;
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    // Entries used, including removed ones
+    private int used;
+    private int size;
+    // Slots that are not EMPTY (live plus tombstones), which bounds probe lengths
+    private int filled;
+    // The arrays may be read by another map, so they must be copied before a write
+    private boolean shared;
+    // Keys added or removed so far; iterators compare it with the count they started at
+    private int modifications;
+
+    OroMap() {
+        this(0);
+    }
+
+    OroMap(int expected) {
+        int slotCount = MIN_SLOTS;
+        while (slotCount * 2 < expected * 3) slotCount <<= 1;
+        slots = new int[slotCount];
+        int capacity = slotCount * 2 / 3;
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+    }
+
+    // Checks and normalizes a key: any number becomes a Double, -0.0 becomes 0.0
+    static Object key(Object key) {
+        Object normalized = normalize(key);
+        if (normalized == null) {
+            throw new RuntimeError("Map keys must be strings, numbers or booleans.");
+        }
+        return normalized;
+    }
+
+    // The normalized key, or null if the value can't be one
+    static Object normalize(Object key) {
+        if (key instanceof String || key instanceof Boolean) return key;
+        if (StringView.isView(key)) return key.toString();
+        if (key instanceof Number) {
+            double number = ((Number) key).doubleValue();
+            return number == 0 ? 0.0 : number;
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Object normalized = normalize(key);
+        return normalized != null && find(normalized) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object normalized = normalize(key);
+        if (normalized == null) return null;
+        int entry = find(normalized);
+        return entry < 0 ? null : values[entry];
+    }
+
+    @Override
+    public Object put(Object key, Object value) {
+        key = key(key);
+        if (shared) unshare();
+        int hash = spread(key.hashCode());
+        int mask = slots.length - 1;
+        int tombstone = -1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int index = slots[slot];
+            if (index == EMPTY) {
+                if (tombstone >= 0) {
+                    slot = tombstone;
+                } else {
+                    filled++;
+                }
+                slots[slot] = append(key, value, hash) + 1;
+                size++;
+                modifications++;
+                if (used == keys.length || filled * 3 >= slots.length * 2) rebuild();
+                return null;
+            }
+            if (index == DELETED) {
+                if (tombstone < 0) tombstone = slot;
+            } else if (hashes[index - 1] == hash && keys[index - 1].equals(key)) {
+                Object previous = values[index - 1];
+                values[index - 1] = value;
+                return previous;
+            }
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        key = normalize(key);
+        if (key == null) return null;
+        if (shared) unshare();
+        int hash = spread(key.hashCode());
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int index = slots[slot];
+            if (index == EMPTY) return null;
+            if (index != DELETED && hashes[index - 1] == hash && keys[index - 1].equals(key)) {
+                Object previous = values[index - 1];
+                slots[slot] = DELETED;
+                keys[index - 1] = REMOVED;
+                values[index - 1] = null;
+                size--;
+                modifications++;
+                return previous;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (shared) unshare();
+        Arrays.fill(slots, EMPTY);
+        Arrays.fill(keys, 0, used, null);
+        Arrays.fill(values, 0, used, null);
+        used = 0;
+        size = 0;
+        filled = 0;
+        modifications++;
+    }
+
+    @Override
+    public Set<Map.Entry<Object, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<Object, Object>>() {
+            @Override
+            public Iterator<Map.Entry<Object, Object>> iterator() {
+                return new Iterator<Map.Entry<Object, Object>>() {
+                    private int next = skipRemoved(0);
+                    private int last = -1;
+                    private int expected = modifications;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < used;
+                    }
+
+                    @Override
+                    public Map.Entry<Object, Object> next() {
+                        checkUnchanged(expected);
+                        if (next >= used) throw new NoSuchElementException();
+                        last = next;
+                        next = skipRemoved(next + 1);
+                        int entry = last;
+                        return new AbstractMap.SimpleEntry<Object, Object>(keys[entry], values[entry]) {
+                            private static final long serialVersionUID = 1L;
+
+                            @Override
+                            public Object setValue(Object value) {
+                                super.setValue(value);
+                                if (shared) unshare();
+                                Object previous = values[entry];
+                                values[entry] = value;
+                                return previous;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0) throw new IllegalStateException();
+                        checkUnchanged(expected);
+                        OroMap.this.remove(keys[last]);
+                        expected = modifications;
+                        last = -1;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Keys in insertion order, without the entry objects entrySet makes; for-in loops
+    // over maps use this
+    Iterator<Object> keyIterator() {
+        return new Iterator<Object>() {
+            private int next = skipRemoved(0);
+            private final int expected = modifications;
+
+            @Override
+            public boolean hasNext() {
+                return next < used;
+            }
+
+            @Override
+            public Object next() {
+                checkUnchanged(expected);
+                if (next >= used) throw new NoSuchElementException();
+                Object key = keys[next];
+                next = skipRemoved(next + 1);
+                return key;
+            }
+        };
+    }
+
+    // A map over the same arrays, marked shared so it copies them before its first
+    // write. This side is left unmarked: it belongs to a frozen snapshot that is never
+    // written again.
+    OroMap sharedCopy() {
+        OroMap copy = new OroMap();
+        copy.slots = slots;
+        copy.keys = keys;
+        copy.values = values;
+        copy.hashes = hashes;
+        copy.used = used;
+        copy.size = size;
+        copy.filled = filled;
+        copy.shared = true;
+        return copy;
+    }
+
+    private void unshare() {
+        slots = slots.clone();
+        keys = keys.clone();
+        values = values.clone();
+        hashes = hashes.clone();
+        shared = false;
+    }
+
+    private void checkUnchanged(int expected) {
+        if (modifications != expected) {
+            throw new RuntimeError("Map keys were added or removed while looping over the map.");
+        }
+    }
+
+    // Entry index of the key, or -1
+    private int find(Object key) {
+        int hash = spread(key.hashCode());
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int index = slots[slot];
+            if (index == EMPTY) return -1;
+            if (index != DELETED && hashes[index - 1] == hash && keys[index - 1].equals(key)) {
+                return index - 1;
+            }
+        }
+    }
+
+    private int append(Object key, Object value, int hash) {
+        keys[used] = key;
+        values[used] = value;
+        hashes[used] = hash;
+        return used++;
+    }
+
+    private int skipRemoved(int entry) {
+        while (entry < used && keys[entry] == REMOVED) entry++;
+        return entry;
+    }
+
+    // Compacts the entries and re-slots them, growing when more than half the
+    // capacity is live
+    private void rebuild() {
+        int slotCount = MIN_SLOTS;
+        while (slotCount < size * 3) slotCount <<= 1;
+        int[] newSlots = new int[slotCount];
+        int capacity = slotCount * 2 / 3;
+        Object[] newKeys = new Object[capacity];
+        Object[] newValues = new Object[capacity];
+        int[] newHashes = new int[capacity];
+        int mask = slotCount - 1;
+        int count = 0;
+        for (int entry = 0; entry < used; entry++) {
+            if (keys[entry] == REMOVED) continue;
+            newKeys[count] = keys[entry];
+            newValues[count] = values[entry];
+            newHashes[count] = hashes[entry];
+            int slot = hashes[entry] & mask;
+            while (newSlots[slot] != EMPTY) slot = (slot + 1) & mask;
+            newSlots[slot] = ++count;
+        }
+        slots = newSlots;
+        keys = newKeys;
+        values = newValues;
+        hashes = newHashes;
+        used = count;
+        filled = count;
+    }
+
+    // Whole-number Doubles differ only in their upper bits, and the table is indexed by
+    // the lowest ones, so every bit is mixed into the low end first
+    static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
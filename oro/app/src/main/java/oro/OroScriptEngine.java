@@ -0,0 +1,277 @@
+package oro;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+
+/**
+ * javax.script (JSR-223) engine for Oro.
+ *
+ * The ENGINE_SCOPE bindings of the context are the script's global scope: variables
+ * defined by a script are stored straight into them and host values put into them are
+ * read without copying. GLOBAL_SCOPE bindings and the built-ins sit underneath as
+ * read-only layers; assigning to one of their names shadows it in ENGINE_SCOPE.
+ * Oro has a single number type, so host numbers in either scope are read as doubles.
+ *
+ * Sources passed to eval are compiled once and kept in a small LRU cache, so hosts
+ * that evaluate the same string repeatedly only pay for scanning, parsing and
+ * resolving the first time. {@link #compile} skips the cache and hands back the
+ * compiled form directly.
+ *
+ * eval returns the value of the last statement if it is an expression, otherwise null.
+ * Strings a script holds as views over other text reach the host as plain Strings:
+ * in eval and invocation results and in whatever the script stores in the bindings.
+ *
+ * A {@link Budget} stored in the context under {@link #BUDGET} limits every eval and
+ * invocation on that context.
+ */
+public final class OroScriptEngine extends AbstractScriptEngine implements Compilable, Invocable {
+    // Context attribute holding the Budget for evaluations on that context
+    public static final String BUDGET = "oro.budget";
+
+    private static final int CACHE_SIZE = 64;
+
+    private final OroScriptEngineFactory factory;
+    private final Map<String, CompiledScript> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    OroScriptEngine(OroScriptEngineFactory factory) {
+        this.factory = factory;
+        context.setBindings(createBindings(), ScriptContext.ENGINE_SCOPE);
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        CompiledScript compiled = cache.get(script);
+        if (compiled == null) {
+            compiled = compileChecked(script, context);
+            cache.put(script, compiled);
+        }
+        return execute(compiled, context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return eval(read(reader), context);
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new OroBindings();
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    @Override
+    public javax.script.CompiledScript compile(String script) throws ScriptException {
+        CompiledScript compiled = compileChecked(script, context);
+        return new javax.script.CompiledScript() {
+            @Override
+            public Object eval(ScriptContext context) throws ScriptException {
+                return execute(compiled, context);
+            }
+
+            @Override
+            public ScriptEngine getEngine() {
+                return OroScriptEngine.this;
+            }
+        };
+    }
+
+    @Override
+    public javax.script.CompiledScript compile(Reader script) throws ScriptException {
+        return compile(read(script));
+    }
+
+    @Override
+    public Object invokeFunction(String name, Object... args) throws ScriptException, NoSuchMethodException {
+        Interpreter interpreter = interpreterFor(context);
+        Object function;
+        try {
+            function = interpreter.globals.get(identifier(name));
+        } catch (RuntimeError error) {
+            throw new NoSuchMethodException(name);
+        }
+        return invoke(interpreter, function, name, args);
+    }
+
+    @Override
+    public Object invokeMethod(Object thiz, String name, Object... args) throws ScriptException, NoSuchMethodException {
+        if (!(thiz instanceof OroInstance)) {
+            throw new IllegalArgumentException("Not an Oro instance: " + thiz);
+        }
+        Object method;
+        try {
+            method = ((OroInstance)thiz).get(identifier(name));
+        } catch (RuntimeError error) {
+            throw new NoSuchMethodException(name);
+        }
+        return invoke(interpreterFor(context), method, name, args);
+    }
+
+    @Override
+    public <T> T getInterface(Class<T> type) {
+        return proxy(type, (name, args) -> invokeFunction(name, args));
+    }
+
+    @Override
+    public <T> T getInterface(Object thiz, Class<T> type) {
+        if (!(thiz instanceof OroInstance)) {
+            throw new IllegalArgumentException("Not an Oro instance: " + thiz);
+        }
+        return proxy(type, (name, args) -> invokeMethod(thiz, name, args));
+    }
+
+    private CompiledScript compileChecked(String source, ScriptContext context) throws ScriptException {
+        CompiledScript compiled = CompiledScript.compile(source);
+        if (compiled.hasErrors()) {
+            throw toScriptException(compiled.diagnostics().get(0), context);
+        }
+        return compiled;
+    }
+
+    private Object execute(CompiledScript script, ScriptContext context) throws ScriptException {
+        Interpreter interpreter = interpreterFor(context);
+        try {
+            return StringView.export(interpreter.run(script.statements()));
+        } catch (RuntimeError error) {
+            throw toScriptException(error, context);
+        } finally {
+            interpreter.out().flush();
+        }
+    }
+
+    private Object invoke(Interpreter interpreter, Object target, String name, Object[] args)
+            throws ScriptException, NoSuchMethodException {
+        if (!(target instanceof OroCallable)) {
+            throw new NoSuchMethodException(name + " is not callable");
+        }
+        OroCallable callable = (OroCallable)target;
+        List<Object> arguments = new ArrayList<>();
+        if (args != null) {
+            for (Object arg : args) arguments.add(OroBindings.toOro(arg));
+        }
+        if (callable.arity() >= 0 && arguments.size() != callable.arity()) {
+            throw new ScriptException("Expected " + callable.arity() + " arguments but got "
+                    + arguments.size() + " calling " + name + ".");
+        }
+
+        try {
+            Object result = callable.call(interpreter, arguments);
+            interpreter.closeTasks();
+            return StringView.export(result);
+        } catch (RuntimeError error) {
+            throw toScriptException(error, context);
+        } finally {
+            interpreter.out().flush();
+        }
+    }
+
+    // A fresh interpreter per evaluation; all state that outlives it is in the bindings
+    private Interpreter interpreterFor(ScriptContext context) {
+        Environment base = Interpreter.builtIns();
+        Bindings global = context.getBindings(ScriptContext.GLOBAL_SCOPE);
+        if (global != null) {
+            base = new Environment(OroBindings.of(global), base);
+        }
+        Interpreter interpreter = new Interpreter(
+                new Environment(OroBindings.of(context.getBindings(ScriptContext.ENGINE_SCOPE)), base));
+        interpreter.setOutput(new PrintWriter(context.getWriter(), true));
+        Object budget = context.getAttribute(BUDGET);
+        if (budget instanceof Budget) {
+            interpreter.setBudget((Budget)budget);
+        }
+        return interpreter;
+    }
+
+    private interface Invoker {
+        Object invoke(String name, Object[] args) throws ScriptException, NoSuchMethodException;
+    }
+
+    private <T> T proxy(Class<T> type, Invoker invoker) {
+        if (type == null || !type.isInterface()) {
+            throw new IllegalArgumentException("Not an interface: " + type);
+        }
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (self, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return objectMethod(self, method, args);
+                    }
+                    return fromOro(invoker.invoke(method.getName(), args), method.getReturnType());
+                });
+        return type.cast(proxy);
+    }
+
+    private static Object objectMethod(Object self, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals": return self == args[0];
+            case "hashCode": return System.identityHashCode(self);
+            default: return "<oro proxy " + self.getClass().getInterfaces()[0].getName() + ">";
+        }
+    }
+
+    private static Token identifier(String name) {
+        return new Token(TokenType.IDENTIFIER, name, null, 0, 0);
+    }
+
+    // Narrow Oro doubles to the primitive a proxied interface method declares
+    private static Object fromOro(Object value, Class<?> type) {
+        if (type == void.class) return null;
+        if (!(value instanceof Double)) return value;
+        double number = (Double)value;
+        if (type == int.class || type == Integer.class) return (int)number;
+        if (type == long.class || type == Long.class) return (long)number;
+        if (type == float.class || type == Float.class) return (float)number;
+        if (type == short.class || type == Short.class) return (short)number;
+        if (type == byte.class || type == Byte.class) return (byte)number;
+        return value;
+    }
+
+    private static ScriptException toScriptException(RuntimeError error, ScriptContext context) {
+        int line = error.token != null ? error.token.line : -1;
+        return toScriptException(new Diagnostic(Diagnostic.Kind.RUNTIME, line, -1, "", error.getMessage()), context);
+    }
+
+    private static ScriptException toScriptException(Diagnostic diagnostic, ScriptContext context) {
+        Object file = context.getAttribute(ScriptEngine.FILENAME);
+        return new ScriptException(diagnostic.toString(), file == null ? null : file.toString(),
+                diagnostic.line(), diagnostic.column());
+    }
+
+    private static String read(Reader reader) throws ScriptException {
+        StringBuilder source = new StringBuilder();
+        char[] buffer = new char[8192];
+        try {
+            for (int n; (n = reader.read(buffer)) != -1; ) {
+                source.append(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+        return source.toString();
+    }
+}
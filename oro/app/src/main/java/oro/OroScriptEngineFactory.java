@@ -0,0 +1,92 @@
+package oro;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+
+// Entry point for javax.script. Registered in META-INF/services, so
+// new ScriptEngineManager().getEngineByName("oro") finds it on the classpath.
+public final class OroScriptEngineFactory implements ScriptEngineFactory {
+    private static final String NAME = "Oro";
+    private static final String VERSION = "1.0";
+
+    @Override
+    public String getEngineName() {
+        return NAME;
+    }
+
+    @Override
+    public String getEngineVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of("oro");
+    }
+
+    @Override
+    public List<String> getMimeTypes() {
+        return List.of("application/x-oro", "text/x-oro");
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("oro", "Oro");
+    }
+
+    @Override
+    public String getLanguageName() {
+        return NAME;
+    }
+
+    @Override
+    public String getLanguageVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public Object getParameter(String key) {
+        switch (key) {
+            case ScriptEngine.ENGINE:
+            case ScriptEngine.LANGUAGE:
+            case ScriptEngine.NAME:
+                return NAME;
+            case ScriptEngine.ENGINE_VERSION:
+            case ScriptEngine.LANGUAGE_VERSION:
+                return VERSION;
+            // Evaluations on different contexts may run concurrently; one Bindings
+            // must not be shared by concurrent evaluations
+            case "THREADING":
+                return "MULTITHREADED";
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+        return obj + "." + m + "(" + String.join(", ", args) + ")";
+    }
+
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        // No escape sequences, so pick the quote that does not occur in the text
+        char quote = toDisplay.indexOf('"') >= 0 ? '\'' : '"';
+        return "print " + quote + toDisplay + quote + ";";
+    }
+
+    @Override
+    public String getProgram(String... statements) {
+        return List.of(statements).stream()
+                .map(statement -> statement.endsWith(";") || statement.endsWith("}") ? statement : statement + ";")
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new OroScriptEngine(this);
+    }
+}
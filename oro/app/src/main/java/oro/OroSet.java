@@ -0,0 +1,266 @@
+package oro;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Oro set, created by set(). Members are strings, numbers or booleans, normalized the
+// way OroMap normalizes keys; iteration follows insertion order.
+//
+// Laid out like OroMap without the values: insertion-ordered member and hash arrays
+// indexed by an open-addressing table of int slots. Each member's hash is kept next to
+// it, so a probe compares ints and only calls equals on a hash match, and a rebuild
+// never rehashes. While every member is a string they are kept in a String[], the
+// common case for stop words and dedup, so the equals call on a match is String.equals
+// and nothing else; the first non-string member moves them to an Object[] for good.
+//
+// As with OroMap, adding or removing a member while iterating, other than through the
+// iterator, raises a RuntimeError on the iterator's next step.
+//
+// Like OroMap, a set can share its arrays with one in a global snapshot through
+// sharedCopy(), cloning them before its first write.
+final class OroSet extends AbstractSet<Object> {
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final int MIN_SLOTS = 8;
+
+    // Slot values: EMPTY, DELETED, or member index + 1
+    private int[] slots;
+    // Exactly one member store is in use; removed members are nulled out
+    private String[] strings;
+    private Object[] objects;
+    private int[] hashes;
+    // Members used, including removed ones
+    private int used;
+    private int size;
+    // Slots that are not EMPTY (live plus tombstones), which bounds probe lengths
+    private int filled;
+    // The arrays may be read by another set, so they must be copied before a write
+    private boolean shared;
+    // Members added or removed so far; iterators compare it with the count they started at
+    private int modifications;
+
+    OroSet() {
+        this(0);
+    }
+
+    OroSet(int expected) {
+        int slotCount = MIN_SLOTS;
+        while (slotCount * 2 < expected * 3) slotCount <<= 1;
+        slots = new int[slotCount];
+        int capacity = slotCount * 2 / 3;
+        strings = new String[capacity];
+        hashes = new int[capacity];
+    }
+
+    OroSet(Collection<?> members) {
+        this(members.size());
+        for (Object member : members) add(member);
+    }
+
+    // Checks and normalizes a member the same way map keys are
+    static Object member(Object member) {
+        Object normalized = OroMap.normalize(member);
+        if (normalized == null) {
+            throw new RuntimeError("Set members must be strings, numbers or booleans.");
+        }
+        return normalized;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object member) {
+        Object normalized = OroMap.normalize(member);
+        return normalized != null && find(normalized) >= 0;
+    }
+
+    @Override
+    public boolean add(Object member) {
+        member = member(member);
+        if (shared) unshare();
+        int hash = OroMap.spread(member.hashCode());
+        int mask = slots.length - 1;
+        int tombstone = -1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int index = slots[slot];
+            if (index == EMPTY) {
+                if (tombstone >= 0) {
+                    slot = tombstone;
+                } else {
+                    filled++;
+                }
+                slots[slot] = append(member, hash) + 1;
+                size++;
+                modifications++;
+                if (used == hashes.length || filled * 3 >= slots.length * 2) rebuild();
+                return true;
+            }
+            if (index == DELETED) {
+                if (tombstone < 0) tombstone = slot;
+            } else if (hashes[index - 1] == hash && matches(index - 1, member)) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(Object member) {
+        Object normalized = OroMap.normalize(member);
+        if (normalized == null) return false;
+        if (shared) unshare();
+        int hash = OroMap.spread(normalized.hashCode());
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int index = slots[slot];
+            if (index == EMPTY) return false;
+            if (index != DELETED && hashes[index - 1] == hash && matches(index - 1, normalized)) {
+                slots[slot] = DELETED;
+                if (strings != null) strings[index - 1] = null; else objects[index - 1] = null;
+                size--;
+                modifications++;
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (shared) unshare();
+        Arrays.fill(slots, EMPTY);
+        if (strings != null) Arrays.fill(strings, 0, used, null); else Arrays.fill(objects, 0, used, null);
+        used = 0;
+        size = 0;
+        filled = 0;
+        modifications++;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private int next = skipRemoved(0);
+            private int last = -1;
+            private int expected = modifications;
+
+            @Override
+            public boolean hasNext() {
+                return next < used;
+            }
+
+            @Override
+            public Object next() {
+                if (modifications != expected) {
+                    throw new RuntimeError("Set members were added or removed while looping over the set.");
+                }
+                if (next >= used) throw new NoSuchElementException();
+                last = next;
+                next = skipRemoved(next + 1);
+                return memberAt(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) throw new IllegalStateException();
+                OroSet.this.remove(memberAt(last));
+                expected = modifications;
+                last = -1;
+            }
+        };
+    }
+
+    // A set over the same arrays, marked shared so it copies them before its first
+    // write. This side is left unmarked: it belongs to a frozen snapshot that is never
+    // written again.
+    OroSet sharedCopy() {
+        OroSet copy = new OroSet();
+        copy.slots = slots;
+        copy.strings = strings;
+        copy.objects = objects;
+        copy.hashes = hashes;
+        copy.used = used;
+        copy.size = size;
+        copy.filled = filled;
+        copy.shared = true;
+        return copy;
+    }
+
+    private void unshare() {
+        slots = slots.clone();
+        if (strings != null) strings = strings.clone(); else objects = objects.clone();
+        hashes = hashes.clone();
+        shared = false;
+    }
+
+    // Member index of the normalized member, or -1
+    private int find(Object member) {
+        int hash = OroMap.spread(member.hashCode());
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int index = slots[slot];
+            if (index == EMPTY) return -1;
+            if (index != DELETED && hashes[index - 1] == hash && matches(index - 1, member)) {
+                return index - 1;
+            }
+        }
+    }
+
+    private boolean matches(int index, Object member) {
+        if (strings != null) return member instanceof String && member.equals(strings[index]);
+        return member.equals(objects[index]);
+    }
+
+    private Object memberAt(int index) {
+        return strings != null ? strings[index] : objects[index];
+    }
+
+    private int append(Object member, int hash) {
+        if (strings != null && !(member instanceof String)) generalize();
+        if (strings != null) strings[used] = (String) member; else objects[used] = member;
+        hashes[used] = hash;
+        return used++;
+    }
+
+    private int skipRemoved(int index) {
+        while (index < used && memberAt(index) == null) index++;
+        return index;
+    }
+
+    private void generalize() {
+        objects = Arrays.copyOf(strings, strings.length, Object[].class);
+        strings = null;
+    }
+
+    // Compacts the members and re-slots them, growing when more than half the
+    // capacity is live
+    private void rebuild() {
+        int slotCount = MIN_SLOTS;
+        while (slotCount < size * 3) slotCount <<= 1;
+        int[] newSlots = new int[slotCount];
+        int capacity = slotCount * 2 / 3;
+        String[] newStrings = strings != null ? new String[capacity] : null;
+        Object[] newObjects = strings != null ? null : new Object[capacity];
+        int[] newHashes = new int[capacity];
+        int mask = slotCount - 1;
+        int count = 0;
+        for (int index = 0; index < used; index++) {
+            Object member = memberAt(index);
+            if (member == null) continue;
+            if (newStrings != null) newStrings[count] = (String) member; else newObjects[count] = member;
+            newHashes[count] = hashes[index];
+            int slot = hashes[index] & mask;
+            while (newSlots[slot] != EMPTY) slot = (slot + 1) & mask;
+            newSlots[slot] = ++count;
+        }
+        slots = newSlots;
+        strings = newStrings;
+        objects = newObjects;
+        hashes = newHashes;
+        used = count;
+        filled = count;
+    }
+}
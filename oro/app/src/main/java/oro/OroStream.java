@@ -0,0 +1,280 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// A lazy pipeline, made by stream(x) and extended with methods:
+//   stream(readLines("app.log")).filter(isError).map(extractId).take(10).toArray()
+//
+// filter, map, take and drop only record a stage and return a new stream; nothing is
+// read until a terminal method (toArray, first, any, all, count, reduce, forEach) or a
+// for-in loop pulls from it. Then every stage runs in one fused pass: each source
+// element goes through the whole chain before the next one is read, so there are no
+// intermediate arrays. first, any, all and take stop pulling as soon as the answer is
+// known, and the source (a file from readLines, say) is closed right away.
+//
+// The source is anything for-in accepts. A stream can be run more than once; each
+// run starts a fresh iteration of the source.
+final class OroStream implements Iterable<Object> {
+    private enum Kind { FILTER, MAP, TAKE, DROP }
+
+    private static final class Stage {
+        final Kind kind;
+        final OroCallable fn;
+        final long count;
+
+        Stage(Kind kind, OroCallable fn, long count) {
+            this.kind = kind;
+            this.fn = fn;
+            this.count = count;
+        }
+    }
+
+    // Marks the end of a run; never a value
+    private static final Object END = new Object();
+
+    private final Object source;
+    private final List<Stage> stages;
+    // Runs the stage functions when Java code iterates the stream
+    private final Interpreter interpreter;
+
+    OroStream(Object source, Interpreter interpreter) {
+        this(source, Collections.emptyList(), interpreter);
+    }
+
+    private OroStream(Object source, List<Stage> stages, Interpreter interpreter) {
+        this.source = source;
+        this.stages = stages;
+        this.interpreter = interpreter;
+    }
+
+    // For hosts and other Java callers; for-in loops use iterator(Interpreter)
+    @Override
+    public Iterator<Object> iterator() {
+        return new Run(interpreter);
+    }
+
+    // A run whose stage functions are called on the looping interpreter
+    Iterator<Object> iterator(Interpreter caller) {
+        return new Run(caller);
+    }
+
+    @Override
+    public String toString() {
+        return "<stream>";
+    }
+
+    // The method named by s.name, bound to this stream
+    Object method(Token name) {
+        switch (name.lexeme) {
+            case "filter": return stageMethod(name.lexeme, Kind.FILTER);
+            case "map": return stageMethod(name.lexeme, Kind.MAP);
+            case "take": return stageMethod(name.lexeme, Kind.TAKE);
+            case "drop": return stageMethod(name.lexeme, Kind.DROP);
+            case "toArray": return terminal(name.lexeme, 0);
+            case "first": return terminal(name.lexeme, 0);
+            case "count": return terminal(name.lexeme, 0);
+            case "any": return terminal(name.lexeme, 1);
+            case "all": return terminal(name.lexeme, 1);
+            case "forEach": return terminal(name.lexeme, 1);
+            case "reduce": return terminal(name.lexeme, 2);
+            default: throw new RuntimeError(name, "Streams have no method '" + name.lexeme + "'.");
+        }
+    }
+
+    private OroStream with(Stage stage, Interpreter caller) {
+        List<Stage> extended = new ArrayList<>(stages.size() + 1);
+        extended.addAll(stages);
+        extended.add(stage);
+        return new OroStream(source, extended, caller);
+    }
+
+    private OroCallable stageMethod(String name, Kind kind) {
+        return new OroCallable() {
+            @Override
+            public int arity() { return 1; }
+
+            @Override
+            public Object call(Interpreter caller, List<Object> args) {
+                if (kind == Kind.TAKE || kind == Kind.DROP) {
+                    return with(new Stage(kind, null, count(args.get(0), name)), caller);
+                }
+                return with(new Stage(kind, function(args.get(0), name), 0), caller);
+            }
+
+            @Override
+            public String toString() { return "<stream method " + name + ">"; }
+        };
+    }
+
+    private OroCallable terminal(String name, int arity) {
+        return new OroCallable() {
+            @Override
+            public int arity() { return arity; }
+
+            @Override
+            public Object call(Interpreter caller, List<Object> args) {
+                try (Run run = new Run(caller)) {
+                    switch (name) {
+                        case "toArray": {
+                            OroArray array = new OroArray();
+                            for (Object x; (x = run.pull()) != END; ) array.append(x);
+                            return array;
+                        }
+                        case "first": {
+                            Object x = run.pull();
+                            return x == END ? null : x;
+                        }
+                        case "count": {
+                            double count = 0;
+                            while (run.pull() != END) count++;
+                            return count;
+                        }
+                        case "any": {
+                            OroCallable fn = function(args.get(0), name);
+                            for (Object x; (x = run.pull()) != END; ) {
+                                if (Interpreter.isTruthy(ArrayFunctions.apply(caller, fn, x))) return true;
+                            }
+                            return false;
+                        }
+                        case "all": {
+                            OroCallable fn = function(args.get(0), name);
+                            for (Object x; (x = run.pull()) != END; ) {
+                                if (!Interpreter.isTruthy(ArrayFunctions.apply(caller, fn, x))) return false;
+                            }
+                            return true;
+                        }
+                        case "forEach": {
+                            OroCallable fn = function(args.get(0), name);
+                            for (Object x; (x = run.pull()) != END; ) ArrayFunctions.apply(caller, fn, x);
+                            return null;
+                        }
+                        default: {
+                            OroCallable fn = function(args.get(0), 2, name);
+                            Object accumulator = args.get(1);
+                            for (Object x; (x = run.pull()) != END; ) {
+                                accumulator = ArrayFunctions.apply(caller, fn, accumulator, x);
+                            }
+                            return accumulator;
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public String toString() { return "<stream method " + name + ">"; }
+        };
+    }
+
+    // One pass over the source through every stage
+    private final class Run implements Iterator<Object>, AutoCloseable {
+        private final Interpreter caller;
+        private final Iterator<Object> input;
+        // Elements taken or dropped so far, per stage
+        private final long[] counts = new long[stages.size()];
+        private boolean stopped;
+        private Object next = END;
+
+        Run(Interpreter caller) {
+            this.caller = caller;
+            this.input = IterationFunctions.iterator(source, caller);
+            for (Stage stage : stages) {
+                if (stage.kind == Kind.TAKE && stage.count == 0) stopped = true;
+            }
+        }
+
+        // The next element out of the last stage, or END
+        Object pull() {
+            if (next != END) {
+                Object x = next;
+                next = END;
+                return x;
+            }
+            BudgetMeter meter = caller.meter();
+            elements:
+            while (!stopped && input.hasNext()) {
+                // Filtered and dropped elements never reach the loop's own step
+                if (meter != null) meter.step();
+                Object x = input.next();
+                for (int i = 0; i < counts.length; i++) {
+                    Stage stage = stages.get(i);
+                    switch (stage.kind) {
+                        case FILTER:
+                            if (!Interpreter.isTruthy(ArrayFunctions.apply(caller, stage.fn, x))) continue elements;
+                            break;
+                        case MAP:
+                            x = ArrayFunctions.apply(caller, stage.fn, x);
+                            break;
+                        case DROP:
+                            if (counts[i] < stage.count) {
+                                counts[i]++;
+                                continue elements;
+                            }
+                            break;
+                        case TAKE:
+                            // Nothing after the last taken element can get through, so
+                            // the source is not read again
+                            if (++counts[i] == stage.count) stopped = true;
+                            break;
+                    }
+                }
+                return x;
+            }
+            close();
+            return END;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == END) next = pull();
+            return next != END;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Object x = next;
+            next = END;
+            return x;
+        }
+
+        @Override
+        public void close() {
+            stopped = true;
+            if (input instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) input).close();
+                } catch (Exception e) {
+                    // Closing only releases the source
+                }
+            }
+        }
+    }
+
+    private static OroCallable function(Object fn, String name) {
+        return function(fn, 1, name);
+    }
+
+    private static OroCallable function(Object fn, int arity, String name) {
+        if (!(fn instanceof OroCallable)) {
+            throw new RuntimeError("stream." + name + ": argument must be a function.");
+        }
+        OroCallable callable = (OroCallable) fn;
+        if (callable.arity() >= 0 && callable.arity() != arity) {
+            throw new RuntimeError("stream." + name + ": function must take " + arity + " argument"
+                    + (arity == 1 ? "." : "s."));
+        }
+        return callable;
+    }
+
+    private static long count(Object n, String name) {
+        if (!(n instanceof Number) || ((Number) n).doubleValue() < 0
+                || ((Number) n).doubleValue() != Math.floor(((Number) n).doubleValue())) {
+            throw new RuntimeError("stream." + name + ": argument must be a whole number of at least 0.");
+        }
+        return ((Number) n).longValue();
+    }
+}
@@ -0,0 +1,70 @@
+package oro;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Value returned by spawn(): a function call running on its own virtual thread with its
+// own interpreter. await() blocks until it finishes and returns its result or rethrows
+// its error.
+class OroTask {
+    private final String name;
+    private final FutureTask<Object> future;
+
+    OroTask(Interpreter interpreter, OroCallable function, List<Object> arguments) {
+        this.name = function.toString();
+        this.future = new FutureTask<>(() -> {
+            try {
+                return function.call(interpreter, arguments);
+            } finally {
+                // Tasks spawned by this task finish before it does
+                interpreter.closeTasks();
+            }
+        });
+    }
+
+    void start() {
+        Thread.ofVirtual().name("oro-task " + name).start(future);
+    }
+
+    Object await() {
+        return await(null);
+    }
+
+    // Waits no longer than the run's deadline, if the meter has one
+    Object await(BudgetMeter meter) {
+        try {
+            while (true) {
+                long left = BudgetMeter.nanosLeft(meter);
+                if (left == Long.MAX_VALUE) return future.get();
+                try {
+                    return future.get(left, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // nanosLeft reports the overrun
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeError) throw (RuntimeError) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RuntimeError("Task " + name + " failed: " + cause);
+        } catch (CancellationException e) {
+            throw new RuntimeError("Task " + name + " was cancelled.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeError("Interrupted while awaiting " + name + ".");
+        }
+    }
+
+    void cancel() {
+        future.cancel(true);
+    }
+
+    @Override
+    public String toString() {
+        return "<task " + name + (future.isDone() ? " done>" : " running>");
+    }
+}
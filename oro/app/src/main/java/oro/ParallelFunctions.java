@@ -0,0 +1,207 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+// pmap, pfilter and preduce: data-parallel versions of the usual collection helpers.
+//
+// The array is split into index ranges that run on the common ForkJoinPool. Ranges are
+// halved until they are small or the pool already has queued work to steal, and each
+// range runs on its own interpreter that shares the caller's globals and output.
+//
+// Sharing rules:
+//  - A function that assigns to a variable declared outside itself (a global or a
+//    captured local) is rejected, since those writes would race. Return values instead.
+//    This holds for everything the function calls too, checked as each call is made;
+//    functions declared while the worker runs may assign to that worker's variables.
+//  - Reading globals and captured variables is fine.
+//  - Mutating a shared array, map or instance (append, a[i] = x, obj.f = x) is not
+//    synchronized; results are undefined if two elements touch the same container.
+//  - preduce combines partial results in unspecified groupings, so fn must be
+//    associative and init must be its identity (0 for +, "" for string concatenation).
+//  - Tasks spawned by fn finish before the call returns, and a failure nobody awaited
+//    fails the call, as it would for the script itself.
+public class ParallelFunctions {
+    // Ranges at or below this many elements are never split further
+    private static final int MIN_GRAIN = 16;
+
+    public static void registerAll(Environment globals) {
+        globals.define("pmap", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                List<Object> elements = elements(args.get(0), "pmap");
+                OroCallable fn = function(args.get(1), 1, "pmap");
+                Object[] results = new Object[elements.size()];
+                run(interpreter, elements, new RangeAction<Void>() {
+                    Void apply(Interpreter worker, int from, int to) {
+                        for (int i = from; i < to; i++) {
+                            results[i] = fn.call(worker, Arrays.asList(elements.get(i)));
+                        }
+                        return null;
+                    }
+
+                    Void combine(Void left, Void right) { return null; }
+                });
+                return new OroArray(Arrays.asList(results));
+            }
+
+            @Override
+            public String toString() { return "<native fun pmap>"; }
+        });
+
+        globals.define("pfilter", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                List<Object> elements = elements(args.get(0), "pfilter");
+                OroCallable fn = function(args.get(1), 1, "pfilter");
+                List<Object> kept = run(interpreter, elements, new RangeAction<List<Object>>() {
+                    List<Object> apply(Interpreter worker, int from, int to) {
+                        List<Object> part = new ArrayList<>();
+                        for (int i = from; i < to; i++) {
+                            Object element = elements.get(i);
+                            if (Interpreter.isTruthy(fn.call(worker, Arrays.asList(element)))) {
+                                part.add(element);
+                            }
+                        }
+                        return part;
+                    }
+
+                    List<Object> combine(List<Object> left, List<Object> right) {
+                        left.addAll(right);
+                        return left;
+                    }
+                });
+                return new OroArray(kept);
+            }
+
+            @Override
+            public String toString() { return "<native fun pfilter>"; }
+        });
+
+        globals.define("preduce", new OroCallable() {
+            @Override
+            public int arity() { return 3; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                List<Object> elements = elements(args.get(0), "preduce");
+                OroCallable fn = function(args.get(1), 2, "preduce");
+                Object init = args.get(2);
+                if (elements.isEmpty()) return init;
+
+                return run(interpreter, elements, new RangeAction<Object>() {
+                    Object apply(Interpreter worker, int from, int to) {
+                        Object accumulator = init;
+                        for (int i = from; i < to; i++) {
+                            accumulator = fn.call(worker, Arrays.asList(accumulator, elements.get(i)));
+                        }
+                        return accumulator;
+                    }
+
+                    Object combine(Object left, Object right) {
+                        return onWorker(interpreter, worker -> fn.call(worker, Arrays.asList(left, right)));
+                    }
+                });
+            }
+
+            @Override
+            public String toString() { return "<native fun preduce>"; }
+        });
+    }
+
+    private abstract static class RangeAction<R> {
+        abstract R apply(Interpreter worker, int from, int to);
+        abstract R combine(R left, R right);
+    }
+
+    private static <R> R run(Interpreter caller, List<Object> elements, RangeAction<R> action) {
+        // Forked globals copy snapshot values on first read; do it all now so the
+        // workers only ever read the shared scope
+        caller.globals.materialize();
+
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        int grain = Math.max(MIN_GRAIN, elements.size() / (parallelism * 8));
+        return ForkJoinPool.commonPool().invoke(new RangeTask<>(caller, action, 0, elements.size(), grain));
+    }
+
+    private static class RangeTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Interpreter caller;
+        private final transient RangeAction<R> action;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RangeTask(Interpreter caller, RangeAction<R> action, int from, int to, int grain) {
+            this.caller = caller;
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected R compute() {
+            // Stop splitting once idle workers already have queued ranges to steal
+            if (to - from > grain && getSurplusQueuedTaskCount() <= 2) {
+                int middle = (from + to) >>> 1;
+                RangeTask<R> right = new RangeTask<>(caller, action, middle, to, grain);
+                right.fork();
+                R left = new RangeTask<>(caller, action, from, middle, grain).compute();
+                return action.combine(left, right.join());
+            }
+
+            return onWorker(caller, worker -> action.apply(worker, from, to));
+        }
+    }
+
+    // Runs body on a fresh worker. Tasks the body spawned are joined before the range
+    // counts as done, so their failures reach the caller; if the body fails they are
+    // cancelled instead.
+    private static <R> R onWorker(Interpreter caller, Function<Interpreter, R> body) {
+        Interpreter worker = caller.parallelWorker();
+        R result;
+        try {
+            result = body.apply(worker);
+        } catch (RuntimeException e) {
+            worker.cancelTasks();
+            throw e;
+        }
+        worker.closeTasks();
+        return result;
+    }
+
+    private static List<Object> elements(Object array, String name) {
+        if (!(array instanceof OroArray)) {
+            throw new RuntimeError(name + ": first argument must be an array.");
+        }
+        return ((OroArray) array).getArray();
+    }
+
+    private static OroCallable function(Object fn, int arity, String name) {
+        if (!(fn instanceof OroCallable)) {
+            throw new RuntimeError(name + ": second argument must be a function.");
+        }
+        OroCallable callable = (OroCallable) fn;
+        if (callable.arity() != arity) {
+            throw new RuntimeError(name + ": function must take " + arity + " argument"
+                    + (arity == 1 ? "." : "s."));
+        }
+        if (callable instanceof OroFunction && ((OroFunction) callable).assignsOuterVariables()) {
+            throw new RuntimeError(name + ": " + callable + " assigns to a variable outside itself, "
+                    + "which would race between threads. Return values instead.");
+        }
+        return callable;
+    }
+}
@@ -10,10 +10,12 @@ class Parser {
   private static class ParseError extends RuntimeException {private static final long serialVersionUID = 1L;}
 
   private final List<Token> tokens;
+  private final Diagnostics diagnostics;
   private int current = 0;
 
-  Parser(List<Token> tokens) {
+  Parser(List<Token> tokens, Diagnostics diagnostics) {
     this.tokens = tokens;
+    this.diagnostics = diagnostics;
   }
 
   List<Stmt> parse() {
@@ -31,10 +33,11 @@ class Parser {
   }
 
     private Stmt declaration() {
+    int line = peek().line;
     try {
-      if (match(CLASS)) return classDeclaration();
-      if (match(FUN)) return function("function");
-      if (match(DEF)) return varDeclaration();
+      if (match(CLASS)) return at(line, classDeclaration());
+      if (match(FUN)) return at(line, function("function"));
+      if (match(DEF)) return at(line, varDeclaration());
 
       return statement();
     } catch (ParseError error) {
@@ -66,18 +69,29 @@ class Parser {
   }
 
   private Stmt statement() {
-    if (match(FOR)) return forStatement();
-    if (match(IF)) return ifStatement();
-    if (match(PRINT)) return printStatement();
-    if (match(RETURN)) return returnStatement();
-    if (match(WHILE)) return whileStatement();
-    if (match(LEFT_BRACE)) return new Stmt.Block(block());
+    int line = peek().line;
+    if (match(FOR)) return at(line, forStatement());
+    if (match(IF)) return at(line, ifStatement());
+    if (match(PRINT)) return at(line, printStatement());
+    if (match(RETURN)) return at(line, returnStatement());
+    if (match(WHILE)) return at(line, whileStatement());
+    if (match(YIELD)) return at(line, yieldStatement());
+    if (match(LEFT_BRACE)) return at(line, new Stmt.Block(block()));
 
-    return expressionStatement();
+    return at(line, expressionStatement());
+  }
+
+  // Record the source line a statement starts on
+  private Stmt at(int line, Stmt stmt) {
+    stmt.line = line;
+    return stmt;
   }
 
   private Stmt forStatement() {
+    // for x in xs body, or for (x in xs) body
+    if (check(IDENTIFIER) && checkNext(IN)) return forInStatement(false);
     consume(LEFT_PAREN, "Expect '(' after 'for'.");
+    if (check(IDENTIFIER) && checkNext(IN)) return forInStatement(true);
 
     // Variable initialization
     Stmt initializer;
@@ -118,6 +132,15 @@ class Parser {
     return body;
   }
 
+  private Stmt forInStatement(boolean parenthesized) {
+    Token name = consume(IDENTIFIER, "Expect loop variable name.");
+    consume(IN, "Expect 'in' after loop variable.");
+    Expr iterable = expression();
+    if (parenthesized) consume(RIGHT_PAREN, "Expect ')' after for clauses.");
+    Stmt body = statement();
+    return new Stmt.ForIn(name, iterable, body);
+  }
+
   private Stmt ifStatement() {
     consume(LEFT_PAREN, "Expect '(' after 'if'.");
     Expr condition = expression();
@@ -149,6 +172,18 @@ class Parser {
     return new Stmt.Return(keyword, value);
   }
 
+  // yield value; or yield; which yields null
+  private Stmt yieldStatement() {
+    Token keyword = previous();
+    Expr value = null;
+    if (!check(SEMICOLON)) {
+      value = expression();
+    }
+
+    consume(SEMICOLON, "Expect ';' after yield value.");
+    return new Stmt.Yield(keyword, value);
+  }
+
   private Stmt varDeclaration() {
     Token name = consume(IDENTIFIER, "Expect variable name.");
 
@@ -172,7 +207,8 @@ class Parser {
 
   private Stmt expressionStatement() {
     Expr expr = expression();
-    consume(SEMICOLON, "Expect ';' after expression.");
+    // The last statement of a source may omit it, so embedders can eval "a + b"
+    if (!isAtEnd()) consume(SEMICOLON, "Expect ';' after expression.");
     return new Stmt.Expression(expr);
   }
 
@@ -229,6 +265,10 @@ class Parser {
 
       else if (expr instanceof Expr.Index) {
         Expr.Index indexExpr = (Expr.Index) expr;
+        if (indexExpr.colon != null) {
+          error(equals, "Can't assign to a slice.");
+          return expr;
+        }
         return new Expr.IndexAssign(indexExpr.array, indexExpr.index, equals, value);
       }
 
@@ -278,7 +318,7 @@ class Parser {
   private Expr comparison() {
     Expr expr = term();
 
-    while (match(GREATER, GREATER_EQUAL, LESS, LESS_EQUAL)) {
+    while (match(GREATER, GREATER_EQUAL, LESS, LESS_EQUAL, IN)) {
       Token operator = previous();
       Expr right = term();
       expr = new Expr.Binary(expr, operator, right);
@@ -359,9 +399,9 @@ class Parser {
 
   // Helper method to parse sub-expressions
   private Expr parseExpression(String expression) {
-      Scanner subScanner = new Scanner(expression);
+      Scanner subScanner = new Scanner(expression, diagnostics);
       List<Token> tokens = subScanner.scanTokens();
-      Parser subParser = new Parser(tokens);
+      Parser subParser = new Parser(tokens, diagnostics);
       return subParser.parseSingleExpression();
   }
 
@@ -396,9 +436,17 @@ class Parser {
           Token name = consume(IDENTIFIER, "Expect property name after '.'.");
           expr = new Expr.Get(expr, name);
       } else if (match(LEFT_BRACKET)){
-          Expr index = expression(); // Parse the index inside [ ]
-          consume(RIGHT_BRACKET, "Expect ']' after index.");
-          expr = new Expr.Index(expr, index);
+          // a[i], or a slice a[i:j] where either bound may be left out
+          Expr index = check(COLON) ? null : expression();
+          if (match(COLON)) {
+              Token colon = previous();
+              Expr end = check(RIGHT_BRACKET) ? null : expression();
+              consume(RIGHT_BRACKET, "Expect ']' after slice.");
+              expr = new Expr.Index(expr, index, colon, end);
+          } else {
+              consume(RIGHT_BRACKET, "Expect ']' after index.");
+              expr = new Expr.Index(expr, index);
+          }
       }
         else {
         break;
@@ -420,6 +468,23 @@ class Parser {
         return new Expr.ArrayLiteral(elements);
     }
 
+    // In expression position '{' starts a map literal; keys are expressions
+    if (match(LEFT_BRACE)) {
+        Token brace = previous();
+        List<Expr> keys = new ArrayList<>();
+        List<Expr> values = new ArrayList<>();
+        if (!check(RIGHT_BRACE)) {
+            do {
+                if (check(RIGHT_BRACE)) break; // Trailing comma
+                keys.add(expression());
+                consume(COLON, "Expect ':' after map key.");
+                values.add(expression());
+            } while (match(COMMA));
+        }
+        consume(RIGHT_BRACE, "Expect '}' after map entries.");
+        return new Expr.MapLiteral(brace, keys, values);
+    }
+
     if (match(FALSE)) return new Expr.Literal(false);
     if (match(TRUE)) return new Expr.Literal(true);
     if (match(NULL)) return new Expr.Literal(null);
@@ -478,6 +543,11 @@ class Parser {
     return peek().type == type;
   }
 
+  private boolean checkNext(TokenType type) {
+    if (current + 1 >= tokens.size()) return false;
+    return tokens.get(current + 1).type == type;
+  }
+
   private Token advance() {
     if (!isAtEnd()) current++;
     return previous();
@@ -500,7 +570,7 @@ class Parser {
     while (token.column == 0) {
       token.column = tokens.get(current - i).column;
     }
-    Oro.error(token, message);
+    diagnostics.error(token, message);
     return new ParseError();
   }
 
@@ -521,6 +591,7 @@ class Parser {
         case WHILE:
         case PRINT:
         case RETURN:
+        case YIELD:
           return;
       }
 
@@ -0,0 +1,152 @@
+package oro;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+// Sampling profiler behind `oro --profile`. A daemon thread wakes up every interval and
+// records the Oro call stack of every profiled interpreter (the script and any pmap
+// workers or spawned tasks). The interpreters only maintain their CallStack; all
+// counting happens on the sampler thread.
+//
+// Each sample is worth one interval of time. Self time goes to the innermost frame and
+// its current line; total time goes to every distinct function and line on the stack.
+// Parallel workers are sampled too, so totals can add up to more than wall time.
+class Profiler {
+    private static final int MAX_FRAMES = 1024;
+
+    private final long intervalNanos;
+    private final Set<CallStack> stacks = Collections.newSetFromMap(new WeakHashMap<>());
+    private final Thread sampler;
+    private volatile boolean running = true;
+
+    // Only touched by the sampler thread until stop() has joined it
+    private final Map<String, long[]> functions = new HashMap<>();
+    private final Map<String, long[]> lines = new HashMap<>();
+    private final Map<String, long[]> collapsed = new HashMap<>();
+    private long samples = 0;
+
+    Profiler(double intervalMillis) {
+        this.intervalNanos = Math.max(10_000L, (long) (intervalMillis * 1_000_000));
+        this.sampler = new Thread(this::sampleLoop, "oro-profiler");
+        sampler.setDaemon(true);
+    }
+
+    void start() {
+        sampler.start();
+    }
+
+    CallStack register() {
+        CallStack stack = new CallStack();
+        synchronized (stacks) {
+            stacks.add(stack);
+        }
+        return stack;
+    }
+
+    void stop() {
+        running = false;
+        LockSupport.unpark(sampler);
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sampleLoop() {
+        String[] names = new String[MAX_FRAMES];
+        int[] frameLines = new int[MAX_FRAMES];
+        List<CallStack> current = new ArrayList<>();
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            current.clear();
+            synchronized (stacks) {
+                current.addAll(stacks);
+            }
+            for (CallStack stack : current) {
+                int depth = stack.sample(names, frameLines);
+                if (depth > 0) record(names, frameLines, depth);
+            }
+        }
+    }
+
+    private void record(String[] names, int[] frameLines, int depth) {
+        samples++;
+        Set<String> seenFunctions = new HashSet<>();
+        Set<String> seenLines = new HashSet<>();
+        StringBuilder stack = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            String name = names[i] == null ? "?" : names[i];
+            String line = name + ":" + frameLines[i];
+            if (seenFunctions.add(name)) counter(functions, name)[1]++;
+            if (seenLines.add(line)) counter(lines, line)[1]++;
+            if (i > 0) stack.append(';');
+            stack.append(name.replace(';', ','));
+        }
+        String top = names[depth - 1] == null ? "?" : names[depth - 1];
+        counter(functions, top)[0]++;
+        counter(lines, top + ":" + frameLines[depth - 1])[0]++;
+        counter(collapsed, stack.toString())[0]++;
+    }
+
+    private static long[] counter(Map<String, long[]> counts, String key) {
+        return counts.computeIfAbsent(key, k -> new long[2]);
+    }
+
+    // Writes <base>.profile.txt (self/total per function and per line) and
+    // <base>.collapsed (one "frame;frame;frame count" line per distinct stack, the
+    // input format of flamegraph.pl and speedscope)
+    void write(Path base) throws IOException {
+        Path report = base.resolveSibling(base.getFileName() + ".profile.txt");
+        Path stacksFile = base.resolveSibling(base.getFileName() + ".collapsed");
+        double intervalMillis = intervalNanos / 1_000_000.0;
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(report, StandardCharsets.UTF_8))) {
+            out.printf("Oro profile: %d samples every %.3f ms%n%n", samples, intervalMillis);
+            table(out, "Function", functions, intervalMillis);
+            out.println();
+            table(out, "Line (function:line)", lines, intervalMillis);
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(stacksFile, StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, long[]> entry : sorted(collapsed)) {
+                out.println(entry.getKey() + " " + entry.getValue()[0]);
+            }
+        }
+        System.err.println("Profile written to " + report + " and " + stacksFile);
+    }
+
+    private void table(PrintWriter out, String title, Map<String, long[]> counts, double intervalMillis) {
+        out.printf("%-40s %12s %8s %12s %8s%n", title, "self ms", "self %", "total ms", "total %");
+        for (Map.Entry<String, long[]> entry : sorted(counts)) {
+            long self = entry.getValue()[0];
+            long total = entry.getValue()[1];
+            out.printf("%-40s %12.1f %7.1f%% %12.1f %7.1f%%%n", entry.getKey(),
+                    self * intervalMillis, percent(self), total * intervalMillis, percent(total));
+        }
+    }
+
+    private double percent(long count) {
+        return samples == 0 ? 0 : 100.0 * count / samples;
+    }
+
+    // Highest self count first, then highest total
+    private static List<Map.Entry<String, long[]>> sorted(Map<String, long[]> counts) {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> a.getValue()[0] != b.getValue()[0]
+                ? Long.compare(b.getValue()[0], a.getValue()[0])
+                : Long.compare(b.getValue()[1], a.getValue()[1]));
+        return entries;
+    }
+}
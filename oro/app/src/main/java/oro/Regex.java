@@ -13,7 +13,12 @@ public class Regex {
         this.pattern = Pattern.compile(regex);
     }
 
-    public boolean matches(String text) {
+    // For callers that search many inputs with one matcher, resetting it for each
+    Matcher matcher(CharSequence text) {
+        return pattern.matcher(text);
+    }
+
+    public boolean matches(CharSequence text) {
         try{
             return pattern.matcher(text).matches();
         }
@@ -22,7 +27,7 @@ public class Regex {
         }
     }
 
-    public List<String> find(String text) {
+    public List<String> find(CharSequence text) {
         try{
 
         List<String> matches = new ArrayList<>();
@@ -37,7 +42,7 @@ public class Regex {
         }
     }
 
-    public List<String> find(String text, int limit) {
+    public List<String> find(CharSequence text, int limit) {
         try{
             List<String> matches = new ArrayList<>();
             Matcher matcher = pattern.matcher(text);
@@ -53,7 +58,7 @@ public class Regex {
         }
     }
 
-    public String replace(String text, String replacement) {
+    public String replace(CharSequence text, String replacement) {
         try{
             return pattern.matcher(text).replaceAll(replacement);
         }
@@ -62,7 +67,7 @@ public class Regex {
         }
     }
 
-    public String replace(String text, String replacement, int limit) {
+    public String replace(CharSequence text, String replacement, int limit) {
         try {
             Matcher matcher = pattern.matcher(text);
             StringBuffer sb = new StringBuffer();
@@ -78,7 +83,7 @@ public class Regex {
         }
     }
 
-    public static boolean match(String regex, String text) {
+    public static boolean match(String regex, CharSequence text) {
         try{
             return Pattern.matches(regex, text);
         }
@@ -87,7 +92,7 @@ public class Regex {
         }
     }
 
-    public static List<String> findAll(String regex, String text) {
+    public static List<String> findAll(String regex, CharSequence text) {
         try{
             return new Regex(regex).find(text);
         }
@@ -96,7 +101,7 @@ public class Regex {
         }
     }
 
-    public static String replaceAll(String regex, String replacement, String text) {
+    public static String replaceAll(String regex, String replacement, CharSequence text) {
         try{
             return new Regex(regex).replace(text, replacement);
         }
@@ -1,25 +1,33 @@
 package oro;
 
 import java.util.List;
+import java.util.regex.Matcher;
 
 public class RegexFunctions {
 
-    public static void registerAll(Interpreter interpreter) {
-        interpreter.globals.define("regex_match", new OroCallable() {
+    public static void registerAll(Environment globals) {
+        globals.define("regex_match", new OroCallable() {
+            @Override
+            public boolean acceptsViews() { return true; }
+
             @Override
             public int arity() { return 2; }
 
             @Override
             public Object call(Interpreter interpreter, List<Object> args) {
                 checkArgCount(args, 2, "regex_match(pattern, input)");
-                return new Regex(args.get(0).toString()).matches(args.get(1).toString());
+                interpreter.stats().regexCompiled();
+                return new Regex(args.get(0).toString()).matches(text(args.get(1)));
             }
 
             @Override
             public String toString() { return "<regex function regex_match>"; }
         });
 
-        interpreter.globals.define("regex_find", new OroCallable() {
+        globals.define("regex_find", new OroCallable() {
+            @Override
+            public boolean acceptsViews() { return true; }
+
             @Override
             public int arity() { return 3; }
 
@@ -33,8 +41,9 @@ public class RegexFunctions {
                     pattern = patternName;
                 }
 
-                String input = args.get(1).toString();
+                CharSequence input = text(args.get(1));
                 int limit = ((Double) args.get(2)).intValue(); // Convert limit to integer
+                interpreter.stats().regexCompiled();
                 return new Regex(pattern).find(input, limit);
             }
 
@@ -42,7 +51,10 @@ public class RegexFunctions {
             public String toString() { return "<regex function regex_find>"; }
         });
 
-        interpreter.globals.define("regex_find_all", new OroCallable() {
+        globals.define("regex_find_all", new OroCallable() {
+            @Override
+            public boolean acceptsViews() { return true; }
+
             @Override
             public int arity() { return 2; }
 
@@ -55,7 +67,8 @@ public class RegexFunctions {
                     pattern = patternName;
                 }
 
-                String text = args.get(1).toString();
+                CharSequence text = text(args.get(1));
+                interpreter.stats().regexCompiled();
                 return Regex.findAll(pattern, text);
             }
 
@@ -63,7 +76,10 @@ public class RegexFunctions {
             public String toString() { return "<regex function regex_find_all>"; }
         });
 
-        interpreter.globals.define("regex_replace", new OroCallable() {
+        globals.define("regex_replace", new OroCallable() {
+            @Override
+            public boolean acceptsViews() { return true; }
+
             @Override
             public int arity() { return 4; }
 
@@ -77,8 +93,9 @@ public class RegexFunctions {
                 }
 
                 String replacement = args.get(1).toString();
-                String input = args.get(2).toString();
+                CharSequence input = text(args.get(2));
                 int limit = ((Double) args.get(3)).intValue();
+                interpreter.stats().regexCompiled();
                 return new Regex(pattern).replace(input, replacement, limit);
             }
 
@@ -86,7 +103,10 @@ public class RegexFunctions {
             public String toString() { return "<regex function regex_replace>"; }
         });
 
-        interpreter.globals.define("regex_replace_all", new OroCallable() {
+        globals.define("regex_replace_all", new OroCallable() {
+            @Override
+            public boolean acceptsViews() { return true; }
+
             @Override
             public int arity() { return 3; }
 
@@ -101,13 +121,54 @@ public class RegexFunctions {
                 }
 
                 String replacement = args.get(1).toString();
-                String input = args.get(2).toString();
+                CharSequence input = text(args.get(2));
                 return Regex.replaceAll(pattern, replacement, input);
             }
 
             @Override
             public String toString() { return "<regex function regex_replace_all>"; }
         });
+
+        // regex_filter(pattern, lines): the lines the pattern is found in, as a line table
+        // for a line table (searched without decoding its ASCII lines) or an array for an array
+        globals.define("regex_filter", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                checkArgCount(args, 2, "regex_filter(pattern, lines)");
+                String patternName = args.get(0).toString();
+                String pattern = RegexPatterns.getPattern(patternName);
+                if (pattern == null) {
+                    pattern = patternName;
+                }
+
+                interpreter.stats().regexCompiled();
+                Regex regex = new Regex(pattern);
+                Object lines = args.get(1);
+                if (lines instanceof LineTable) {
+                    return ((LineTable) lines).filter(regex);
+                }
+                if (!(lines instanceof OroArray)) {
+                    throw new RuntimeError("regex_filter: second argument must be a line table or an array.");
+                }
+                Matcher matcher = regex.matcher("");
+                OroArray kept = new OroArray();
+                for (Object line : ((OroArray) lines).getArray()) {
+                    if (matcher.reset(text(line)).find()) kept.append(line);
+                }
+                return kept;
+            }
+
+            @Override
+            public String toString() { return "<regex function regex_filter>"; }
+        });
+    }
+
+    // Inputs are read in place, so a string slice is searched without being copied
+    private static CharSequence text(Object value) {
+        return value instanceof CharSequence ? (CharSequence) value : value.toString();
     }
 
     private static void checkArgCount(List<Object> args, int expected, String usage) {
@@ -1,18 +1,22 @@
 package oro;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 public class RegexPatterns {
-    private static final Map<String, String> namedPatterns = new HashMap<>();
+    // Immutable, so lookups are safe from any number of concurrently running scripts
+    private static final Map<String, String> namedPatterns;
 
     static {
-        namedPatterns.put("USPhoneNumber", "((\\(\\d{3}\\) ?)|(\\d{3}-))?\\d{3}-\\d{4}"); 
-        namedPatterns.put("USSSN", "\\d{3}-\\d{2}-\\d{4}"); 
-        namedPatterns.put("Email", "[A-Za-z0-9\\._%+\\-]+@[A-Za-z0-9\\.\\-]+\\.[A-Za-z]{2,}"); // Example: test@example.com
-        namedPatterns.put("Address", "(\\d{1,}) [a-zA-Z0-9\s]+(\\,)? [a-zA-Z]+(\\,)? [A-Z]{2} [0-9]{5,6}"); 
-        namedPatterns.put("CreditCardNumber", "\\b(?:\\d[ -]*?){13,16}\\b"); 
-        namedPatterns.put("USDollarAmount", "\\$?\\s*(?:\\d{1,3}(?:,\\d{3})+|\\d+)(?:\\.\\d{1,2})?");
+        Map<String, String> patterns = new HashMap<>();
+        patterns.put("USPhoneNumber", "((\\(\\d{3}\\) ?)|(\\d{3}-))?\\d{3}-\\d{4}"); 
+        patterns.put("USSSN", "\\d{3}-\\d{2}-\\d{4}"); 
+        patterns.put("Email", "[A-Za-z0-9\\._%+\\-]+@[A-Za-z0-9\\.\\-]+\\.[A-Za-z]{2,}"); // Example: test@example.com
+        patterns.put("Address", "(\\d{1,}) [a-zA-Z0-9\s]+(\\,)? [a-zA-Z]+(\\,)? [A-Z]{2} [0-9]{5,6}"); 
+        patterns.put("CreditCardNumber", "\\b(?:\\d[ -]*?){13,16}\\b"); 
+        patterns.put("USDollarAmount", "\\$?\\s*(?:\\d{1,3}(?:,\\d{3})+|\\d+)(?:\\.\\d{1,2})?");
+        namedPatterns = Collections.unmodifiableMap(patterns);
     }
 
     // Get the regex pattern by name
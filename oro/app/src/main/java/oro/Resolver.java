@@ -2,19 +2,23 @@
 
 package oro;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
 class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
-  private final Interpreter interpreter;
+  private final Diagnostics diagnostics;
   // Each element represents block scope 
   private final Stack<Map<String, Boolean>> scopes = new Stack<>();
   private FunctionType currentFunction = FunctionType.NONE;
+  // Functions being resolved, innermost last, with the index of their parameter scope
+  private final List<Stmt.Function> functions = new ArrayList<>();
+  private final List<Integer> functionScopes = new ArrayList<>();
 
-  Resolver(Interpreter interpreter) {
-    this.interpreter = interpreter;
+  Resolver(Diagnostics diagnostics) {
+    this.diagnostics = diagnostics;
   }
 
   private enum FunctionType {
@@ -42,6 +46,7 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
  @Override
  public Void visitClassStmt(Stmt.Class stmt) {
+  reachesOutside();
   ClassType enclosingClass = currentClass;
   currentClass = ClassType.CLASS; 
   
@@ -49,7 +54,7 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
    define(stmt.name);
 
    if (stmt.superclass != null && stmt.name.lexeme.equals(stmt.superclass.name.lexeme)) {
-      Oro.error(stmt.superclass.name,
+      diagnostics.error(stmt.superclass.name,
           "A class cannot inherit from itself.");
     }
 
@@ -91,6 +96,7 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
  @Override
  public Void visitFunctionStmt(Stmt.Function stmt) {
+   reachesOutside();
    declare(stmt.name);
    define(stmt.name);
 
@@ -108,6 +114,7 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
  @Override
  public Void visitPrintStmt(Stmt.Print stmt) {
+   reachesOutside();
    resolve(stmt.expression);
    return null;
  }
@@ -115,12 +122,12 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
  @Override
  public Void visitReturnStmt(Stmt.Return stmt) {
     if (currentFunction == FunctionType.NONE) {
-        Oro.error(stmt.keyword, "Can't return from outside of function.");
+        diagnostics.error(stmt.keyword, "Can't return from outside of function.");
     }
 
    if (stmt.value != null) {
     if (currentFunction == FunctionType.INITIALIZER) {
-      Oro.error(stmt.keyword, "Can't return a value from an initializer.");
+      diagnostics.error(stmt.keyword, "Can't return a value from an initializer.");
     }
      resolve(stmt.value);
    }
@@ -145,14 +152,62 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
    return null;
  }
 
+ @Override
+ public Void visitForInStmt(Stmt.ForIn stmt) {
+   resolve(stmt.iterable);
+   beginScope();
+   declare(stmt.name);
+   define(stmt.name);
+   resolve(stmt.body);
+   endScope();
+   return null;
+ }
+
+
+ // A yield makes the innermost enclosing function a generator
+ @Override
+ public Void visitYieldStmt(Stmt.Yield stmt) {
+   if (currentFunction == FunctionType.NONE) {
+     diagnostics.error(stmt.keyword, "Can't yield from outside of function.");
+   } else if (currentFunction == FunctionType.INITIALIZER) {
+     diagnostics.error(stmt.keyword, "Can't yield from an initializer.");
+   } else {
+     functions.get(functions.size() - 1).isGenerator = true;
+   }
+
+   if (stmt.value != null) resolve(stmt.value);
+   return null;
+ }
 
  @Override
  public Void visitAssignExpr(Expr.Assign expr) {
    resolve(expr.value);
    resolveLocal(expr, expr.name);
+   markOuterAssignment(expr);
+   markOuterVariable(expr.depth);
    return null;
  }
 
+ // Flag every enclosing function the assigned variable was declared outside of
+ private void markOuterAssignment(Expr.Assign expr) {
+   int declaredIn = expr.depth < 0 ? -1 : scopes.size() - 1 - expr.depth;
+   for (int i = functions.size() - 1; i >= 0 && functionScopes.get(i) > declaredIn; i--) {
+     functions.get(i).assignsOuterVariables = true;
+   }
+ }
+
+ // Clears selfContained on the innermost function if the variable at this depth was
+ // declared outside it
+ private void markOuterVariable(int depth) {
+   if (functions.isEmpty()) return;
+   int declaredIn = depth < 0 ? -1 : scopes.size() - 1 - depth;
+   if (declaredIn < functionScopes.get(functionScopes.size() - 1)) reachesOutside();
+ }
+
+ private void reachesOutside() {
+   if (!functions.isEmpty()) functions.get(functions.size() - 1).selfContained = false;
+ }
+
  @Override
  public Void visitBinaryExpr(Expr.Binary expr) {
    resolve(expr.left);
@@ -162,6 +217,7 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
  @Override
  public Void visitCallExpr(Expr.Call expr) {
+   reachesOutside();
    resolve(expr.callee);
 
    for (Expr argument : expr.arguments) {
@@ -174,6 +230,7 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
  // Property dynamically evaluated, not resolved here
  @Override
  public Void visitGetExpr(Expr.Get expr) {
+   reachesOutside();
    resolve(expr.object);
    return null;
  }
@@ -199,6 +256,7 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
  // Property dynamically evaluated, not resolved here
  @Override
  public Void visitSetExpr(Expr.Set expr) {
+   reachesOutside();
    resolve(expr.value);
    resolve(expr.object);
    return null;
@@ -206,10 +264,11 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
  @Override
  public Void visitSuperExpr(Expr.Super expr) {
+  reachesOutside();
   if (currentClass == ClassType.NONE) {
-    Oro.error(expr.keyword, "Can't use 'super' outside of a class.");
+    diagnostics.error(expr.keyword, "Can't use 'super' outside of a class.");
   } else if (currentClass != ClassType.SUBCLASS) {
-    Oro.error(expr.keyword, "Can't use 'super' in a class with no superclass.");
+    diagnostics.error(expr.keyword, "Can't use 'super' in a class with no superclass.");
   }
    resolveLocal(expr, expr.keyword);
    return null;
@@ -217,8 +276,9 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
  @Override
  public Void visitSelfExpr(Expr.Self expr) {
+  reachesOutside();
   if (currentClass == ClassType.NONE) {
-    Oro.error(expr.keyword,"Can't use 'self' outside of a class.");
+    diagnostics.error(expr.keyword,"Can't use 'self' outside of a class.");
     return null;
   }
 
@@ -237,11 +297,12 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
  public Void visitVariableExpr(Expr.Variable expr) {
    if (!scopes.isEmpty() &&
        scopes.peek().get(expr.name.lexeme) == Boolean.FALSE) {
-     Oro.error(expr.name,
+     diagnostics.error(expr.name,
          "Can't read local variable in its own initializer.");
    }
 
    resolveLocal(expr, expr.name);
+   markOuterVariable(expr.depth);
    return null;
  }
 
@@ -274,11 +335,15 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
   currentFunction = type;
 
     beginScope();
+    functions.add(function);
+    functionScopes.add(scopes.size() - 1);
     for (Token param : function.params) {
       declare(param);
       define(param);
     }
     resolve(function.body);
+    functions.remove(functions.size() - 1);
+    functionScopes.remove(functionScopes.size() - 1);
     endScope();
     currentFunction = enclosingFunction;
   }
@@ -296,7 +361,7 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
     Map<String, Boolean> scope = scopes.peek();
     if (scope.containsKey(name.lexeme)) {
-        Oro.error(name,
+        diagnostics.error(name,
             "Already a variable with this name in this scope.");
       }
 
@@ -311,7 +376,7 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
   private void resolveLocal(Expr expr, Token name) {
     for (int i = scopes.size() - 1; i >= 0; i--) {
       if (scopes.get(i).containsKey(name.lexeme)) {
-        interpreter.resolve(expr, scopes.size() - 1 - i);
+        expr.depth = scopes.size() - 1 - i;
         return;
       }
     }
@@ -325,15 +390,26 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
       return null;
 }
 
+  @Override
+  public Void visitMapLiteralExpr(Expr.MapLiteral expr) {
+      for (int i = 0; i < expr.keys.size(); i++) {
+          resolve(expr.keys.get(i));
+          resolve(expr.values.get(i));
+      }
+      return null;
+  }
+
   @Override
   public Void visitIndexExpr(Expr.Index expr) {
       resolve(expr.array); // Resolve the array being accessed
-      resolve(expr.index); // Resolve the index expression
+      if (expr.index != null) resolve(expr.index); // Resolve the index expression
+      if (expr.end != null) resolve(expr.end);
       return null;
   }
 
   @Override
   public Void visitIndexAssignExpr(Expr.IndexAssign expr) {
+      reachesOutside();
       resolve(expr.array);  // Resolve the array being indexed
       resolve(expr.index);  // Resolve the index part
       resolve(expr.value);  // Resolve the value being assigned
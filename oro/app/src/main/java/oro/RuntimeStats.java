@@ -0,0 +1,152 @@
+package oro;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Always-on interpreter counters for one run. The interpreter that starts a run owns
+// them and its workers, tasks and generators count into the same instance, so a run
+// sees only its own work. LongAdders keep the hot-path cost to an uncontended add even
+// when pmap workers and tasks count at the same time. Read by the stats() built-in and
+// printed by `oro --stats`.
+final class RuntimeStats {
+    // Lookups resolved deeper than this are counted in the last bucket
+    private static final int MAX_DEPTH = 15;
+
+    // Keyed by what was called: a function's declaration, a class, or a built-in's
+    // name, so two functions that share a name are counted apart
+    private final ConcurrentHashMap<Object, Calls> calls = new ConcurrentHashMap<>();
+    private final LongAdder environments = new LongAdder();
+    private final LongAdder globalLookups = new LongAdder();
+    private final LongAdder[] localLookups = new LongAdder[MAX_DEPTH + 1];
+    private final LongAdder regexCompilations = new LongAdder();
+
+    private static final class Calls {
+        final String name;
+        // Where the function is declared, or 0 for classes and built-ins
+        final int line;
+        final LongAdder count = new LongAdder();
+
+        Calls(String name, int line) {
+            this.name = name;
+            this.line = line;
+        }
+    }
+
+    RuntimeStats() {
+        for (int i = 0; i < localLookups.length; i++) {
+            localLookups[i] = new LongAdder();
+        }
+    }
+
+    void call(OroFunction function) {
+        Stmt.Function declaration = function.declaration();
+        Calls count = calls.get(declaration);
+        if (count == null) {
+            count = calls.computeIfAbsent(declaration, key -> new Calls(declaration.name.lexeme, declaration.name.line));
+        }
+        count.count.increment();
+    }
+
+    void call(OroClass klass) {
+        count(klass, klass.name);
+    }
+
+    void call(String builtin) {
+        count(builtin, builtin);
+    }
+
+    private void count(Object callee, String name) {
+        Calls count = calls.get(callee);
+        if (count == null) count = calls.computeIfAbsent(callee, key -> new Calls(name, 0));
+        count.count.increment();
+    }
+
+    void environmentCreated() {
+        environments.increment();
+    }
+
+    // depth as resolved by the Resolver; -1 is a global lookup
+    void lookup(int depth) {
+        if (depth < 0) {
+            globalLookups.increment();
+        } else {
+            localLookups[Math.min(depth, MAX_DEPTH)].increment();
+        }
+    }
+
+    void regexCompiled() {
+        regexCompilations.increment();
+    }
+
+    // Bytes allocated by the current thread so far, or -1 where the JVM doesn't track it.
+    // Used by bench() and by allocation budgets.
+    static long threadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) threads;
+            if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+                return sun.getThreadAllocatedBytes(Thread.currentThread().threadId());
+            }
+        }
+        return -1;
+    }
+
+    // Counters as an Oro map: numbers are doubles, nested counts are maps. A name
+    // shared by several functions gets each one's line, as in "helper (line 12)".
+    Map<String, Object> snapshot() {
+        Map<String, List<Calls>> byName = new HashMap<>();
+        for (Calls count : calls.values()) {
+            byName.computeIfAbsent(count.name, name -> new ArrayList<>()).add(count);
+        }
+        Map<String, Object> callCounts = new TreeMap<>();
+        byName.forEach((name, counts) -> {
+            for (int i = 0; i < counts.size(); i++) {
+                Calls count = counts.get(i);
+                String label = counts.size() == 1 ? name
+                        : count.line > 0 ? name + " (line " + count.line + ")" : name + " (" + (i + 1) + ")";
+                callCounts.put(label, (double) count.count.sum());
+            }
+        });
+
+        Map<String, Object> lookups = new LinkedHashMap<>();
+        lookups.put("global", (double) globalLookups.sum());
+        for (int depth = 0; depth <= MAX_DEPTH; depth++) {
+            long count = localLookups[depth].sum();
+            if (count > 0) lookups.put(depth == MAX_DEPTH ? depth + "+" : Integer.toString(depth), (double) count);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", callCounts);
+        stats.put("environments", (double) environments.sum());
+        stats.put("lookups", lookups);
+        stats.put("regexCompilations", (double) regexCompilations.sum());
+        return stats;
+    }
+
+    String format() {
+        Map<String, Object> stats = snapshot();
+        StringBuilder out = new StringBuilder("Oro runtime stats\n");
+        out.append(String.format("  environments created  %,d%n", (long) (double) stats.get("environments")));
+        out.append(String.format("  regex compilations    %,d%n", (long) (double) stats.get("regexCompilations")));
+        out.append("  variable lookups by depth\n");
+        appendCounts(out, stats.get("lookups"));
+        out.append("  calls\n");
+        appendCounts(out, stats.get("calls"));
+        return out.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void appendCounts(StringBuilder out, Object counts) {
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) counts).entrySet()) {
+            out.append(String.format("    %-36s %,d%n", entry.getKey(), (long) (double) entry.getValue()));
+        }
+    }
+}
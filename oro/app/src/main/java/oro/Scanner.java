@@ -1,5 +1,6 @@
 package oro;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -8,6 +9,7 @@ import static oro.TokenType.*;
 
 class Scanner {
   private final String source;
+  private final Diagnostics diagnostics;
   private final List<Token> tokens = new ArrayList<>();
   private int start = 0;
   private int current = 0;
@@ -17,34 +19,39 @@ class Scanner {
 
   private static final Map<String, TokenType> keywords;
 
+  // Shared by every scanner, so it is made read-only once filled
   static {
-    keywords = new HashMap<>();
-    keywords.put("and",    AND);
-    keywords.put("class",  CLASS);
-    keywords.put("else",   ELSE);
-    keywords.put("false",  FALSE);
-    keywords.put("for",    FOR);
-    keywords.put("fun",    FUN);
-    keywords.put("if",     IF);
-    keywords.put("null",    NULL);
-    keywords.put("or",     OR);
-    keywords.put("print",  PRINT);
-    keywords.put("return", RETURN);
-    keywords.put("super",  SUPER);
-    keywords.put("self",   SELF);
-    keywords.put("true",   TRUE);
-    keywords.put("def",    DEF);
-    keywords.put("then",  THEN);
-    keywords.put("import",  IMPORT);
-    keywords.put("as",  AS);
-    keywords.put("in",  IN);
-    keywords.put("break",  BREAK);
-    keywords.put("continue",  CONTINUE);
-    keywords.put("extends", EXTENDS);
+    Map<String, TokenType> table = new HashMap<>();
+    table.put("and",    AND);
+    table.put("class",  CLASS);
+    table.put("else",   ELSE);
+    table.put("false",  FALSE);
+    table.put("for",    FOR);
+    table.put("fun",    FUN);
+    table.put("if",     IF);
+    table.put("null",    NULL);
+    table.put("or",     OR);
+    table.put("print",  PRINT);
+    table.put("return", RETURN);
+    table.put("super",  SUPER);
+    table.put("self",   SELF);
+    table.put("true",   TRUE);
+    table.put("def",    DEF);
+    table.put("while",  WHILE);
+    table.put("then",  THEN);
+    table.put("import",  IMPORT);
+    table.put("as",  AS);
+    table.put("in",  IN);
+    table.put("break",  BREAK);
+    table.put("continue",  CONTINUE);
+    table.put("extends", EXTENDS);
+    table.put("yield",  YIELD);
+    keywords = Collections.unmodifiableMap(table);
   }
 
-  Scanner(String source) {
+  Scanner(String source, Diagnostics diagnostics) {
     this.source = source;
+    this.diagnostics = diagnostics;
   }
 
   List<Token> scanTokens() {
@@ -72,6 +79,7 @@ class Scanner {
       case '-': addToken(MINUS); break;
       case '+': addToken(PLUS); break;
       case ';': addToken(SEMICOLON); break;
+      case ':': addToken(COLON); break;
       case '*': addToken(STAR); break; 
       case '/': addToken(SLASH); break;
       case '!': addToken(match('=') ? BANG_EQUAL : BANG); break;
@@ -96,7 +104,9 @@ class Scanner {
       case 'f':
             if (match('"')) {
                 fString();
-            } 
+            } else {
+                identifier();
+            }
             break;
       case '"': string(c); break;
       case '\'': string(c); break;
@@ -108,10 +118,10 @@ class Scanner {
             identifier();
         } else { 
           if (column == 0){
-            Oro.error(line, prevCol, "Unexpected character.");
+            diagnostics.error(line, prevCol, "Unexpected character.");
           }
           else{
-            Oro.error(line, column, "Unexpected character.");
+            diagnostics.error(line, column, "Unexpected character.");
           }
         }
       break;
@@ -156,7 +166,7 @@ class Scanner {
     }
 
     if (isAtEnd()) {
-      Oro.error(line, "Unterminated string.");
+      diagnostics.error(line, "Unterminated string.");
       return;
     }
 
@@ -179,12 +189,12 @@ class Scanner {
         } else if (c == '}') {
             depth--;
             if (depth < 0) {
-                Oro.error(line, "Unmatched closing brace in f-string.");
+                diagnostics.error(line, "Unmatched closing brace in f-string.");
                 return;
             }
         } else if (c == '"' && source.charAt(checkPos - 1) != '\\') {
             if (depth > 0) {
-                Oro.error(line, "Unclosed expression in f-string.");
+                diagnostics.error(line, "Unclosed expression in f-string.");
                 return;
             }
             break;
@@ -194,10 +204,10 @@ class Scanner {
     
     if (checkPos >= source.length()) {
       if (column == 0){
-        Oro.error(line, prevCol, "Unterminated f-string.");
+        diagnostics.error(line, prevCol, "Unterminated f-string.");
       }
       else{
-        Oro.error(line, column, "Unterminated f-string.");
+        diagnostics.error(line, column, "Unterminated f-string.");
       }
       return;
     }
@@ -214,10 +224,10 @@ class Scanner {
     }
     
     if (column == 0){
-      Oro.error(line, prevCol, "Unterminated f-string.");
+      diagnostics.error(line, prevCol, "Unterminated f-string.");
     }
     else{
-      Oro.error(line, column, "Unterminated f-string.");
+      diagnostics.error(line, column, "Unterminated f-string.");
     }
 }
 
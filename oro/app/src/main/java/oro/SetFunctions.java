@@ -0,0 +1,111 @@
+package oro;
+
+import java.util.List;
+
+// Built-ins for sets. has(s, x) and remove(s, x) are shared with maps (see MapFunctions),
+// and "x in s" tests membership without a call.
+//   def stop = set(["a", "an", "the"]);
+//   if (!(word in stop)) append(kept, word);
+public class SetFunctions {
+
+    public static void registerAll(Environment globals) {
+        // set() or set(arrayOrSet)
+        globals.define("set", new OroCallable() {
+            @Override
+            public int arity() { return -1; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                if (args.isEmpty()) return new OroSet();
+                if (args.size() != 1) {
+                    throw new RuntimeError("Expected 0 or 1 arguments for set(members)");
+                }
+                Object members = args.get(0);
+                if (members instanceof OroArray) return new OroSet(((OroArray) members).getArray());
+                if (members instanceof OroSet) return new OroSet((OroSet) members);
+                throw new RuntimeError("set: argument must be an array or set.");
+            }
+
+            @Override
+            public String toString() { return "<native fun set>"; }
+        });
+
+        // add(s, x): true if x was not already in the set
+        globals.define("add", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                return set(args.get(0), "add: first argument must be a set.").add(args.get(1));
+            }
+
+            @Override
+            public String toString() { return "<native fun add>"; }
+        });
+
+        globals.define("union", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroSet a = set(args.get(0), "union: arguments must be sets.");
+                OroSet b = set(args.get(1), "union: arguments must be sets.");
+                OroSet result = new OroSet(a.size() + b.size());
+                result.addAll(a);
+                result.addAll(b);
+                return result;
+            }
+
+            @Override
+            public String toString() { return "<native fun union>"; }
+        });
+
+        // intersect and difference keep the order of the first set
+        globals.define("intersect", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroSet a = set(args.get(0), "intersect: arguments must be sets.");
+                OroSet b = set(args.get(1), "intersect: arguments must be sets.");
+                OroSet result = new OroSet(Math.min(a.size(), b.size()));
+                for (Object member : a) {
+                    if (b.contains(member)) result.add(member);
+                }
+                return result;
+            }
+
+            @Override
+            public String toString() { return "<native fun intersect>"; }
+        });
+
+        globals.define("difference", new OroCallable() {
+            @Override
+            public int arity() { return 2; }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> args) {
+                OroSet a = set(args.get(0), "difference: arguments must be sets.");
+                OroSet b = set(args.get(1), "difference: arguments must be sets.");
+                OroSet result = new OroSet(a.size());
+                for (Object member : a) {
+                    if (!b.contains(member)) result.add(member);
+                }
+                return result;
+            }
+
+            @Override
+            public String toString() { return "<native fun difference>"; }
+        });
+    }
+
+    private static OroSet set(Object value, String error) {
+        if (!(value instanceof OroSet)) {
+            throw new RuntimeError(error);
+        }
+        return (OroSet) value;
+    }
+}
@@ -0,0 +1,216 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Deep copies values read out of a frozen global snapshot into one fork. Each object
+// is copied at most once per fork, so aliasing inside the snapshot (two globals holding
+// the same array, a closure and an instance sharing state) is preserved in the copy.
+//
+// Strings, numbers, booleans, classes and native functions are immutable and shared.
+// Values from libraries (documents and the like) are shared as well.
+//
+// Arrays, maps and sets holding only immutable values (flat ones, found once by
+// scan() when the snapshot is taken) are not copied element by element: the fork gets
+// one over the same store that copies it before its first write. A lookup table the
+// job only reads costs nothing however large it is.
+//
+// A spawned task gets its copy through forTask() instead, taken up front on the
+// spawning thread because the spawner keeps running and writing its own values. There
+// is no frozen side, so flat arrays become views (both sides copy before writing),
+// and concurrent counters and maps are shared, since aggregating across tasks is what
+// they are for.
+class SnapshotCopier {
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+    private final Set<Object> flat;
+    private final boolean forTask;
+
+    SnapshotCopier(Set<Object> flat) {
+        this(flat, false);
+    }
+
+    private SnapshotCopier(Set<Object> flat, boolean forTask) {
+        this.flat = flat;
+        this.forTask = forTask;
+    }
+
+    static SnapshotCopier forTask() {
+        return new SnapshotCopier(Collections.emptySet(), true);
+    }
+
+    // The flat arrays and maps among the globals and everything they reach. Throws
+    // IllegalArgumentException for values that run or hold something live, which
+    // forks could not each get a copy of.
+    static Set<Object> scan(Map<String, Object> globals) {
+        Set<Object> flat = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<String, Object> global : globals.entrySet()) {
+            scan(global.getKey(), global.getValue(), flat, seen);
+        }
+        return flat;
+    }
+
+    Object copy(Object value) {
+        if (value == null || value instanceof String || value instanceof Double
+                || value instanceof Boolean || value instanceof OroClass) {
+            return value;
+        }
+        if (forTask && (value instanceof OroConcurrentCounter || value instanceof OroConcurrentMap)) {
+            return value;
+        }
+        if (copied(value)) {
+            Object copy = copies.get(value);
+            return copy != null ? copy : copyMutable(value);
+        }
+        return value;
+    }
+
+    private static boolean copied(Object value) {
+        return value instanceof OroArray || value instanceof OroInstance || value instanceof OroFunction
+                || value instanceof Map || value instanceof List
+                || value instanceof OroSet
+                || value instanceof OroConcurrentCounter || value instanceof OroConcurrentMap;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void scan(String name, Object value, Set<Object> flat, Set<Object> seen) {
+        if (value instanceof OroGenerator || value instanceof OroStream || value instanceof OroChannel
+                || value instanceof OroTask || value instanceof Iterator) {
+            throw new IllegalArgumentException("Prelude global '" + name + "' holds a "
+                    + describe(value) + ", which a snapshot can't share between runs.");
+        }
+        if (!copied(value) || !seen.add(value)) return;
+
+        if (value instanceof OroArray) {
+            scanAll(name, ((OroArray) value).getArray(), value, flat, seen);
+        } else if (value instanceof OroMap) {
+            scanAll(name, ((OroMap) value).values(), value, flat, seen);
+        } else if (value instanceof Map) {
+            scanAll(name, ((Map<Object, Object>) value).values(), null, flat, seen);
+        } else if (value instanceof List) {
+            scanAll(name, (List<Object>) value, null, flat, seen);
+        } else if (value instanceof OroInstance) {
+            scanAll(name, ((OroInstance) value).fields().values(), null, flat, seen);
+        } else if (value instanceof OroConcurrentMap) {
+            scanAll(name, ((OroConcurrentMap) value).snapshot().values(), null, flat, seen);
+        } else if (value instanceof OroFunction) {
+            for (Environment scope = ((OroFunction) value).closure(); scope.enclosing != null; scope = scope.enclosing) {
+                if (seen.add(scope)) scanAll(name, scope.values().values(), null, flat, seen);
+            }
+        }
+    }
+
+    // Scans the elements, and records container as flat if none of them needs copying
+    private static void scanAll(String name, Iterable<Object> elements, Object container,
+                                Set<Object> flat, Set<Object> seen) {
+        boolean onlyValues = true;
+        for (Object element : elements) {
+            scan(name, element, flat, seen);
+            onlyValues &= !copied(element);
+        }
+        if (container != null && onlyValues) flat.add(container);
+    }
+
+    private static String describe(Object value) {
+        if (value instanceof OroGenerator) return "generator";
+        if (value instanceof OroStream) return "stream";
+        if (value instanceof OroChannel) return "channel";
+        if (value instanceof OroTask) return "task";
+        return "open reader";
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object copyMutable(Object value) {
+        if (flat.contains(value)) {
+            Object copy = value instanceof OroArray ? ((OroArray) value).sharedCopy() : ((OroMap) value).sharedCopy();
+            copies.put(value, copy);
+            return copy;
+        }
+        if (forTask && value instanceof OroArray && ((OroArray) value).isFlat()) {
+            OroArray array = (OroArray) value;
+            OroArray copy = array.slice(0, array.size());
+            copies.put(value, copy);
+            return copy;
+        }
+        if (value instanceof OroArray) {
+            OroArray copy = new OroArray();
+            copies.put(value, copy);
+            for (Object element : ((OroArray) value).getArray()) {
+                copy.append(copy(element));
+            }
+            return copy;
+        }
+        if (value instanceof OroInstance) {
+            OroInstance instance = (OroInstance) value;
+            OroInstance copy = new OroInstance(instance.klass());
+            copies.put(value, copy);
+            for (Map.Entry<String, Object> field : instance.fields().entrySet()) {
+                copy.fields().put(field.getKey(), copy(field.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof OroFunction) {
+            OroFunction function = (OroFunction) value;
+            // Top-level functions close over the global scope, which they never read
+            // through their closure, so only nested closures need their scopes copied
+            if (function.closure().enclosing == null) return function;
+
+            OroFunction copy = function.withClosure(copyScope(function.closure()));
+            copies.put(value, copy);
+            return copy;
+        }
+        // Set members are immutable, so every set is flat
+        if (value instanceof OroSet) {
+            OroSet copy = forTask ? new OroSet((OroSet) value) : ((OroSet) value).sharedCopy();
+            copies.put(value, copy);
+            return copy;
+        }
+        if (value instanceof OroConcurrentCounter) {
+            OroConcurrentCounter copy = new OroConcurrentCounter();
+            copies.put(value, copy);
+            ((OroConcurrentCounter) value).snapshot().forEach((key, count) -> copy.set(key, (long) (double) count));
+            return copy;
+        }
+        if (value instanceof OroConcurrentMap) {
+            OroConcurrentMap copy = new OroConcurrentMap();
+            copies.put(value, copy);
+            ((OroConcurrentMap) value).snapshot().forEach((key, entry) -> copy.put(key, copy(entry)));
+            return copy;
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> copy = value instanceof OroMap ? new OroMap(((OroMap) value).size()) : new LinkedHashMap<>();
+            copies.put(value, copy);
+            for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet()) {
+                copy.put(entry.getKey(), copy(entry.getValue()));
+            }
+            return copy;
+        }
+        List<Object> copy = new ArrayList<>();
+        copies.put(value, copy);
+        for (Object element : (List<Object>) value) {
+            copy.add(copy(element));
+        }
+        return copy;
+    }
+
+    // Copies a local scope chain up to, but not including, the global scope
+    private Environment copyScope(Environment scope) {
+        if (scope.enclosing == null) return scope;
+
+        Environment copy = (Environment) copies.get(scope);
+        if (copy != null) return copy;
+
+        copy = new Environment(copyScope(scope.enclosing));
+        copies.put(scope, copy);
+        for (Map.Entry<String, Object> entry : scope.values().entrySet()) {
+            copy.define(entry.getKey(), copy(entry.getValue()));
+        }
+        return copy;
+    }
+}
@@ -3,6 +3,9 @@ package oro;
 import java.util.List;
 
 abstract class Stmt {
+  // Line the statement starts on, set by the Parser; 0 for statements it synthesizes
+  int line = 0;
+
   interface Visitor<R> {
     R visitBlockStmt(Block stmt);
     R visitClassStmt(Class stmt);
@@ -13,6 +16,8 @@ abstract class Stmt {
     R visitReturnStmt(Return stmt);
     R visitDefStmt(Def stmt);
     R visitWhileStmt(While stmt);
+    R visitForInStmt(ForIn stmt);
+    R visitYieldStmt(Yield stmt);
   }
   static class Block extends Stmt {
     Block(List<Stmt> statements) {
@@ -69,6 +74,18 @@ abstract class Stmt {
     final Token name;
     final List<Token> params;
     final List<Stmt> body;
+    // Set by the Resolver when the body, or a function nested in it, assigns to a
+    // variable declared outside this function (a captured local or a global)
+    boolean assignsOuterVariables = false;
+    // Set by the Resolver when the body itself (not a nested function) yields; calls
+    // then return an OroGenerator instead of running the body
+    boolean isGenerator = false;
+    // Cleared by the Resolver when the body itself reaches past its own parameters and
+    // locals: reads or assigns an outer variable, calls, prints, uses a property or
+    // self, stores into an element, or declares a function or class. Such a body
+    // depends on nothing its caller does in the meantime, so as a generator it may run
+    // ahead of its loop (see OroGenerator).
+    boolean selfContained = true;
   }
   static class If extends Stmt {
     If(Expr condition, Stmt thenBranch, Stmt elseBranch) {
@@ -140,6 +157,37 @@ abstract class Stmt {
     final Expr condition;
     final Stmt body;
   }
+  // for x in iterable: body runs once per element, with x bound in its own scope
+  static class ForIn extends Stmt {
+    ForIn(Token name, Expr iterable, Stmt body) {
+      this.name = name;
+      this.iterable = iterable;
+      this.body = body;
+    }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) {
+      return visitor.visitForInStmt(this);
+    }
+
+    final Token name;
+    final Expr iterable;
+    final Stmt body;
+  }
+  static class Yield extends Stmt {
+    Yield(Token keyword, Expr value) {
+      this.keyword = keyword;
+      this.value = value;
+    }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) {
+      return visitor.visitYieldStmt(this);
+    }
+
+    final Token keyword;
+    final Expr value;
+  }
 
   abstract <R> R accept(Visitor<R> visitor);
 }
@@ -0,0 +1,99 @@
+package oro;
+
+// The value of a string slice, s[i:j]: a window onto the characters of the original
+// string rather than a copy of them. Slicing a view slices the same string again, so
+// chunking a large text never copies it.
+//
+// Scripts see views as strings. +, ==, printing and map keys turn them into Strings
+// where needed, and built-ins receive Strings unless they opt in with acceptsViews()
+// (length and the regex built-ins read the characters in place). ByteStrings are
+// treated the same way, and isView covers both. A view keeps its whole
+// source string reachable, so a short slice of a huge text that is stored for a long
+// time is best passed through toString first.
+final class StringView implements CharSequence {
+    private final String source;
+    private final int start;
+    private final int end;
+
+    StringView(String source, int start, int end) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    // s[from:to] on a string or a view; bounds are already clamped to 0..length
+    static CharSequence slice(CharSequence text, int from, int to) {
+        if (text instanceof ByteString) return ((ByteString) text).slice(from, to);
+        if (text instanceof StringView) {
+            StringView view = (StringView) text;
+            return new StringView(view.source, view.start + from, view.start + to);
+        }
+        return new StringView((String) text, from, to);
+    }
+
+    // The String for a string or view, and null for anything else
+    static String string(Object value) {
+        if (value instanceof String) return (String) value;
+        if (isView(value)) return value.toString();
+        return null;
+    }
+
+    // Text that scripts see as a string but that is not a String
+    static boolean isView(Object value) {
+        return value instanceof StringView || value instanceof ByteString;
+    }
+
+    // What a host is handed for a script value: a view becomes its String, so hosts
+    // never see StringViews or ByteStrings
+    static Object export(Object value) {
+        return isView(value) ? value.toString() : value;
+    }
+
+    static boolean isText(Object value) {
+        return value instanceof String || isView(value);
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= end - start) throw new IndexOutOfBoundsException(index);
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > end - start || from > to) {
+            throw new IndexOutOfBoundsException("[" + from + ", " + to + ")");
+        }
+        return new StringView(source, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        return source.substring(start, end);
+    }
+
+    // Equal to another view with the same characters; use contentEquals against Strings
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof StringView)) return false;
+        StringView view = (StringView) other;
+        return end - start == view.end - view.start
+                && source.regionMatches(start, view.source, view.start, end - start);
+    }
+
+    // Same value String.hashCode gives for these characters
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return hash;
+    }
+}
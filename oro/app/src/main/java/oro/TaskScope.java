@@ -0,0 +1,39 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Tasks spawned by one interpreter. The run that spawned them does not finish until
+// they have all finished, so no task outlives the script (or task) that started it.
+// Plays the role of StructuredTaskScope, which is still a preview API on JDK 21.
+class TaskScope {
+    private final List<OroTask> tasks = new ArrayList<>();
+
+    void add(OroTask task) {
+        tasks.add(task);
+    }
+
+    // Waits for every task. The first failure among tasks nobody awaited is rethrown
+    // once all of them are done.
+    void join() {
+        RuntimeException failure = null;
+        for (OroTask task : tasks) {
+            try {
+                task.await();
+            } catch (RuntimeException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        tasks.clear();
+        if (failure != null) throw failure;
+    }
+
+    // The owner failed: interrupt whatever is still running. Tasks blocked on a channel
+    // or an await stop with an error; a task busy computing runs to completion.
+    void cancel() {
+        for (OroTask task : tasks) {
+            task.cancel();
+        }
+        tasks.clear();
+    }
+}
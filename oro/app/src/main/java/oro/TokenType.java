@@ -3,7 +3,7 @@ package oro;
 enum TokenType {
   // Single-character tokens.
   LEFT_PAREN, RIGHT_PAREN, LEFT_BRACE, RIGHT_BRACE,
-  COMMA, DOT, MINUS, PLUS, SEMICOLON, SLASH, STAR,
+  COMMA, DOT, MINUS, PLUS, SEMICOLON, SLASH, STAR, COLON,
   HASHTAG, LEFT_BRACKET, RIGHT_BRACKET,
 
   // One or two character tokens.
@@ -23,7 +23,7 @@ enum TokenType {
   FSTRING,
 
   // *
-  THEN, IMPORT, AS, IN, BREAK, CONTINUE,
+  THEN, IMPORT, AS, IN, BREAK, CONTINUE, YIELD,
 
   EOF, ERR
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static oro.Scripts.run;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// The native collection built-ins, from scripts and on every backing store
+public class ArrayFunctionsTest {
+
+    @Test
+    public void mapFilterReduce() {
+        ExecutionResult result = run(
+                "fun square(x) { return x * x; }",
+                "fun odd(x) { return x != 2 and x != 4; }",
+                "fun add(a, b) { return a + b; }",
+                "def a = [1, 2, 3, 4, 5];",
+                "def squares = map(a, square);",
+                "def odds = filter(a, odd);",
+                "def total = reduce(a, add, 0);",
+                "def upper = map([\"a\", \"b\"], toUpper);",
+                "def empty = reduce([], add, 7);");
+        assertEquals("[1.0, 4.0, 9.0, 16.0, 25.0]", result.get("squares").toString());
+        assertEquals("[1.0, 3.0, 5.0]", result.get("odds").toString());
+        assertEquals(15.0, result.get("total"));
+        assertEquals("[A, B]", result.get("upper").toString());
+        assertEquals(7.0, result.get("empty"));
+    }
+
+    @Test
+    public void sorting() {
+        ExecutionResult result = run(
+                "fun descending(a, b) { return b - a; }",
+                "fun len(s) { return length(s); }",
+                "def nums = sort([3, 1, 2]);",
+                "def words = sort([\"pear\", \"fig\", \"apple\"]);",
+                "def down = sort([3, 1, 2], descending);",
+                "def byLength = sortBy([\"pear\", \"fig\", \"apple\", \"kiwi\"], len);",
+                "def original = [3, 1, 2]; def copy = sort(original);");
+        assertEquals("[1.0, 2.0, 3.0]", result.get("nums").toString());
+        assertEquals("[apple, fig, pear]", result.get("words").toString());
+        assertEquals("[3.0, 2.0, 1.0]", result.get("down").toString());
+        assertEquals("[fig, pear, kiwi, apple]", result.get("byLength").toString());
+        assertEquals("[3.0, 1.0, 2.0]", result.get("original").toString());
+    }
+
+    @Test
+    public void slicesSortAsStrings() {
+        ExecutionResult result = run(
+                "fun first(x) { return x[0:1]; }",
+                "fun rest(x) { return x[1:]; }",
+                "def initials = sort(map([\"bz\", \"ay\", \"c\"], first));",
+                "def byRest = sortBy([\"bz\", \"ay\", \"cx\"], rest);");
+        assertEquals("[a, b, c]", result.get("initials").toString());
+        assertEquals("[cx, ay, bz]", result.get("byRest").toString());
+    }
+
+    @Test
+    public void largeArraysSortInParallel() {
+        Random random = new Random(7);
+        List<Object> numbers = new ArrayList<>();
+        for (int i = 0; i < OroArray.PARALLEL_SORT_THRESHOLD * 4; i++) numbers.add(random.nextDouble());
+        OroArray sorted = new OroArray(numbers).sorted();
+        for (int i = 1; i < sorted.size(); i++) {
+            assertTrue((double) sorted.get(i - 1) <= (double) sorted.get(i));
+        }
+    }
+
+    @Test
+    public void reverseJoinFlatten() {
+        ExecutionResult result = run(
+                "def backwards = reverse([1, \"two\", 3]);",
+                "def slice = reverse([1, 2, 3, 4][1:3]);",
+                "def joined = join([1, 2.5, \"x\", true, null], \", \");",
+                "def flat = flatten([[1, 2], 3, [], [[4]]]);");
+        assertEquals("[3.0, two, 1.0]", result.get("backwards").toString());
+        assertEquals("[3.0, 2.0]", result.get("slice").toString());
+        assertEquals("1, 2.5, x, true, null", result.get("joined"));
+        assertEquals("[1.0, 2.0, 3.0, [4.0]]", result.get("flat").toString());
+    }
+
+    @Test
+    public void mixedElementsNeedAComparator() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile("sort([1, \"a\"]);"));
+        assertFalse(result.succeeded());
+        assertTrue(result.diagnostics().toString(), result.diagnostics().get(0).message().contains("compare function"));
+    }
+}
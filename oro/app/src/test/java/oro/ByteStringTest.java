@@ -0,0 +1,103 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static oro.Scripts.run;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+// Byte strings: ASCII document text kept as bytes, giving the same results as Strings
+public class ByteStringTest {
+
+    private static ByteString bytes(String text) {
+        return ByteString.ofLatin1(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void byteStringsBehaveLikeTheirString() {
+        ByteString text = bytes("  Patient: Jane Doe\t\n");
+        assertEquals("  Patient: Jane Doe\t\n".hashCode(), text.hashCode());
+        assertEquals('P', text.charAt(2));
+        ByteString trimmed = text.trim();
+        assertEquals("Patient: Jane Doe", trimmed.toString());
+        assertEquals("Jane", trimmed.substring(9, 13).toString());
+        assertEquals(bytes("Jane"), trimmed.substring(9, 13));
+        assertEquals(9, trimmed.indexOf("Jane"));
+        assertFalse(trimmed.contains("jane"));
+        assertFalse(trimmed.contains("Jan€"));
+        assertSame(trimmed, trimmed.trim());
+        assertThrows(StringIndexOutOfBoundsException.class, () -> trimmed.substring(3, 40));
+    }
+
+    @Test
+    public void bytePathsMatchStringMethods() {
+        Random random = new Random(11);
+        String alphabet = "abAB xy\tMRN:é";
+        for (int i = 0; i < 500; i++) {
+            StringBuilder line = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int j = 0; j < length; j++) line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String string = line.toString();
+            ByteString text = bytes(string);
+            assertEquals(string.toUpperCase(), text.toUpperCase().toString());
+            assertEquals(string.toLowerCase(), text.toLowerCase().toString());
+            assertEquals(string.trim(), text.trim().toString());
+            assertEquals(string.contains("ab"), text.contains("ab"));
+            assertEquals(string.replace("ab", "X"), text.replace("ab", "X").toString());
+            assertEquals(string.replace("a", "€"), text.replace("a", "€").toString());
+            assertEquals(string.replace("", "-"), text.replace("", "-").toString());
+        }
+    }
+
+    @Test
+    public void asciiDocumentsAreReadAsBytes() throws Exception {
+        Path file = Files.createTempFile("oro", ".txt");
+        try {
+            Files.write(file, "Name: Jane Doe\r\nMRN: 00123\n".getBytes(StandardCharsets.UTF_8));
+            OroDocument doc = new OroDocument(file.toString());
+            CharSequence text = doc.readText(file.toString());
+            assertTrue(text instanceof ByteString);
+            assertEquals(doc.getDocText(file.toString()), text.toString());
+
+            Files.write(file, "Name: José\nMRN: 00123\n".getBytes(StandardCharsets.UTF_8));
+            text = doc.readText(file.toString());
+            assertEquals("Name: JoséMRN: 00123", text);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void builtInsTakeByteStrings() {
+        ExecutionResult result = run(Map.of("text", bytes("  MRN: 00123 seen by Dr. Lee  \nnext\n")),
+                "def first = \"\";",
+                "for line in lines(text) if (first == \"\") first = line;",
+                "def trimmed = trim(first);",
+                "def found = contains(trimmed, \"MRN\");",
+                "def upper = toUpper(trimmed);",
+                "def lower = toLower(trimmed);",
+                "def masked = replace(trimmed, \"00123\", \"*****\");",
+                "def part = substring(trimmed, 0, 3);",
+                "def same = part == \"MRN\";",
+                "def joined = part + \"!\";",
+                "def n = length(trimmed);",
+                "def ids = regex_find_all(\"[0-9]+\", trimmed);",
+                "def matched = matchRegex(trimmed, \"MRN.*\");",
+                "def counts = {}; counts[part] = 1; def keyed = counts[\"MRN\"];");
+        assertEquals("MRN: 00123 seen by Dr. Lee", result.get("trimmed").toString());
+        assertEquals(true, result.get("found"));
+        assertEquals("MRN: 00123 SEEN BY DR. LEE", result.get("upper").toString());
+        assertEquals("mrn: 00123 seen by dr. lee", result.get("lower").toString());
+        assertEquals("MRN: ***** seen by Dr. Lee", result.get("masked").toString());
+        assertEquals(true, result.get("same"));
+        assertEquals("MRN!", result.get("joined"));
+        assertEquals(26, result.get("n"));
+        assertEquals("[00123]", result.get("ids").toString());
+        assertEquals(true, result.get("matched"));
+        assertEquals(1.0, result.get("keyed"));
+    }
+}
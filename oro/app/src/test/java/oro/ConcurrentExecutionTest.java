@@ -0,0 +1,291 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.Bindings;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.SimpleBindings;
+
+// Runs many scripts at once in one JVM and checks that no run sees another's state
+public class ConcurrentExecutionTest {
+    private static final int THREADS = 16;
+    private static final int RUNS = 400;
+
+    // Exercises closures, classes, while loops, f-strings, regex and JSON built-ins
+    private static final String SCRIPT = String.join("\n",
+            "fun fib(n) { if (n <= 1) return n; return fib(n - 2) + fib(n - 1); }",
+            "fun makeCounter() { def count = 0; fun inc() { count = count + 1; return count; } return inc; }",
+            "class Box { Box(v) { self.v = v; } get() { return self.v; } }",
+            "def counter = makeCounter();",
+            "def i = 0;",
+            "while (i < n) { counter(); i = i + 1; }",
+            "def total = counter();",
+            "def box = Box(fib(12) + n);",
+            "def masked = regex_replace_all(\"USPhoneNumber\", \"XXX-XXX-XXXX\", f\"call 617-555-0199 #{n}\");",
+            "def json = parseJSON('{\"id\": 1, \"tags\": [\"a\", \"b\"]}');",
+            "print f\"{n}:{total}:{box.get()}\";",
+            "def result = box.get();");
+
+    @Test
+    public void compiledScriptRunsConcurrentlyWithIsolatedGlobals() throws Exception {
+        OroEngine engine = new OroEngine();
+        CompiledScript script = engine.compile(SCRIPT);
+        assertFalse(script.diagnostics().toString(), script.hasErrors());
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<ExecutionResult>> results = new ArrayList<>();
+            for (int run = 0; run < RUNS; run++) {
+                double n = run % 50;
+                results.add(pool.submit(() -> engine.execute(script, Map.of("n", n))));
+            }
+
+            for (int run = 0; run < RUNS; run++) {
+                double n = run % 50;
+                ExecutionResult result = results.get(run).get(30, TimeUnit.SECONDS);
+                // f-strings format numbers with Double.toString
+                String expected = n + ":" + (n + 1) + ":" + (144 + n);
+
+                assertTrue(result.diagnostics().toString(), result.succeeded());
+                assertEquals(expected + System.lineSeparator(), result.output());
+                assertEquals(144 + n, result.get("result"));
+                assertEquals("call XXX-XXX-XXXX #" + n, result.get("masked"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void distinctScriptsCompileAndRunConcurrently() throws Exception {
+        OroEngine engine = new OroEngine();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<ExecutionResult>> results = new ArrayList<>();
+            for (int run = 0; run < RUNS; run++) {
+                String source = "def value = " + run + "; fun twice(x) { return x * 2; } def doubled = twice(value);";
+                results.add(pool.submit(() -> engine.execute(engine.compile(source))));
+            }
+
+            for (int run = 0; run < RUNS; run++) {
+                ExecutionResult result = results.get(run).get(30, TimeUnit.SECONDS);
+                assertTrue(result.diagnostics().toString(), result.succeeded());
+                assertEquals(run * 2.0, result.get("doubled"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void pmapRejectsOuterAssignmentsMadeByCalledFunctions() {
+        OroEngine engine = new OroEngine();
+        String makeCounter = "fun makeCounter() { def count = 0; fun inc() { count = count + 1; return count; } return inc; }";
+        for (String racy : new String[] {
+                "def total = 0; fun bump() { total = total + 1; } fun work(x) { bump(); return x; }",
+                makeCounter + " def next = makeCounter(); fun work(x) { return next(); }"}) {
+            ExecutionResult result = engine.execute(engine.compile(racy + " pmap([1, 2, 3], work);"));
+            assertFalse(result.succeeded());
+            assertTrue(result.diagnostics().toString(),
+                    result.diagnostics().get(0).message().contains("assigns to a variable outside itself"));
+        }
+
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                makeCounter,
+                "fun twice(x) { def n = 0; fun add(y) { n = n + y; } add(x); add(x); return n; }",
+                "fun counted(x) { def inc = makeCounter(); inc(); return inc(); }",
+                "def doubled = pmap([1, 2], twice);",
+                "def counts = pmap([1, 2], counted);")));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertEquals("[2.0, 4.0]", result.get("doubled").toString());
+        assertEquals("[2.0, 2.0]", result.get("counts").toString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void statsCountOnlyTheirOwnRun() {
+        OroEngine engine = new OroEngine(1);
+        engine.execute(engine.compile("fun busy() {} def i = 0; while (i < 5) { busy(); i = i + 1; }"));
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "fun helper() {} helper();",
+                "fun helper() {} helper(); helper();",
+                "fun times(x, y) { return x * y; }",
+                "fun square(x) { return times(x, x); }",
+                "pmap([1, 2, 3], square);",
+                "def calls = stats()[\"calls\"];")));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        Map<String, Object> calls = (Map<String, Object>) result.get("calls");
+        assertFalse(calls.toString(), calls.containsKey("busy"));
+        assertEquals(1.0, calls.get("helper (line 1)"));
+        assertEquals(2.0, calls.get("helper (line 2)"));
+        // Calls made on pmap's workers count toward the run
+        assertEquals(3.0, calls.get("times"));
+    }
+
+    @Test
+    public void aggregateKeysMatchWhateverFormTheyArriveIn() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "def counts = ConcurrentCounter();",
+                "def line = \"MRN: 2\";",
+                "increment(counts, line[0:3]);",
+                "counts[line[0:3]] = counts[\"MRN\"] + 1;",
+                "increment(counts, size([1, 2]));",
+                "def byName = counts[\"MRN\"];",
+                "def byNumber = counts[2];",
+                "def seen = ConcurrentMap();",
+                "seen[line[5:]] = true;",
+                "def found = seen[\"2\"];")));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertEquals(2.0, result.get("byName"));
+        assertEquals(1.0, result.get("byNumber"));
+        assertEquals(true, result.get("found"));
+    }
+
+    @Test
+    public void scriptEngineReadsHostNumbersAsOroNumbers() throws Exception {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("oro");
+        Bindings bindings = engine.createBindings();
+        bindings.put("limit", 3);
+        engine.eval("def twice = limit * 2;", bindings);
+        assertEquals(6.0, bindings.get("twice"));
+
+        Bindings plain = new SimpleBindings();
+        plain.put("limit", 3);
+        assertEquals(4.0, engine.eval("limit + 1;", plain));
+
+        Bindings global = new SimpleBindings();
+        global.put("offset", 10L);
+        engine.getContext().setBindings(global, ScriptContext.GLOBAL_SCOPE);
+        assertEquals(11.0, engine.eval("offset + 1;"));
+    }
+
+    @Test
+    public void executeReadsHostNumbersAsOroNumbers() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile("print n + 1; def total = n + big;"),
+                Map.of("n", 3, "big", 10_000_000_000L));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertEquals("4\n", result.output());
+        assertEquals(10_000_000_003.0, result.get("total"));
+    }
+
+    @Test
+    public void tasksSpawnedByPmapWorkersAreJoined() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "fun bad() { return undefinedVar; }",
+                "fun f(x) { spawn(bad); return x; }",
+                "print pmap([1, 2, 3], f);",
+                "print \"after pmap\";")));
+        assertFalse(result.succeeded());
+        assertTrue(result.diagnostics().toString(), result.diagnostics().get(0).message().contains("undefinedVar"));
+        assertFalse(result.output(), result.output().contains("after pmap"));
+
+        result = engine.execute(engine.compile(String.join("\n",
+                "def done = ConcurrentCounter();",
+                "fun mark() { increment(done, \"tasks\"); }",
+                "fun f(x) { spawn(mark); return x; }",
+                "pmap([1, 2, 3], f);",
+                "def finished = done[\"tasks\"];")));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertEquals(3.0, result.get("finished"));
+    }
+
+    @Test
+    public void spawnedTasksWriteToTheirOwnCopies() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "def log = [];",
+                "def ids = [1, 2];",
+                "def totals = {\"runs\": 0};",
+                "fun fill(tag, mine) {",
+                "  def i = 0;",
+                "  while (i < 2000) { append(log, tag); i = i + 1; }",
+                "  append(ids, tag);",
+                "  append(mine, tag);",
+                "  totals[\"runs\"] = totals[\"runs\"] + 1;",
+                "  return [size(log), size(ids), size(mine), totals[\"runs\"]];",
+                "}",
+                "def a = spawn(fill, \"a\", ids);",
+                "def b = spawn(fill, \"b\", ids);",
+                "print await(a);",
+                "print await(b);",
+                "print [size(log), size(ids), totals[\"runs\"]];")));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        // ids and mine are one array in each task, as they were in the spawner
+        assertEquals("[2000, 4, 4, 1.0]\n[2000, 4, 4, 1.0]\n[0, 2, 0.0]\n", result.output());
+    }
+
+    @Test
+    public void channelCapacityMustBeAWholeNumberInRange() {
+        OroEngine engine = new OroEngine();
+        for (String capacity : new String[] {"0", "0/0", "1.5", "2000000000"}) {
+            ExecutionResult result = engine.execute(engine.compile("channel(" + capacity + ");"));
+            assertFalse(capacity, result.succeeded());
+            assertTrue(result.diagnostics().toString(),
+                    result.diagnostics().get(0).message().contains("whole number from 1 to"));
+        }
+        ExecutionResult result = engine.execute(engine.compile(
+                "def c = channel(" + OroChannel.MAX_CAPACITY + "); send(c, 1); def got = receive(c);"));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertEquals(1.0, result.get("got"));
+    }
+
+    @Test
+    public void runtimeErrorsStayWithTheirRun() throws Exception {
+        OroEngine engine = new OroEngine();
+        CompiledScript failing = engine.compile("def x = 1; print missing;");
+        CompiledScript passing = engine.compile("def x = 2;");
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<ExecutionResult>> results = new ArrayList<>();
+            for (int run = 0; run < RUNS; run++) {
+                CompiledScript script = run % 2 == 0 ? failing : passing;
+                results.add(pool.submit(() -> engine.execute(script)));
+            }
+
+            for (int run = 0; run < RUNS; run++) {
+                ExecutionResult result = results.get(run).get(30, TimeUnit.SECONDS);
+                assertEquals(run % 2 != 0, result.succeeded());
+                assertEquals(run % 2 == 0 ? 1 : 0, result.diagnostics().size());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void scriptEngineEvaluatesSeparateBindingsConcurrently() throws Exception {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("oro");
+        assertNotNull(engine);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int run = 0; run < RUNS; run++) {
+                Bindings bindings = engine.createBindings();
+                bindings.put("n", (double) run);
+                results.add(pool.submit(() -> engine.eval("def square = n * n; square + 1", bindings)));
+            }
+
+            for (int run = 0; run < RUNS; run++) {
+                assertEquals(run * (double) run + 1, results.get(run).get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
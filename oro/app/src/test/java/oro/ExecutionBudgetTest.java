@@ -0,0 +1,151 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+// Runaway scripts must fail with a budget error instead of stalling their worker
+public class ExecutionBudgetTest {
+    private static final String SPIN = "while (true) {}";
+    private static final String QUADRATIC = "def s = \"\"; while (true) { s = s + \"xxxxxxxxxxxxxxxx\"; }";
+    private static final String SHORT = "def i = 0; while (i < 100) { i = i + 1; }";
+
+    @Test
+    public void stepBudgetStopsInfiniteLoop() {
+        OroEngine engine = new OroEngine(1, Budget.unlimited().withMaxSteps(10_000));
+        assertExceeded(engine.execute(engine.compile(SPIN)), "steps");
+        assertTrue(engine.execute(engine.compile(SHORT)).succeeded());
+    }
+
+    @Test
+    public void timeoutStopsInfiniteLoop() {
+        OroEngine engine = new OroEngine();
+        long start = System.nanoTime();
+        ExecutionResult result = engine.execute(engine.compile(SPIN), Map.of(),
+                Budget.unlimited().withTimeout(Duration.ofMillis(100)));
+        assertExceeded(result, "ms");
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void allocationBudgetStopsQuadraticStringBuild() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(QUADRATIC), Map.of(),
+                Budget.unlimited().withMaxAllocatedBytes(8 << 20));
+        assertExceeded(result, "bytes");
+    }
+
+    @Test
+    public void pooledInterpreterDoesNotKeepBudget() {
+        OroEngine engine = new OroEngine(1);
+        CompiledScript script = engine.compile(SHORT);
+        assertFalse(engine.execute(script, Map.of(), Budget.unlimited().withMaxSteps(10)).succeeded());
+        assertTrue(engine.execute(script).succeeded());
+    }
+
+    @Test
+    public void budgetAppliesToSpawnedTasks() {
+        OroEngine engine = new OroEngine(0, Budget.unlimited().withMaxSteps(10_000));
+        CompiledScript script = engine.compile("fun spin() { while (true) {} } def t = spawn(spin); await(t);");
+        ExecutionResult result = engine.execute(script);
+        assertFalse(result.succeeded());
+        assertTrue(result.diagnostics().toString(), result.diagnostics().toString().contains("Budget exceeded"));
+    }
+
+    @Test
+    public void stepBudgetIsSharedByPmapWorkers() {
+        OroEngine engine = new OroEngine(0, Budget.unlimited().withMaxSteps(600));
+        String work = "fun work(x) { def i = 0; while (i < 10) i = i + 1; return i; }";
+        assertTrue(engine.execute(engine.compile(work + " pmap([1, 2], work);")).succeeded());
+        assertExceeded(engine.execute(engine.compile(work
+                + " def xs = []; def n = 0; while (n < 40) { append(xs, n); n = n + 1; } pmap(xs, work);")), "steps");
+    }
+
+    @Test
+    public void shortTasksCountEveryStep() {
+        // Each task stays well under one CHECK_INTERVAL, so only its final flush counts it
+        OroEngine engine = new OroEngine(0, Budget.unlimited().withMaxSteps(5_000));
+        String work = "fun work() { def i = 0; while (i < 50) i = i + 1; return i; }";
+        assertTrue(engine.execute(engine.compile(work + " await(spawn(work));")).succeeded());
+        assertExceeded(engine.execute(engine.compile(work
+                + " def n = 0; while (n < 100) { spawn(work); n = n + 1; }")), "steps");
+    }
+
+    @Test
+    public void streamsStepOncePerSourceElement() {
+        OroEngine engine = new OroEngine(0, Budget.unlimited().withMaxSteps(10_000));
+        String text = "line\n".repeat(100_000);
+        // Nothing gets past drop, so the loop body never runs a step of its own
+        assertExceeded(engine.execute(engine.compile("for x in stream(lines(text)).drop(100000) print x;"),
+                Map.of("text", text)), "steps");
+        assertExceeded(engine.execute(engine.compile("def n = stream(lines(text)).drop(100000).count();"),
+                Map.of("text", text)), "steps");
+    }
+
+    @Test
+    public void timeoutStopsBlockingWaits() {
+        OroEngine engine = new OroEngine();
+        Budget budget = Budget.unlimited().withTimeout(Duration.ofMillis(100));
+        assertExceeded(engine.execute(engine.compile("def c = channel(1); receive(c);"), Map.of(), budget), "ms");
+        assertExceeded(engine.execute(engine.compile("def c = channel(1); send(c, 1); send(c, 2);"),
+                Map.of(), budget), "ms");
+        assertExceeded(engine.execute(engine.compile(
+                "def c = channel(1); fun wait() { return receive(c); } await(spawn(wait));"), Map.of(), budget), "ms");
+        assertExceeded(engine.execute(engine.compile(
+                "def c = channel(1); fun gen() { yield receive(c); } for x in gen() print x;"), Map.of(), budget), "ms");
+    }
+
+    @Test
+    public void runawayScriptsDoNotStarveTheBatch() throws Exception {
+        OroEngine engine = new OroEngine(4, Budget.unlimited().withTimeout(Duration.ofMillis(200)));
+        CompiledScript spin = engine.compile(SPIN);
+        CompiledScript good = engine.compile(SHORT);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ExecutionResult>> results = new ArrayList<>();
+            for (int run = 0; run < 40; run++) {
+                CompiledScript script = run % 4 == 0 ? spin : good;
+                results.add(pool.submit(() -> engine.execute(script)));
+            }
+            for (int run = 0; run < 40; run++) {
+                ExecutionResult result = results.get(run).get(30, TimeUnit.SECONDS);
+                assertEquals(run % 4 != 0, result.succeeded());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void scriptEngineReadsBudgetFromContext() {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("oro");
+        engine.getContext().setAttribute(OroScriptEngine.BUDGET,
+                Budget.unlimited().withMaxSteps(1_000), ScriptContext.ENGINE_SCOPE);
+        try {
+            engine.eval(SPIN);
+            fail("Expected the step budget to stop the loop");
+        } catch (ScriptException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Budget exceeded"));
+        }
+    }
+
+    private static void assertExceeded(ExecutionResult result, String limit) {
+        assertFalse(result.succeeded());
+        String message = result.diagnostics().get(0).message();
+        assertTrue(message, message.startsWith("Budget exceeded") && message.contains(limit));
+    }
+}
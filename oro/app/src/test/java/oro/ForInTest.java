@@ -0,0 +1,94 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static oro.Scripts.run;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+// for x in ... over every iterable kind, with and without parentheses
+public class ForInTest {
+
+    @Test
+    public void arraysMapsSetsAndStrings() {
+        ExecutionResult result = run(
+                "def total = 0;",
+                "for x in [1, 2, 3] total = total + x;",
+                "def keys = \"\";",
+                "for (k in {\"a\": 1, \"b\": 2}) { keys = keys + k; }",
+                "def members = 0;",
+                "for m in set([\"x\", \"y\", \"x\"]) members = members + 1;",
+                "def letters = [];",
+                "for c in \"héllo\"[1:4] append(letters, c);");
+        assertEquals(6.0, result.get("total"));
+        assertEquals("ab", result.get("keys"));
+        assertEquals(2.0, result.get("members"));
+        assertEquals("[é, l, l]", result.get("letters").toString());
+    }
+
+    @Test
+    public void eachPassHasItsOwnVariable() {
+        ExecutionResult result = run(
+                "def getters = [];",
+                "for x in [1, 2, 3] { fun get() { return x; } append(getters, get); }",
+                "def second = getters[1]();");
+        assertEquals(2.0, result.get("second"));
+    }
+
+    @Test
+    public void linesOfAString() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "def found = [];",
+                "def count = 0;",
+                "for line in lines(text) {",
+                "  count = count + 1;",
+                "  if (regex_match(\"MRN.*\", line)) append(found, line);",
+                "}")), Map.of("text", "MRN 1\r\nnothing\nMRN 2\n"));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertEquals(3.0, result.get("count"));
+        assertEquals("[MRN 1, MRN 2]", result.get("found").toString());
+    }
+
+    @Test
+    public void readLinesStreamsAFile() throws Exception {
+        Path file = Files.createTempFile("oro", ".txt");
+        try {
+            Files.writeString(file, "alpha\nbeta\ngamma\n");
+            ExecutionResult result = run(
+                    "def count = 0;",
+                    "def last = null;",
+                    "for line in readLines(\"" + file.toString().replace("\\", "/") + "\") {",
+                    "  count = count + 1;",
+                    "  last = line;",
+                    "}");
+            assertEquals(3.0, result.get("count"));
+            assertEquals("gamma", result.get("last"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void fileIsClosedWhenTheLoopFails() throws Exception {
+        Path file = Files.createTempFile("oro", ".txt");
+        try {
+            Files.writeString(file, "alpha\nbeta\n");
+            LineSource.FileLines lines = new LineSource.FileLines(file);
+            assertEquals("alpha", lines.next());
+            lines.close();
+            assertFalse(lines.hasNext());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void numbersCannotBeLoopedOver() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile("for x in 3 print x;"));
+        assertFalse(result.succeeded());
+    }
+}
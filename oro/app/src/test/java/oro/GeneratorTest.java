@@ -0,0 +1,144 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static oro.Scripts.run;
+
+// Functions that yield: lazy, one pass, closed when a loop stops early
+public class GeneratorTest {
+
+    @Test
+    public void yieldsInOrderToForIn() {
+        ExecutionResult result = run(
+                "fun upTo(n) { def i = 0; while (i < n) { yield i; i = i + 1; } }",
+                "def seen = [];",
+                "for x in upTo(4) append(seen, x);",
+                "def none = [];",
+                "for x in upTo(0) append(none, x);");
+        assertEquals("[0.0, 1.0, 2.0, 3.0]", result.get("seen").toString());
+        assertEquals("[]", result.get("none").toString());
+    }
+
+    @Test
+    public void bodyRunsOnlyWhenLoopedOver() {
+        ExecutionResult result = run(
+                "def log = [];",
+                "fun steps() { append(log, \"start\"); yield 1; append(log, \"after 1\"); yield 2; }",
+                "def g = steps();",
+                "def before = size(log);",
+                "for x in g append(log, x);");
+        assertEquals(0, ((Number) result.get("before")).intValue());
+        assertEquals("[start, 1.0, after 1, 2.0]", result.get("log").toString());
+    }
+
+    @Test
+    public void sharesVariablesLikeAPlainCall() {
+        ExecutionResult result = run(
+                "def produced = 0;",
+                "fun counted(xs) { for x in xs { produced = produced + 1; yield x * 10; } }",
+                "def total = 0;",
+                "for y in counted([1, 2, 3]) total = total + y + produced;");
+        assertEquals(3.0, result.get("produced"));
+        assertEquals(66.0, result.get("total"));
+    }
+
+    @Test
+    public void selfContainedBodiesRunAheadInOrder() {
+        // These bodies touch nothing outside themselves, so they fill a batch per handoff
+        ExecutionResult result = run(
+                "fun upTo(n) { def i = 0; while (i < n) { yield i; i = i + 1; } }",
+                "fun naturals() { def n = 0; while (true) { yield n; n = n + 1; } }",
+                "def total = 0;",
+                "def last = -1;",
+                "def ordered = true;",
+                "for x in upTo(1000) { if (x != last + 1) ordered = false; last = x; total = total + x; }",
+                "def firstThree = stream(naturals()).take(3).toArray();");
+        assertEquals(true, result.get("ordered"));
+        assertEquals(499500.0, result.get("total"));
+        assertEquals("[0.0, 1.0, 2.0]", result.get("firstThree").toString());
+
+        OroEngine engine = new OroEngine();
+        result = engine.execute(engine.compile(String.join("\n",
+                "fun broken() { def i = 0; while (i < 300) { yield i; i = i + 1; } yield -\"a\"; }",
+                "def seen = [];",
+                "for x in broken() append(seen, x);")));
+        assertFalse(result.succeeded());
+        // Every value yielded before the failure still reaches the loop
+        assertEquals(300, ((OroArray) result.get("seen")).size());
+    }
+
+    @Test
+    public void streamsStopTheBodyEarly() {
+        ExecutionResult result = run(
+                "def pulled = 0;",
+                "fun naturals() { def n = 0; while (true) { pulled = pulled + 1; yield n; n = n + 1; } }",
+                "fun big(n) { return n > 4; }",
+                "fun square(n) { return n * n; }",
+                "def firstBig = stream(naturals()).filter(big).first();",
+                "def squares = stream(naturals()).map(square).take(3).toArray();");
+        assertEquals(5.0, result.get("firstBig"));
+        assertEquals("[0.0, 1.0, 4.0]", result.get("squares").toString());
+        assertEquals(9.0, result.get("pulled"));
+    }
+
+    @Test
+    public void returnInsideALoopClosesTheGenerator() {
+        ExecutionResult result = run(
+                "fun words() { yield \"a\"; yield \"b\"; yield \"c\"; }",
+                "fun firstAfter(word) { def seen = false; for w in words() { if (seen) return w; if (w == word) seen = true; } return null; }",
+                "def found = firstAfter(\"a\");",
+                "def missing = firstAfter(\"c\");");
+        assertEquals("b", result.get("found"));
+        assertNull(result.get("missing"));
+    }
+
+    @Test
+    public void methodsCanYield() {
+        ExecutionResult result = run(
+                "class Bag { Bag(items) { self.items = items; } each() { for x in self.items yield x; } }",
+                "def out = [];",
+                "for x in Bag([\"p\", \"q\"]).each() append(out, x);");
+        assertEquals("[p, q]", result.get("out").toString());
+    }
+
+    @Test
+    public void errorsInTheBodyReachTheLoop() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "fun broken() { yield 1; yield missing; }",
+                "for x in broken() print x;")));
+        assertFalse(result.succeeded());
+        assertTrue(result.diagnostics().get(0).message().contains("missing"));
+    }
+
+    @Test
+    public void failedTasksSpawnedByTheBodyReachTheLoop() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "fun bad() { return -\"a\"; }",
+                "fun gen() { spawn(bad); yield 1; }",
+                "def seen = [];",
+                "for x in gen() append(seen, x);")));
+        assertFalse(result.succeeded());
+        assertEquals("[1.0]", result.get("seen").toString());
+    }
+
+    @Test
+    public void aGeneratorIsLoopedOverOnce() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "fun one() { yield 1; }",
+                "def g = one();",
+                "for x in g print x;",
+                "for x in g print x;")));
+        assertFalse(result.succeeded());
+        assertTrue(result.diagnostics().get(0).message().contains("only be looped over once"));
+    }
+
+    @Test
+    public void yieldOutsideAFunctionIsAnError() {
+        OroEngine engine = new OroEngine();
+        assertTrue(engine.compile("yield 1;").hasErrors());
+        assertTrue(engine.compile("class A { A() { yield 1; } }").hasErrors());
+    }
+}
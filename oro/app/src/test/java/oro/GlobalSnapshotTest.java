@@ -0,0 +1,111 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Forks of one snapshot must start from the prelude's state and never see each other's writes
+public class GlobalSnapshotTest {
+    private static final String PRELUDE = String.join("\n",
+            "fun makeCounter() { def count = 0; fun inc() { count = count + 1; return count; } return inc; }",
+            "class Box { Box(v) { self.v = v; } }",
+            "def counter = makeCounter();",
+            "def items = [1, 2];",
+            "def box = Box(items);",
+            "def config = parseJSON('{\"limit\": 3}');",
+            "def total = 0;");
+
+    private static final String JOB = String.join("\n",
+            "append(items, n);",
+            "box.v[0] = n;",
+            "config[\"limit\"] = n;",
+            "total = total + n;",
+            "def first = counter();",
+            "def second = counter();",
+            "def seen = size(box.v);");
+
+    @Test
+    public void forksAreIsolatedFromEachOtherAndTheSnapshot() throws Exception {
+        OroEngine engine = new OroEngine();
+        GlobalSnapshot snapshot = engine.snapshot(engine.compile(PRELUDE));
+        CompiledScript job = engine.compile(JOB);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ExecutionResult>> results = new ArrayList<>();
+            for (int run = 0; run < 200; run++) {
+                double n = run;
+                results.add(pool.submit(() -> engine.execute(job, snapshot, Map.of("n", n))));
+            }
+
+            for (int run = 0; run < 200; run++) {
+                ExecutionResult result = results.get(run).get(30, TimeUnit.SECONDS);
+                assertTrue(result.diagnostics().toString(), result.succeeded());
+                assertEquals((double) run, result.get("total"));
+                assertEquals(1.0, result.get("first"));
+                assertEquals(2.0, result.get("second"));
+                // items and box.v are the same array in the prelude and stay aliased in the fork
+                assertEquals(3, result.get("seen"));
+                assertEquals((double) run, ((OroArray) result.get("items")).get(0));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ExecutionResult untouched = engine.execute(engine.compile(
+                "def n = size(items); def limit = config[\"limit\"]; def c = counter();"), snapshot);
+        assertEquals(2, untouched.get("n"));
+        assertEquals(3.0, untouched.get("limit"));
+        assertEquals(1.0, untouched.get("c"));
+    }
+
+    @Test
+    public void flatTablesAreCopiedOnlyWhenWritten() {
+        OroEngine engine = new OroEngine();
+        GlobalSnapshot snapshot = engine.snapshot(engine.compile(String.join("\n",
+                "def words = [\"a\", \"b\"];",
+                "def table = {\"a\": 1};",
+                "def stop = set([\"x\"]);",
+                "def grid = [[1, 2], [3]];")));
+        CompiledScript job = engine.compile(String.join("\n",
+                "def before = [size(words), size(table), size(stop), size(grid[0])];",
+                "append(words, \"c\");",
+                "table[\"b\"] = 2;",
+                "add(stop, \"y\");",
+                "append(grid[0], 4);"));
+
+        for (int run = 0; run < 3; run++) {
+            ExecutionResult result = engine.execute(job, snapshot);
+            assertTrue(result.diagnostics().toString(), result.succeeded());
+            assertEquals("[2, 1, 1, 2]", result.get("before").toString());
+            assertEquals("[a, b, c]", result.get("words").toString());
+            assertEquals("{a=1.0, b=2.0}", result.get("table").toString());
+            assertEquals("[[1.0, 2.0, 4.0], [3.0]]", result.get("grid").toString());
+        }
+    }
+
+    @Test
+    public void liveValuesAreRejected() {
+        OroEngine engine = new OroEngine();
+        try {
+            engine.snapshot(engine.compile("def queues = {\"jobs\": channel(4)};"));
+            fail("expected the channel to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Prelude global 'queues' holds a channel, which a snapshot can't share between runs.",
+                    e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failingPreludeIsRejected() {
+        OroEngine engine = new OroEngine();
+        engine.snapshot(engine.compile("print missing;"));
+    }
+}
@@ -0,0 +1,126 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static oro.Scripts.run;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Off-heap line tables: made from strings, arrays and files, read back as Strings
+public class LineTableTest {
+
+    private static List<String> lines(LineTable table) {
+        List<String> lines = new ArrayList<>();
+        for (Object line : table) lines.add((String) line);
+        return lines;
+    }
+
+    @Test
+    public void splitsTextLikeLines() {
+        LineTable table = LineTable.ofText("alpha\r\nbéta\n\ngamma");
+        assertEquals(Arrays.asList("alpha", "béta", "", "gamma"), lines(table));
+        assertEquals(0, LineTable.ofText("").size());
+        assertEquals(1, LineTable.ofText("one\n").size());
+    }
+
+    @Test
+    public void indexSizeAndSlices() {
+        ExecutionResult result = run(Map.of("text", "a\nb\nc\nd\n"),
+                "def t = lineTable(text);",
+                "def n = size(t);",
+                "def second = t[1];",
+                "def middle = t[1:3];",
+                "def middleSize = size(middle);",
+                "def last = t[1:][2];");
+        assertEquals(4, ((Number) result.get("n")).intValue());
+        assertEquals("b", result.get("second"));
+        assertEquals(2, ((Number) result.get("middleSize")).intValue());
+        assertEquals("d", result.get("last"));
+    }
+
+    @Test
+    public void sortsByBytesWithoutDecoding() {
+        ExecutionResult result = run(Map.of(),
+                "def t = sort(lineTable([\"pear\", \"apple\", \"épée\", \"apples and pears\", \"apple\", \"Zed\"]));",
+                "def out = [];",
+                "for line in t append(out, line);");
+        assertEquals("[Zed, apple, apple, apples and pears, pear, épée]", result.get("out").toString());
+    }
+
+    @Test
+    public void sortMatchesStringOrderOnRandomText() {
+        Random random = new Random(7);
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder line = new StringBuilder("prefix-shared-by-all-");
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) line.append("abcé€ÿ".charAt(random.nextInt(6)));
+            strings.add(line.toString());
+        }
+        List<String> sorted = lines(LineTable.ofStrings(strings).sorted());
+        List<String> expected = new ArrayList<>(strings);
+        expected.sort(null);
+        assertEquals(expected, sorted);
+    }
+
+    @Test
+    public void regexFilterKeepsMatchingLines() {
+        ExecutionResult result = run(Map.of("text", "MRN: 00123\nnotes\nMRN: 0045é\nmrn: 1\n"),
+                "def t = regex_filter(\"MRN: [0-9]+\", lineTable(text));",
+                "def out = [];",
+                "for line in t append(out, line);",
+                "def fromArray = regex_filter(\"^b\", [\"a\", \"b1\", \"b2\"]);");
+        assertEquals("[MRN: 00123, MRN: 0045é]", result.get("out").toString());
+        assertEquals("[b1, b2]", result.get("fromArray").toString());
+    }
+
+    @Test
+    public void mapsAFile() throws Exception {
+        Path file = Files.createTempFile("oro", ".txt");
+        try {
+            Files.write(file, "zeta\nalpha\r\nmu\n".getBytes(StandardCharsets.UTF_8));
+            ExecutionResult result = run(Map.of("path", file.toString()),
+                    "def t = sort(readLineTable(path));",
+                    "def first = t[0];",
+                    "def n = size(t);");
+            assertEquals("alpha", result.get("first"));
+            assertEquals(3, ((Number) result.get("n")).intValue());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void fileChunksEndAtLineBreaks() throws Exception {
+        Path file = Files.createTempFile("oro", ".txt");
+        try {
+            List<String> written = new ArrayList<>();
+            Random random = new Random(3);
+            for (int i = 0; i < 200; i++) {
+                StringBuilder line = new StringBuilder();
+                int length = random.nextInt(14);
+                for (int j = 0; j < length; j++) line.append("ab€é".charAt(random.nextInt(4)));
+                written.add(line.toString());
+            }
+            Files.write(file, String.join("\n", written).getBytes(StandardCharsets.UTF_8));
+            assertEquals(written, lines(LineTable.ofFile(file, 48)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void badArgumentsAreErrors() {
+        OroEngine engine = new OroEngine();
+        assertFalse(engine.execute(engine.compile("lineTable([1, 2]);")).succeeded());
+        assertFalse(engine.execute(engine.compile("lineTable(\"a\")[5];")).succeeded());
+        assertFalse(engine.execute(engine.compile("fun f(a, b) { return 0; } sort(lineTable(\"a\"), f);")).succeeded());
+    }
+}
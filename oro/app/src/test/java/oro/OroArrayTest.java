@@ -0,0 +1,76 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Every operation must behave the same whichever backing store the array is in
+public class OroArrayTest {
+
+    @Test
+    public void numbersStayNumbersUntilSomethingElseIsStored() {
+        OroArray array = new OroArray();
+        for (int i = 0; i < 100; i++) array.append((double) i);
+        assertEquals(100, array.size());
+        assertEquals(42.0, array.get(42));
+
+        array.set(42, "forty-two");
+        assertEquals("forty-two", array.get(42));
+        assertEquals(41.0, array.get(41));
+        array.append(true);
+        assertEquals(true, array.get(100));
+        assertEquals(101, array.size());
+    }
+
+    @Test
+    public void stringsTransitionOnAppend() {
+        OroArray array = new OroArray(Arrays.asList("a", "b"));
+        array.append(1.0);
+        assertEquals("[a, b, 1.0]", array.toString());
+        assertEquals("b", array.remove(1));
+        assertEquals("[a, 1.0]", array.toString());
+    }
+
+    @Test
+    public void integersAreNotWidenedToDoubles() {
+        OroArray array = new OroArray(Arrays.asList(1.0, 2.0));
+        array.append(3);
+        assertEquals(Integer.valueOf(3), array.get(2));
+        assertEquals("[1.0, 2.0, 3]", array.toString());
+    }
+
+    @Test
+    public void mixedListAndNullsStartGeneral() {
+        OroArray array = new OroArray(Arrays.asList(1.0, null, "x"));
+        assertNull(array.get(1));
+        assertEquals("OroError: Array index out of bounds: 3", array.get(3));
+    }
+
+    @Test
+    public void listViewWritesThrough() {
+        OroArray array = new OroArray(Arrays.asList(1.0, 2.0, 3.0));
+        List<Object> view = array.getArray();
+        view.set(0, 10.0);
+        view.add("four");
+        assertEquals(10.0, array.get(0));
+        assertEquals("[10.0, 2.0, 3.0, four]", array.toString());
+    }
+
+    @Test
+    public void scriptIndexingWorksOnEveryStore() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "def nums = [1, 2, 3]; nums[1] = 20; def n = nums[1];",
+                "def strs = [\"a\", \"b\"]; strs[0] = \"z\"; def s = strs[0];",
+                "def mixed = [1, \"b\"]; mixed[0] = null; append(mixed, 3); def m = mixed[2];",
+                "nums[2] = \"three\"; def t = nums[2]; def total = size(nums);")));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertEquals(20.0, result.get("n"));
+        assertEquals("z", result.get("s"));
+        assertEquals(3.0, result.get("m"));
+        assertEquals("three", result.get("t"));
+        assertEquals(3, result.get("total"));
+    }
+}
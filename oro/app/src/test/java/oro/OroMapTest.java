@@ -0,0 +1,112 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Lookups must survive growth, removal and rebuilds, and iteration must keep insertion order
+public class OroMapTest {
+
+    @Test
+    public void growsAndKeepsInsertionOrder() {
+        OroMap map = new OroMap();
+        for (int i = 0; i < 1000; i++) map.put("k" + i, (double) i);
+        assertEquals(1000, map.size());
+        assertEquals(500.0, map.get("k500"));
+        assertEquals("k0", map.keySet().iterator().next());
+        assertNull(map.get("missing"));
+    }
+
+    @Test
+    public void removedKeysLeaveNoTrace() {
+        OroMap map = new OroMap();
+        for (int i = 0; i < 100; i++) map.put((double) i, "v" + i);
+        for (int i = 0; i < 100; i += 2) assertEquals("v" + i, map.remove((double) i));
+        assertEquals(50, map.size());
+        assertFalse(map.containsKey(0.0));
+        assertTrue(map.containsKey(1.0));
+        // Churn through tombstones so the table has to rebuild
+        for (int i = 0; i < 10000; i++) {
+            map.put(1000.0 + i, "x");
+            map.remove(1000.0 + i);
+        }
+        assertEquals(50, map.size());
+        assertEquals("v99", map.get(99.0));
+        assertEquals(1.0, map.keySet().iterator().next());
+    }
+
+    @Test
+    public void numbersAreOneKeyWhateverTheirBoxedType() {
+        OroMap map = new OroMap();
+        map.put(3.0, "three");
+        map.put(-0.0, "zero");
+        assertEquals("three", map.get(3));
+        assertEquals("zero", map.get(0.0));
+        map.put(3, "again");
+        assertEquals(2, map.size());
+        assertEquals("{3.0=again, 0.0=zero}", map.toString());
+    }
+
+    @Test
+    public void loopsStopWhenKeysChangeUnderThem() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "def m = {};",
+                "def i = 0; while (i < 20) { m[i] = i; i = i + 1; }",
+                "for k in m m[k] = m[k] * 2;",
+                "def total = 0; for k in m total = total + m[k];",
+                "for k in m m[k + 100] = k;")));
+        assertFalse(result.succeeded());
+        assertTrue(result.diagnostics().toString(),
+                result.diagnostics().get(0).message().contains("added or removed while looping"));
+        assertEquals(380.0, result.get("total"));
+
+        // Removing through the iterator is fine, even when it rebuilds the table
+        OroMap map = new OroMap();
+        for (int i = 0; i < 100; i++) map.put((double) i, "v");
+        int seen = 0;
+        for (java.util.Iterator<Object> keys = map.keySet().iterator(); keys.hasNext(); seen++) {
+            keys.next();
+            keys.remove();
+        }
+        assertEquals(100, seen);
+        assertTrue(map.isEmpty());
+    }
+
+    @Test(expected = RuntimeError.class)
+    public void arraysAreNotKeys() {
+        new OroMap().put(new OroArray(), 1.0);
+    }
+
+    @Test
+    public void literalsAndBuiltIns() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "def m = {\"a\": 1, 2: \"two\", true: [1, 2],};",
+                "m[\"b\"] = m[\"a\"] + 1;",
+                "def firstKey = keys(m)[0];",
+                "def n = size(m);",
+                "def hasTwo = has(m, 2);",
+                "def gone = remove(m, 2);",
+                "def hasTwoAfter = has(m, 2);",
+                "def lastPair = entries(m)[2];",
+                "def empty = size({});",
+                "def json = parseJSON('{\"x\": {\"y\": 5}}');",
+                "def y = json[\"x\"][\"y\"];")));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertEquals("a", result.get("firstKey"));
+        assertEquals(4, result.get("n"));
+        assertEquals(true, result.get("hasTwo"));
+        assertEquals("two", result.get("gone"));
+        assertEquals(false, result.get("hasTwoAfter"));
+        assertEquals("[b, 2.0]", result.get("lastPair").toString());
+        assertEquals(0, result.get("empty"));
+        assertEquals(5.0, result.get("y"));
+    }
+
+    @Test
+    public void jsonKeysMatchHowPrintShowsThem() {
+        ExecutionResult result = Scripts.run("def m = {\"a\": \"x\", 2: \"b\", 1.5: \"c\"};",
+                "for k in keys(m) print k;", "printJSON(m);");
+        assertEquals("a\n2\n1.5\n{\"a\": \"x\", \"2\": \"b\", \"1.5\": \"c\"}\n", result.output());
+    }
+}
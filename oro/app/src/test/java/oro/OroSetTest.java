@@ -0,0 +1,91 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+// Membership must hold across growth, removal and the move off the string-only store
+public class OroSetTest {
+
+    @Test
+    public void stringMembersDedupInInsertionOrder() {
+        OroSet set = new OroSet(Arrays.asList("b", "a", "b", "c", "a"));
+        assertEquals(3, set.size());
+        assertEquals("[b, a, c]", set.toString());
+        assertTrue(set.contains("c"));
+        assertFalse(set.contains("d"));
+        assertFalse(set.contains(new OroArray()));
+    }
+
+    @Test
+    public void nonStringMembersMoveToTheGeneralStore() {
+        OroSet set = new OroSet();
+        for (int i = 0; i < 100; i++) set.add("s" + i);
+        assertTrue(set.add(7.0));
+        assertFalse(set.add(7));
+        assertTrue(set.add(true));
+        assertEquals(102, set.size());
+        assertTrue(set.contains("s99"));
+        assertTrue(set.contains(7.0));
+        assertFalse(set.contains("7"));
+    }
+
+    @Test
+    public void removalSurvivesRebuilds() {
+        OroSet set = new OroSet();
+        for (int i = 0; i < 50; i++) set.add("keep" + i);
+        for (int i = 0; i < 10000; i++) {
+            set.add("churn" + i);
+            assertTrue(set.remove("churn" + i));
+        }
+        assertEquals(50, set.size());
+        assertTrue(set.contains("keep49"));
+        assertEquals("keep0", set.iterator().next());
+    }
+
+    @Test
+    public void loopsStopWhenMembersChangeUnderThem() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(
+                "def s = set([\"a\", \"b\"]); for x in s add(s, x + \"!\");"));
+        assertFalse(result.succeeded());
+        assertTrue(result.diagnostics().toString(),
+                result.diagnostics().get(0).message().contains("added or removed while looping"));
+    }
+
+    @Test(expected = RuntimeError.class)
+    public void nullIsNotAMember() {
+        new OroSet().add(null);
+    }
+
+    @Test
+    public void builtInsAndInOperator() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "def stop = set([\"a\", \"the\", \"of\"]);",
+                "def words = [\"the\", \"end\", \"of\", \"a\", \"story\", \"end\"];",
+                "def seen = set();",
+                "def kept = [];",
+                "def i = 0;",
+                "while (i < 6) {",
+                "  def word = words[i];",
+                "  if (!(word in stop) and add(seen, word)) append(kept, word);",
+                "  i = i + 1;",
+                "}",
+                "def both = size(intersect(set(words), stop));",
+                "def all = size(union(seen, stop));",
+                "def rest = difference(union(seen, stop), stop);",
+                "def inMap = \"x\" in {\"x\": 1};",
+                "def removed = remove(seen, \"end\");",
+                "def hasEnd = has(seen, \"end\");")));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertEquals("[end, story]", result.get("kept").toString());
+        assertEquals(3, result.get("both"));
+        assertEquals(5, result.get("all"));
+        assertEquals("[end, story]", result.get("rest").toString());
+        assertEquals(true, result.get("inMap"));
+        assertEquals(true, result.get("removed"));
+        assertEquals(false, result.get("hasEnd"));
+    }
+}
@@ -0,0 +1,91 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static oro.Scripts.run;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+// Stream stages run lazily in one pass and short-circuit as soon as the result is known
+public class OroStreamTest {
+
+    @Test
+    public void stagesAreFusedIntoOnePass() {
+        ExecutionResult result = run(
+                "def order = [];",
+                "fun odd(x) { append(order, f\"filter {x}\"); return x != 2 and x != 4; }",
+                "fun square(x) { append(order, f\"map {x}\"); return x * x; }",
+                "def squares = stream([1, 2, 3, 4, 5]).filter(odd).map(square).toArray();");
+        assertEquals("[1.0, 9.0, 25.0]", result.get("squares").toString());
+        assertEquals("[filter 1.0, map 1.0, filter 2.0, filter 3.0, map 3.0, filter 4.0, filter 5.0, map 5.0]",
+                result.get("order").toString());
+    }
+
+    @Test
+    public void shortCircuitingTerminals() {
+        ExecutionResult result = run(
+                "def pulled = 0;",
+                "fun big(x) { pulled = pulled + 1; return x > 2; }",
+                "def hit = stream([1, 2, 3, 4, 5]).filter(big).first();",
+                "def afterFirst = pulled;",
+                "def anyBig = stream([1, 5, 9]).any(big);",
+                "def taken = stream([1, 2, 3, 4, 5]).drop(1).take(2).toArray();",
+                "def none = stream([]).first();",
+                "def n = stream(\"abc\").count();");
+        assertEquals(3.0, result.get("hit"));
+        assertEquals(3.0, result.get("afterFirst"));
+        assertEquals(5.0, result.get("pulled"));
+        assertEquals(true, result.get("anyBig"));
+        assertEquals("[2.0, 3.0]", result.get("taken").toString());
+        assertNull(result.get("none"));
+        assertEquals(3.0, result.get("n"));
+    }
+
+    @Test
+    public void streamsAreReusableAndIterable() {
+        ExecutionResult result = run(
+                "fun add(a, b) { return a + b; }",
+                "fun double(x) { return x * 2; }",
+                "def doubled = stream([1, 2, 3]).map(double);",
+                "def sum = doubled.reduce(add, 0);",
+                "def again = doubled.reduce(add, 0);",
+                "def seen = [];",
+                "for x in doubled.take(2) append(seen, x);",
+                "def allEven = doubled.all(double);");
+        assertEquals(12.0, result.get("sum"));
+        assertEquals(12.0, result.get("again"));
+        assertEquals("[2.0, 4.0]", result.get("seen").toString());
+        assertEquals(true, result.get("allEven"));
+    }
+
+    @Test
+    public void fileSearchStopsAtTheFirstHit() throws Exception {
+        Path file = Files.createTempFile("oro", ".log");
+        try {
+            StringBuilder log = new StringBuilder();
+            for (int i = 0; i < 10000; i++) log.append(i == 10 ? "ERROR disk full" : "INFO ok " + i).append('\n');
+            Files.writeString(file, log);
+            OroEngine engine = new OroEngine();
+            ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                    "def read = 0;",
+                    "fun isError(line) { read = read + 1; return regex_match(\"ERROR.*\", line); }",
+                    "def hit = stream(readLines(path)).filter(isError).first();")),
+                    Map.of("path", file.toString()));
+            assertTrue(result.diagnostics().toString(), result.succeeded());
+            assertEquals("ERROR disk full", result.get("hit"));
+            assertEquals(11.0, result.get("read"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void unknownMethodsAreErrors() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile("stream([1]).sorted();"));
+        assertFalse(result.succeeded());
+        assertTrue(result.diagnostics().get(0).message().contains("no method 'sorted'"));
+    }
+}
@@ -0,0 +1,21 @@
+package oro;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+// Runs test scripts on a fresh engine and fails the test unless they succeed
+final class Scripts {
+    private Scripts() {}
+
+    static ExecutionResult run(String... lines) {
+        return run(Map.of(), lines);
+    }
+
+    static ExecutionResult run(Map<String, ?> bindings, String... lines) {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n", lines)), bindings);
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+package oro;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+// Slices share storage with their source until either side is written to
+public class SliceTest {
+
+    @Test
+    public void arraySliceIsCopiedOnWrite() {
+        OroArray array = new OroArray(Arrays.asList(0.0, 1.0, 2.0, 3.0, 4.0));
+        OroArray view = array.slice(1, 4);
+        assertEquals("[1.0, 2.0, 3.0]", view.toString());
+
+        view.set(0, "one");
+        assertEquals("[one, 2.0, 3.0]", view.toString());
+        assertEquals(1.0, array.get(1));
+
+        array.set(2, 20.0);
+        view.append(5.0);
+        assertEquals("[0.0, 1.0, 20.0, 3.0, 4.0]", array.toString());
+        assertEquals("[one, 2.0, 3.0, 5.0]", view.toString());
+    }
+
+    @Test
+    public void parentWritesDoNotReachTheSlice() {
+        OroArray array = new OroArray(Arrays.asList("a", "b", "c"));
+        OroArray view = array.slice(0, 2);
+        OroArray nested = view.slice(1, 2);
+        array.remove(0);
+        array.append("d");
+        assertEquals("[b, c, d]", array.toString());
+        assertEquals("[a, b]", view.toString());
+        assertEquals("[b]", nested.toString());
+    }
+
+    @Test
+    public void stringViewsBehaveLikeTheirString() {
+        String text = "hello, world";
+        CharSequence view = StringView.slice(text, 7, 12);
+        assertEquals("world", view.toString());
+        assertEquals("world".hashCode(), view.hashCode());
+        assertEquals("orl", StringView.slice(view, 1, 4).toString());
+        assertEquals(StringView.slice("xworld", 1, 6), view);
+        assertEquals('w', view.charAt(0));
+    }
+
+    @Test
+    public void sliceSyntax() {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile(String.join("\n",
+                "def a = [1, 2, 3, 4, 5];",
+                "def middle = a[1:4];",
+                "middle[0] = 20;",
+                "def tail = a[-2:];",
+                "def head = a[:2];",
+                "def none = a[4:2];",
+                "def s = \"patient: Jane Doe\";",
+                "def name = s[9:];",
+                "def first = name[:4];",
+                "def same = first == \"Jane\";",
+                "def joined = first + \"!\";",
+                "def n = length(name);",
+                "def found = regex_match(\"[A-Z][a-z]+\", first);",
+                "def counts = {}; counts[first] = 1; def keyed = counts[\"Jane\"];")));
+        assertTrue(result.diagnostics().toString(), result.succeeded());
+        assertEquals("[20.0, 3.0, 4.0]", result.get("middle").toString());
+        assertEquals("[1.0, 2.0, 3.0, 4.0, 5.0]", result.get("a").toString());
+        assertEquals("[4.0, 5.0]", result.get("tail").toString());
+        assertEquals("[1.0, 2.0]", result.get("head").toString());
+        assertEquals(0, ((OroArray) result.get("none")).size());
+        assertEquals("Jane", result.get("first").toString());
+        assertEquals(true, result.get("same"));
+        assertEquals("Jane!", result.get("joined"));
+        assertEquals(8, result.get("n"));
+        assertEquals(true, result.get("found"));
+        assertEquals(1.0, result.get("keyed"));
+    }
+
+    public interface Names {
+        String first(String name);
+    }
+
+    @Test
+    public void hostsGetStringsForViews() throws Exception {
+        OroEngine engine = new OroEngine();
+        ExecutionResult result = engine.execute(engine.compile("def s = \"patient: Jane Doe\"; def name = s[9:];"));
+        assertEquals("Jane Doe", result.get("name"));
+
+        ScriptEngine scripts = new ScriptEngineManager().getEngineByName("oro");
+        assertEquals("Jane", scripts.eval("def s = \"patient: Jane Doe\"; s[9:13];"));
+        scripts.eval("def last = s[14:]; fun first(name) { return name[:4]; }");
+        assertEquals("Doe", scripts.get("last"));
+        assertEquals("Jane", ((Invocable) scripts).invokeFunction("first", "Jane Doe"));
+        assertEquals("Jane", ((Invocable) scripts).getInterface(Names.class).first("Jane Doe"));
+    }
+
+    @Test
+    public void slicesCannotBeAssigned() {
+        OroEngine engine = new OroEngine();
+        CompiledScript script = engine.compile("def a = [1, 2]; a[0:1] = 3;");
+        assertTrue(script.hasErrors());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * JMH benchmarks for the language core: scanner, parser, resolver, interpreter
+ * workloads, JSON and regex built-ins. Benchmarks live in package oro so they can
+ * drive the package-private front end directly.
+ *
+ *   gradle :benchmarks:jmh                                  # everything
+ *   gradle :benchmarks:jmh -Pjmh.includes=JsonBenchmark     # one class
+ *
+ * Results go to build/results/jmh/results.json. The GC profiler is always on, so
+ * every result carries gc.alloc.rate.norm (bytes allocated per operation).
+ */
+
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jmh(project(":app"))
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    providers.gradleProperty("jmh.includes").orNull?.let { includes = listOf(it) }
+}
@@ -0,0 +1,111 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Native collection built-ins against the while loops scripts wrote before them. Both
+// versions run on one interpreter whose globals hold the same 10,000 random numbers.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ArrayFunctionsBenchmark {
+    private static final int N = 10_000;
+
+    @Param({"map", "filter", "reduce", "sort"})
+    public String operation;
+
+    private Interpreter interpreter;
+    private CompiledScript loop;
+    private CompiledScript builtin;
+
+    @Setup
+    public void setUp() {
+        interpreter = new Interpreter();
+        interpreter.setOutput(Workloads.discard());
+        Random random = new Random(42);
+        List<Object> data = new ArrayList<>(N);
+        for (int i = 0; i < N; i++) data.add((double) random.nextInt(1000));
+        interpreter.globals.define("data", new OroArray(data));
+        interpreter.run(Workloads.compile(String.join("\n",
+                "fun twice(x) { return x * 2; }",
+                "fun large(x) { return x > 500; }",
+                "fun add(a, b) { return a + b; }")).statements());
+
+        switch (operation) {
+            case "map":
+                loop = Workloads.compile(loop("def out = [];", "append(out, data[i] * 2);", "out"));
+                builtin = Workloads.compile("map(data, twice)");
+                break;
+            case "filter":
+                loop = Workloads.compile(loop("def out = [];", "if (data[i] > 500) append(out, data[i]);", "out"));
+                builtin = Workloads.compile("filter(data, large)");
+                break;
+            case "reduce":
+                loop = Workloads.compile(loop("def sum = 0;", "sum = sum + data[i];", "sum"));
+                builtin = Workloads.compile("reduce(data, add, 0)");
+                break;
+            case "sort":
+                loop = Workloads.compile(MERGE_SORT);
+                builtin = Workloads.compile("sort(data)");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    @Benchmark
+    public Object loop() {
+        return interpreter.run(loop.statements());
+    }
+
+    @Benchmark
+    public Object builtin() {
+        return interpreter.run(builtin.statements());
+    }
+
+    private static String loop(String before, String body, String result) {
+        return String.join("\n",
+                "{",
+                before,
+                "def i = 0;",
+                "while (i < " + N + ") { " + body + " i = i + 1; }",
+                result + ";",
+                "}");
+    }
+
+    // Bottom-up merge sort, the cheapest way to sort in Oro without a built-in
+    private static final String MERGE_SORT = String.join("\n",
+            "{",
+            "def n = " + N + ";",
+            "def src = data;",
+            "def width = 1;",
+            "while (width < n) {",
+            "  def dst = [];",
+            "  def lo = 0;",
+            "  while (lo < n) {",
+            "    def mid = lo + width; if (mid > n) mid = n;",
+            "    def hi = lo + 2 * width; if (hi > n) hi = n;",
+            "    def i = lo; def j = mid;",
+            "    while (i < mid or j < hi) {",
+            "      if (j >= hi or (i < mid and src[i] <= src[j])) { append(dst, src[i]); i = i + 1; }",
+            "      else { append(dst, src[j]); j = j + 1; }",
+            "    }",
+            "    lo = hi;",
+            "  }",
+            "  src = dst;",
+            "  width = width * 2;",
+            "}",
+            "src;",
+            "}");
+}
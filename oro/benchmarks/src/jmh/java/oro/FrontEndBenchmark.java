@@ -0,0 +1,49 @@
+package oro;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Scanner, parser and resolver, each measured alone on the same source
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrontEndBenchmark {
+    private List<Token> tokens;
+    private List<Stmt> statements;
+
+    @Setup
+    public void setUp() {
+        tokens = new Scanner(Workloads.SOURCE, new Diagnostics()).scanTokens();
+        statements = new Parser(tokens, new Diagnostics()).parse();
+    }
+
+    @Benchmark
+    public List<Token> scan() {
+        return new Scanner(Workloads.SOURCE, new Diagnostics()).scanTokens();
+    }
+
+    @Benchmark
+    public List<Stmt> parse() {
+        return new Parser(tokens, new Diagnostics()).parse();
+    }
+
+    // Resolution only annotates the tree, so re-resolving the same statements is repeatable
+    @Benchmark
+    public List<Stmt> resolve() {
+        new Resolver(new Diagnostics()).resolve(statements);
+        return statements;
+    }
+
+    @Benchmark
+    public CompiledScript compile() {
+        return CompiledScript.compile(Workloads.SOURCE);
+    }
+}
@@ -0,0 +1,67 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// for x in ... over 10,000 elements from a native source against the same elements
+// yielded by an Oro generator. Every loop body just counts, so the difference per
+// element is the cost of a generator handoff.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeneratorBenchmark {
+    private static final int N = 10_000;
+
+    @Param({"array", "lines", "generator"})
+    public String source;
+
+    private Interpreter interpreter;
+    private CompiledScript loop;
+
+    @Setup
+    public void setUp() {
+        interpreter = new Interpreter();
+        interpreter.setOutput(Workloads.discard());
+        List<Object> data = new ArrayList<>(N);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < N; i++) {
+            data.add((double) i);
+            text.append("line ").append(i).append('\n');
+        }
+        interpreter.globals.define("data", new OroArray(data));
+        interpreter.globals.define("text", text.toString());
+        interpreter.run(Workloads.compile(
+                "fun each(xs) { for x in xs yield x; }").statements());
+
+        String iterable;
+        switch (source) {
+            case "array":
+                iterable = "data";
+                break;
+            case "lines":
+                iterable = "lines(text)";
+                break;
+            case "generator":
+                iterable = "each(data)";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown source: " + source);
+        }
+        loop = Workloads.compile("{ def n = 0; for x in " + iterable + " n = n + 1; n; }");
+    }
+
+    @Benchmark
+    public Object loop() {
+        return interpreter.run(loop.statements());
+    }
+}
@@ -0,0 +1,43 @@
+package oro;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Whole-program workloads. Each is compiled once; every invocation runs it on a fresh
+// interpreter, which is how OroEngine executes scripts.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InterpreterBenchmark {
+    @Param({"fib", "strings", "arrays", "methods", "closures"})
+    public String workload;
+
+    private CompiledScript script;
+
+    @Setup
+    public void setUp() {
+        switch (workload) {
+            case "fib": script = Workloads.compile(Workloads.FIB); break;
+            case "strings": script = Workloads.compile(Workloads.STRINGS); break;
+            case "arrays": script = Workloads.compile(Workloads.ARRAYS); break;
+            case "methods": script = Workloads.compile(Workloads.METHODS); break;
+            case "closures": script = Workloads.compile(Workloads.CLOSURES); break;
+            default: throw new IllegalArgumentException("Unknown workload: " + workload);
+        }
+    }
+
+    @Benchmark
+    public Object run() {
+        Interpreter interpreter = new Interpreter();
+        interpreter.setOutput(Workloads.discard());
+        return interpreter.run(script.statements());
+    }
+}
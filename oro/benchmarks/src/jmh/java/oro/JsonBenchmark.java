@@ -0,0 +1,33 @@
+package oro;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// parseJSON on a single record, a page of records and a large export
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+    @Param({"1", "100", "10000"})
+    public int records;
+
+    private String json;
+
+    @Setup
+    public void setUp() {
+        json = Workloads.json(records);
+    }
+
+    @Benchmark
+    public Object parse() {
+        return new JSONParser(json).parse();
+    }
+}
@@ -0,0 +1,56 @@
+package oro;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// sort and regex_filter over 100,000 log-like lines held as an array of Strings and as
+// an off-heap line table. The gc.alloc.rate.norm column is the heap each run churns.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LineTableBenchmark {
+    private static final int N = 100_000;
+
+    @Param({"array", "table"})
+    public String source;
+
+    @Param({"sort", "filter"})
+    public String operation;
+
+    private Interpreter interpreter;
+    private CompiledScript script;
+
+    @Setup
+    public void setUp() {
+        interpreter = new Interpreter();
+        interpreter.setOutput(Workloads.discard());
+        Random random = new Random(42);
+        List<Object> lines = new ArrayList<>(N);
+        for (int i = 0; i < N; i++) {
+            lines.add("2024-03-" + (10 + random.nextInt(20)) + " host" + random.nextInt(50)
+                    + " user=" + Long.toHexString(random.nextLong())
+                    + (random.nextInt(10) == 0 ? " MRN: " + random.nextInt(100000) : " ok"));
+        }
+        OroArray array = new OroArray(lines);
+        interpreter.globals.define("lines", source.equals("array") ? array : LineTable.ofStrings(lines));
+        script = Workloads.compile(operation.equals("sort")
+                ? "sort(lines);"
+                : "regex_filter(\"MRN: [0-9]+\", lines);");
+    }
+
+    @Benchmark
+    public Object run() {
+        return interpreter.run(script.statements());
+    }
+}
@@ -0,0 +1,52 @@
+package oro;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// The regex built-ins as scripts call them: through the built-in table, with named
+// patterns resolved on every call
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RegexBenchmark {
+    private Interpreter interpreter;
+    private OroCallable match;
+    private OroCallable findAll;
+    private OroCallable replaceAll;
+
+    @Setup
+    public void setUp() {
+        interpreter = new Interpreter();
+        interpreter.setOutput(Workloads.discard());
+        match = builtIn("regex_match");
+        findAll = builtIn("regex_find_all");
+        replaceAll = builtIn("regex_replace_all");
+    }
+
+    @Benchmark
+    public Object match() {
+        return match.call(interpreter, List.of("\\d{3}-\\d{3}-\\d{4}", "617-555-0199"));
+    }
+
+    @Benchmark
+    public Object findAll() {
+        return findAll.call(interpreter, List.of("USPhoneNumber", Workloads.TEXT));
+    }
+
+    @Benchmark
+    public Object replaceAll() {
+        return replaceAll.call(interpreter, List.of("USSSN", "XXX-XX-XXXX", Workloads.TEXT));
+    }
+
+    private static OroCallable builtIn(String name) {
+        return (OroCallable) Interpreter.builtIns().get(new Token(TokenType.IDENTIFIER, name, null, 0, 0));
+    }
+}
@@ -0,0 +1,90 @@
+package oro;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// String built-ins applied to each line of a 20,000-line ASCII form, the way redaction
+// scripts use them (the lines are slices of the text), and getTxtText on the same text
+// saved as a file. The text is held as a String or as a ByteString over its bytes.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StringFunctionsBenchmark {
+    private static final int LINES = 20_000;
+
+    @Param({"contains", "trim", "toUpper", "replace", "getTxtText"})
+    public String operation;
+
+    @Param({"string", "bytes"})
+    public String representation;
+
+    private Interpreter interpreter;
+    private CompiledScript script;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            text.append("   Patient ").append(random.nextInt(100000))
+                    .append(random.nextInt(10) == 0 ? " MRN: " + random.nextInt(100000) : " seen")
+                    .append(" on 2024-03-").append(10 + random.nextInt(20)).append(", follow up   \n");
+        }
+        file = Files.createTempFile("oro-bench", ".txt");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        interpreter = new Interpreter();
+        interpreter.setOutput(Workloads.discard());
+        byte[] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+        interpreter.globals.define("text", representation.equals("bytes")
+                ? ByteString.ofAscii(bytes, bytes.length) : text.toString());
+        interpreter.globals.define("doc", new OroDocument(file.toString()));
+
+        String body;
+        switch (operation) {
+            case "contains":
+                body = "if (contains(line, \"MRN\")) n = n + 1;";
+                break;
+            case "trim":
+                body = "last = trim(line);";
+                break;
+            case "toUpper":
+                body = "last = toUpper(line);";
+                break;
+            case "replace":
+                body = "last = replace(line, \"MRN\", \"***\");";
+                break;
+            case "getTxtText":
+                script = Workloads.compile("length(getTxtText(doc));");
+                return;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+        script = Workloads.compile("{ def n = 0; def last = null; for line in lines(text) " + body + " }");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Object run() {
+        return interpreter.run(script.statements());
+    }
+}
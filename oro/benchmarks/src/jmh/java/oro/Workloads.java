@@ -0,0 +1,86 @@
+package oro;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+
+// Oro programs and inputs shared by the benchmarks. Sizes are picked so one
+// operation takes roughly a millisecond, long enough to dwarf harness overhead.
+final class Workloads {
+    static final String FIB = String.join("\n",
+            "fun fib(n) { if (n <= 1) return n; return fib(n - 2) + fib(n - 1); }",
+            "fib(20)");
+
+    static final String STRINGS = String.join("\n",
+            "def s = \"\";",
+            "def i = 0;",
+            "while (i < 2000) { s = s + \"x\"; i = i + 1; }",
+            "length(s)");
+
+    static final String ARRAYS = String.join("\n",
+            "def a = [];",
+            "def i = 0;",
+            "while (i < 5000) { append(a, i); i = i + 1; }",
+            "def sum = 0;",
+            "i = 0;",
+            "while (i < 5000) { sum = sum + a[i]; i = i + 1; }",
+            "sum");
+
+    static final String METHODS = String.join("\n",
+            "class Point {",
+            "  Point(x, y) { self.x = x; self.y = y; }",
+            "  add(other) { return Point(self.x + other.x, self.y + other.y); }",
+            "  norm() { return self.x * self.x + self.y * self.y; }",
+            "}",
+            "def p = Point(0, 0);",
+            "def step = Point(1, 2);",
+            "def i = 0;",
+            "while (i < 5000) { p = p.add(step); i = i + 1; }",
+            "p.norm()");
+
+    static final String CLOSURES = String.join("\n",
+            "fun makeAdder(n) { fun add(x) { return x + n; } return add; }",
+            "fun makeCounter() { def count = 0; fun inc() { count = count + 1; return count; } return inc; }",
+            "def counter = makeCounter();",
+            "def total = 0;",
+            "def i = 0;",
+            "while (i < 5000) { def add = makeAdder(i); total = add(total); counter(); i = i + 1; }",
+            "total + counter()");
+
+    // Front-end input: every workload, each copy in its own block so repeated
+    // definitions don't collide; the token stream is a few thousand long
+    static final String SOURCE = ("{\n" + String.join("\n",
+            FIB + ";", STRINGS + ";", ARRAYS + ";", METHODS + ";", CLOSURES + ";") + "\n}\n").repeat(20);
+
+    static final String TEXT = ("Patient Jane Roe, DOB 01/02/1980, phone 617-555-0199, email jane.roe@example.com, "
+            + "SSN 123-45-6789, balance $1,234.56. Follow up with Dr. Smith at (617) 555-0123.\n").repeat(50);
+
+    private Workloads() {}
+
+    // JSON document with the given number of records, each a small nested object
+    static String json(int records) {
+        StringBuilder json = new StringBuilder("{\"records\": [");
+        for (int i = 0; i < records; i++) {
+            if (i > 0) json.append(", ");
+            json.append("{\"id\": ").append(i)
+                .append(", \"name\": \"patient ").append(i).append("\"")
+                .append(", \"score\": ").append(i * 0.25)
+                .append(", \"active\": ").append(i % 2 == 0)
+                .append(", \"tags\": [\"a\", \"b\", \"c\"]")
+                .append(", \"address\": {\"city\": \"Boston\", \"zip\": \"02115\"}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    static CompiledScript compile(String source) {
+        CompiledScript script = CompiledScript.compile(source);
+        if (script.hasErrors()) {
+            throw new IllegalStateException(script.diagnostics().toString());
+        }
+        return script;
+    }
+
+    // Output is discarded so benchmarks measure the interpreter, not the console
+    static PrintWriter discard() {
+        return new PrintWriter(Writer.nullWriter());
+    }
+}
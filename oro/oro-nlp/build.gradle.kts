@@ -0,0 +1,68 @@
+/*
+ * OCR and named entity redaction for Oro (Tess4J + Stanford CoreNLP). Adds the
+ * redactHIPAA built-ins through the oro.OroLibrary SPI. The CoreNLP models jar is
+ * several hundred MB, so only nodes that redact documents should install this.
+ */
+
+plugins {
+    `java-library`
+    // Distribution with the core interpreter plus the full redaction stack
+    application
+    // Stage and pipeline benchmarks on synthetic records; see src/jmh
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    implementation(project(":app"))
+    api(project(":oro-pdf"))
+    implementation(libs.corenlp)
+    implementation(variantOf(libs.corenlp) { classifier("models") }) // includes models like NER
+    implementation(libs.tess4j)
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+// Native Tesseract and its language data, installed locally
+val tesseractJvmArgs = listOf(
+    "-Djna.library.path=/usr/local/lib",
+    "-Dtessdata.path=/usr/local/share/tessdata"
+)
+
+application {
+    mainClass = "oro.Oro"
+    applicationDefaultJvmArgs = tesseractJvmArgs
+}
+
+tasks.named<JavaExec>("run") {
+    jvmArgs = tesseractJvmArgs
+}
+
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    jvmArgsAppend = tesseractJvmArgs
+    providers.gradleProperty("jmh.includes").orNull?.let { includes = listOf(it) }
+}
+
+// Whole-pipeline timings and PHI coverage: -Pharness.args="<pages> <runs> <output dir>"
+tasks.register<JavaExec>("redactionHarness") {
+    group = "verification"
+    description = "Times each redaction stage on synthetic PDFs and checks every PHI value is covered."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "oro.RedactionHarness"
+    jvmArgs = tesseractJvmArgs
+    args = providers.gradleProperty("harness.args").orNull?.split(" ") ?: emptyList()
+}
@@ -0,0 +1,137 @@
+package oro;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import net.sourceforge.tess4j.ITesseract;
+import net.sourceforge.tess4j.Word;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Each stage of the OCR redaction pipeline on one synthetic page, with every earlier
+// stage's output prepared in setup, plus both whole pipelines on a multi-page record.
+// Needs Tesseract and tessdata installed locally; nothing is downloaded.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RedactionBenchmark {
+    private static final int PIPELINE_PAGES = 3;
+
+    @Param({"TEXT", "IMAGE"})
+    public SyntheticRecords.Variant variant;
+
+    private PDDocument page;
+    private PDFRenderer renderer;
+    private BufferedImage image;
+    private ITesseract tesseract;
+    private StanfordCoreNLP nlp;
+    private List<Word> words;
+    private List<Rectangle> boxes;
+    private PDDocument redacted;
+
+    private Path dir;
+    private String input;
+    private String output;
+
+    @Setup
+    public void setUp() throws IOException {
+        page = SyntheticRecords.generate(1, variant).load();
+        renderer = new PDFRenderer(page);
+        image = HIPAARedactor.render(renderer, 0);
+        tesseract = HIPAARedactor.tesseract();
+        nlp = HIPAARedactor.nlpPipeline();
+        words = HIPAARedactor.ocr(tesseract, image);
+        boxes = new ArrayList<>();
+        for (HIPAARedactor.RedactedWord word : HIPAARedactor.findPII(words, HIPAARedactor.annotate(nlp, words))) {
+            boxes.add(word.bounds);
+        }
+        redacted = new PDDocument();
+        HIPAARedactor.addImagePage(redacted, image);
+
+        dir = Files.createTempDirectory("oro-redaction");
+        input = dir.resolve("record.pdf").toString();
+        output = dir.resolve("redacted.pdf").toString();
+        Files.write(Path.of(input), SyntheticRecords.generate(PIPELINE_PAGES, variant).bytes);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        page.close();
+        redacted.close();
+        Files.deleteIfExists(Path.of(input));
+        Files.deleteIfExists(Path.of(output));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public BufferedImage render() throws IOException {
+        return HIPAARedactor.render(renderer, 0);
+    }
+
+    @Benchmark
+    public List<Word> ocr() {
+        return HIPAARedactor.ocr(tesseract, image);
+    }
+
+    @Benchmark
+    public Object ner() {
+        return HIPAARedactor.findPII(words, HIPAARedactor.annotate(nlp, words));
+    }
+
+    // Filling the same boxes again is idempotent, so the prepared image can be reused
+    @Benchmark
+    public BufferedImage draw() {
+        HIPAARedactor.drawBoxes(image, boxes);
+        return image;
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            HIPAARedactor.addImagePage(doc, image);
+            return doc.getNumberOfPages();
+        }
+    }
+
+    @Benchmark
+    public int save() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        redacted.save(out);
+        return out.size();
+    }
+
+    // Includes loading the NER models, which dominates short documents
+    @Benchmark
+    public void pipelineOcr() throws IOException {
+        HIPAARedactor.redactHIPAA(new OroPDFDocument(input), output);
+    }
+
+    // Finds nothing on the IMAGE variant, which has no text layer
+    @Benchmark
+    public void pipelineTextLayer() throws IOException {
+        PDFRedactionTool.redactDocument(input, output);
+    }
+}
@@ -0,0 +1,129 @@
+package oro;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+/**
+ * End-to-end timing of the redaction pipelines on synthetic records. Runs each
+ * pipeline on each variant, reports mean milliseconds per stage and checks that
+ * every known PHI value ended up under a redaction box.
+ *
+ *   gradle :oro-nlp:redactionHarness -Pharness.args="<pages> <runs> <output dir>"
+ *
+ * Works offline: Tesseract reads tessdata from -Dtessdata.path and CoreNLP loads its
+ * models from the classpath.
+ */
+public class RedactionHarness {
+    private static final RedactionTimings.Stage[] STAGES = RedactionTimings.Stage.values();
+
+    private interface Pipeline {
+        void redact(String input, String output, RedactionTimings timings) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Path dir = Path.of(args.length > 2 ? args[2] : "build/redaction-harness");
+
+        Path tessdata = Path.of(System.getProperty("tessdata.path", "/usr/local/share/tessdata"));
+        if (!Files.exists(tessdata.resolve("eng.traineddata"))) {
+            System.err.println("No eng.traineddata in " + tessdata + "; set -Dtessdata.path to a local tessdata directory.");
+            System.exit(2);
+        }
+        Files.createDirectories(dir);
+
+        System.out.printf("%d pages, %d runs after one warmup; mean ms per run%n%n", pages, runs);
+        StringBuilder header = new StringBuilder(String.format("%-11s %-6s", "pipeline", "input"));
+        for (RedactionTimings.Stage stage : STAGES) {
+            header.append(String.format(" %8s", stage.name().toLowerCase()));
+        }
+        System.out.println(header.append(String.format(" %9s %8s", "total", "phi")));
+
+        for (SyntheticRecords.Variant variant : SyntheticRecords.Variant.values()) {
+            SyntheticRecords.Document document = SyntheticRecords.generate(pages, variant);
+            String input = dir.resolve("record-" + variant.name().toLowerCase() + ".pdf").toString();
+            Files.write(Path.of(input), document.bytes);
+
+            run("ocr", document, input, dir, runs,
+                    (in, out, timings) -> HIPAARedactor.redactHIPAA(new OroPDFDocument(in), out, timings));
+            if (variant == SyntheticRecords.Variant.TEXT) {
+                run("text-layer", document, input, dir, runs, PDFRedactionTool::redactDocument);
+            }
+        }
+    }
+
+    private static void run(String name, SyntheticRecords.Document document, String input, Path dir,
+                            int runs, Pipeline pipeline) throws IOException {
+        String output = dir.resolve(name + "-" + document.variant.name().toLowerCase() + "-redacted.pdf").toString();
+        pipeline.redact(input, output, new RedactionTimings());
+
+        Map<RedactionTimings.Stage, Double> sums = new EnumMap<>(RedactionTimings.Stage.class);
+        double total = 0;
+        for (int i = 0; i < runs; i++) {
+            RedactionTimings timings = new RedactionTimings();
+            long start = System.nanoTime();
+            pipeline.redact(input, output, timings);
+            total += (System.nanoTime() - start) / 1e6;
+            timings.millis().forEach((stage, millis) -> sums.merge(stage, millis, Double::sum));
+        }
+
+        StringBuilder row = new StringBuilder(String.format("%-11s %-6s", name, document.variant.name().toLowerCase()));
+        for (RedactionTimings.Stage stage : STAGES) {
+            Double sum = sums.get(stage);
+            row.append(sum == null ? String.format(" %8s", "-") : String.format(" %8.1f", sum / runs));
+        }
+        List<SyntheticRecords.Phi> missed = uncovered(output, document.phi);
+        row.append(String.format(" %9.1f %8s", total / runs, (document.phi.size() - missed.size()) + "/" + document.phi.size()));
+        System.out.println(row);
+        for (SyntheticRecords.Phi phi : missed) {
+            System.out.println("    not redacted: " + phi);
+        }
+    }
+
+    // PHI whose box is not almost entirely dark in the redacted output. Glyph strokes
+    // are dark too, so a single sample point would pass unredacted text.
+    private static List<SyntheticRecords.Phi> uncovered(String output, List<SyntheticRecords.Phi> phi) throws IOException {
+        final float scale = 2; // render at 144 dpi
+        List<SyntheticRecords.Phi> missed = new ArrayList<>();
+        try (PDDocument doc = PDDocument.load(Path.of(output).toFile())) {
+            PDFRenderer renderer = new PDFRenderer(doc);
+            BufferedImage image = null;
+            int rendered = -1;
+            for (SyntheticRecords.Phi value : phi) {
+                if (value.page != rendered) {
+                    image = renderer.renderImage(value.page, scale, ImageType.GRAY);
+                    rendered = value.page;
+                }
+                PDRectangle box = value.bounds;
+                float pageHeight = doc.getPage(value.page).getMediaBox().getHeight();
+                int x0 = Math.round(box.getLowerLeftX() * scale) + 1;
+                int x1 = Math.round(box.getUpperRightX() * scale) - 1;
+                int y0 = Math.round((pageHeight - box.getUpperRightY()) * scale) + 1;
+                int y1 = Math.round((pageHeight - box.getLowerLeftY()) * scale) - 1;
+                int dark = 0;
+                int pixels = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        if ((image.getRGB(x, y) & 0xff) < 64) dark++;
+                        pixels++;
+                    }
+                }
+                if (dark < pixels * 0.9) {
+                    missed.add(value);
+                }
+            }
+        }
+        return missed;
+    }
+}
@@ -0,0 +1,181 @@
+package oro;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+// Generates medical record release forms with PHI at known positions. Deterministic:
+// the same page count always yields the same document, so runs are comparable.
+final class SyntheticRecords {
+    private static final float FONT_SIZE = 12;
+    private static final float LEFT = 60;
+    private static final float TOP = 720;
+    private static final float LEADING = 22;
+    private static final int SCAN_DPI = 300;
+
+    private static final String[] FIRST = { "Jane", "John", "Maria", "Wei", "Aisha", "Carlos", "Olga", "Samuel" };
+    private static final String[] LAST = { "Roe", "Doe", "Garcia", "Chen", "Khan", "Silva", "Petrova", "Okafor" };
+    private static final String[] CITY = { "Boston", "Chicago", "Denver", "Seattle", "Atlanta", "Phoenix" };
+
+    enum Variant {
+        TEXT,   // text layer, as exported by an EHR
+        IMAGE   // scanned: one JPEG per page, no text layer
+    }
+
+    // One PHI value on the page, in PDF user space (origin bottom-left, points)
+    static final class Phi {
+        final int page;
+        final String label;
+        final String text;
+        final PDRectangle bounds;
+
+        Phi(int page, String label, String text, PDRectangle bounds) {
+            this.page = page;
+            this.label = label;
+            this.text = text;
+            this.bounds = bounds;
+        }
+
+        @Override
+        public String toString() {
+            return "page " + (page + 1) + " " + label + " '" + text + "'";
+        }
+    }
+
+    static final class Document {
+        final Variant variant;
+        final byte[] bytes;
+        final List<Phi> phi;
+        // Plain text of every line, in reading order; input for the NER stage
+        final List<String> lines;
+
+        Document(Variant variant, byte[] bytes, List<Phi> phi, List<String> lines) {
+            this.variant = variant;
+            this.bytes = bytes;
+            this.phi = phi;
+            this.lines = lines;
+        }
+
+        PDDocument load() throws IOException {
+            return PDDocument.load(bytes);
+        }
+    }
+
+    private SyntheticRecords() {}
+
+    static Document generate(int pages, Variant variant) throws IOException {
+        List<Phi> phi = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        byte[] text = textLayer(pages, phi, lines);
+        byte[] bytes = variant == Variant.TEXT ? text : scan(text);
+        return new Document(variant, bytes, phi, lines);
+    }
+
+    private static byte[] textLayer(int pages, List<Phi> phi, List<String> lines) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            PDType0Font font = loadFont(doc);
+            for (int page = 0; page < pages; page++) {
+                PDPage pdPage = new PDPage(PDRectangle.LETTER);
+                doc.addPage(pdPage);
+                try (PDPageContentStream content = new PDPageContentStream(doc, pdPage)) {
+                    content.setFont(font, FONT_SIZE);
+                    float y = TOP;
+                    for (String[] field : fields(page)) {
+                        String label = field[0];
+                        String value = field[1];
+                        String prefix = label.isEmpty() ? "" : label + ": ";
+                        show(content, prefix + value, LEFT, y);
+                        lines.add(prefix + value);
+                        if (field.length > 2) {
+                            float x = LEFT + width(font, prefix);
+                            phi.add(new Phi(page, label, value,
+                                    new PDRectangle(x, y - 3, width(font, value), FONT_SIZE + 3)));
+                        }
+                        y -= LEADING;
+                    }
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    // Form fields for one page; a third element marks the value as PHI
+    private static List<String[]> fields(int page) {
+        String first = FIRST[page % FIRST.length];
+        String last = LAST[(page * 3 + 1) % LAST.length];
+        String city = CITY[page % CITY.length];
+        int n = 1000 + page * 37;
+        List<String[]> fields = new ArrayList<>();
+        fields.add(new String[] { "", "AUTHORIZATION FOR RELEASE OF MEDICAL RECORDS" });
+        fields.add(new String[] { "", "Please complete all fields. Incomplete forms will be returned." });
+        fields.add(new String[] { "Patient Name", first + " " + last, "phi" });
+        fields.add(new String[] { "Date of Birth", String.format("%02d/%02d/19%02d", page % 12 + 1, page % 28 + 1, 50 + page % 45), "phi" });
+        fields.add(new String[] { "SSN", String.format("%03d-%02d-%04d", 100 + page, 10 + page % 90, n), "phi" });
+        fields.add(new String[] { "Phone", String.format("617-555-%04d", n), "phi" });
+        fields.add(new String[] { "Email", first.toLowerCase() + "." + last.toLowerCase() + "@example.com", "phi" });
+        fields.add(new String[] { "City", city, "phi" });
+        fields.add(new String[] { "ZIP", String.format("%05d", 2115 + page), "phi" });
+        fields.add(new String[] { "MRN", "MRN " + (4000000 + n), "phi" });
+        fields.add(new String[] { "Physician", "Dr. Gregory House" });
+        fields.add(new String[] { "Hospital", "Princeton Plainsboro Teaching Hospital" });
+        fields.add(new String[] { "", "I authorize the release of my health information to the recipient" });
+        fields.add(new String[] { "", "named below for the purpose of continuing medical care." });
+        fields.add(new String[] { "Recipient", "Records Department, General Clinic" });
+        return fields;
+    }
+
+    // Renders each page and re-embeds it as a JPEG, the way a desktop scanner would
+    private static byte[] scan(byte[] textLayer) throws IOException {
+        try (PDDocument source = PDDocument.load(textLayer); PDDocument scanned = new PDDocument()) {
+            PDFRenderer renderer = new PDFRenderer(source);
+            for (int page = 0; page < source.getNumberOfPages(); page++) {
+                BufferedImage image = renderer.renderImageWithDPI(page, SCAN_DPI, ImageType.GRAY);
+                PDPage pdPage = new PDPage(PDRectangle.LETTER);
+                scanned.addPage(pdPage);
+                PDImageXObject pdImage = JPEGFactory.createFromImage(scanned, image, 0.9f);
+                try (PDPageContentStream content = new PDPageContentStream(scanned, pdPage)) {
+                    PDRectangle box = pdPage.getMediaBox();
+                    content.drawImage(pdImage, 0, 0, box.getWidth(), box.getHeight());
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            scanned.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void show(PDPageContentStream content, String text, float x, float y) throws IOException {
+        content.beginText();
+        content.newLineAtOffset(x, y);
+        content.showText(text);
+        content.endText();
+    }
+
+    private static float width(PDType0Font font, String text) throws IOException {
+        return font.getStringWidth(text) / 1000 * FONT_SIZE;
+    }
+
+    private static PDType0Font loadFont(PDDocument doc) throws IOException {
+        try (InputStream in = SyntheticRecords.class.getResourceAsStream("/NotoSans-Regular.ttf")) {
+            if (in == null) {
+                throw new IOException("Bundled font NotoSans-Regular.ttf not found");
+            }
+            return PDType0Font.load(doc, in);
+        }
+    }
+}
@@ -1,150 +1,93 @@
 package oro;
 
-// PDFBox
 import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.util.CoreMap;
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.ITesseract;
+import net.sourceforge.tess4j.Tesseract;
+import net.sourceforge.tess4j.Word;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
-import org.apache.pdfbox.text.PDFTextStripper;
-
-
-import net.sourceforge.tess4j.ITesseract;
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.Word;
-import net.sourceforge.tess4j.ITessAPI;
-
-
-import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-
-// CoreNLP
-import edu.stanford.nlp.ling.CoreLabel;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
-
-// Java standard
-import java.io.*;
 import java.util.*;
 import java.util.List;
 import java.util.regex.Pattern;
 
-public class OroPDFDocument {
-    private PDDocument document;
-    private String filePath;
-
-    public OroPDFDocument(String filePath) throws IOException {
-        this.document = PDDocument.load(new File(filePath));
-        this.filePath = filePath;
-    }
-
-    public String getPDFText() throws IOException {
-        PDFTextStripper stripper = new PDFTextStripper();
-        return stripper.getText(document);
-    }
-
-    public String getFilePath() {
-        return filePath;
-    }
-
-    public static void createPDF(String outputPath, String newText) throws IOException {
-        try (PDDocument newDoc = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.LETTER);
-            newDoc.addPage(page);
-
-            PDPageContentStream contentStream = new PDPageContentStream(newDoc, page);
-            PDType0Font font = PDType0Font.load(newDoc, new File("src/main/resources/fonts/NotoSans-Regular.ttf"));
-            contentStream.setFont(font, 12);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(50, 700);
-
-            // Split text into lines if necessary
-            String[] lines = newText.split("\n");
-            for (String line : lines) {
-                contentStream.showText(line);
-                contentStream.newLineAtOffset(0, -15); // Move down for next line
-            }
-
-            contentStream.endText();
-            contentStream.close();
-
-            newDoc.save(outputPath);
-        }
-    }
-
+// OCR + named entity redaction of PDFs (Tess4J and Stanford CoreNLP)
+public class HIPAARedactor {
+    // Overridable so benchmarks and tests can point at a local tessdata checkout
+    private static final String TESSDATA = System.getProperty("tessdata.path", "/usr/local/share/tessdata/");
+    private static final boolean DEBUG = Boolean.getBoolean("oro.redact.debug");
+    private static final int DPI = 300;
 
     // redactHIPAA with a reference pdf
     public static void redactHIPAARef(OroPDFDocument pdf, String outputPath, OroPDFDocument template) throws IOException {
+        redactHIPAARef(pdf, outputPath, template, new RedactionTimings());
+    }
+
+    public static void redactHIPAARef(OroPDFDocument pdf, String outputPath, OroPDFDocument template,
+                                      RedactionTimings timings) throws IOException {
+        long start = timings.start();
         PDDocument filledDoc = pdf.copyDocument();
         PDDocument templateDoc = template.copyDocument();
         PDDocument redactedDoc = new PDDocument();
-        ITesseract tesseract = new Tesseract();
-
-        // Optional: set your actual tessdata path if needed
-        tesseract.setDatapath("/usr/local/share/tessdata/");
-        tesseract.setLanguage("eng");
+        ITesseract tesseract = tesseract();
+        StanfordCoreNLP pipeline = nlpPipeline();
+        timings.stop(RedactionTimings.Stage.LOAD, start);
 
         PDFRenderer filledRenderer = new PDFRenderer(filledDoc);
         PDFRenderer templateRenderer = new PDFRenderer(templateDoc);
 
         for (int i = 0; i < filledDoc.getNumberOfPages(); i++) {
-            // 1. OCR the filled page
-            BufferedImage filledImage = filledRenderer.renderImageWithDPI(i, 300, ImageType.RGB);
-            List<Word> words = tesseract.getWords(filledImage, ITessAPI.TessPageIteratorLevel.RIL_WORD);
-
-            // Necessary annotations for Stanford NLP
-            StringBuilder fullfilledText = new StringBuilder();
-            for (Word word : words) {
-                fullfilledText.append(word.getText()).append(" ");
-            }
-
-            BufferedImage templateImage = templateRenderer.renderImageWithDPI(i, 300, ImageType.RGB);
-            List<Word> templateWords = tesseract.getWords(templateImage, ITessAPI.TessPageIteratorLevel.RIL_WORD);
-
-
+            // 1. OCR the filled page and the blank template
+            start = timings.start();
+            BufferedImage filledImage = render(filledRenderer, i);
+            BufferedImage templateImage = render(templateRenderer, i);
+            timings.stop(RedactionTimings.Stage.RENDER, start);
+
+            start = timings.start();
+            List<Word> words = ocr(tesseract, filledImage);
+            List<Word> templateWords = ocr(tesseract, templateImage);
+            timings.stop(RedactionTimings.Stage.OCR, start);
+
+            // 2. Only words that are not part of the template can be PHI
+            start = timings.start();
             List<Word> redactionCandidates = getDifferentWords(words, templateWords);
-
-            // Setup NLP
-            Properties props = new Properties();
-            props.setProperty("annotators", "tokenize,ssplit,pos,lemma,ner");
-            StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
-
-            // Annotate with CoreNLP
-            Annotation annotation = new Annotation(fullfilledText.toString());
-            pipeline.annotate(annotation);
-
-            // Draw black boxes over PII
-            Graphics2D g2d = filledImage.createGraphics();
-            g2d.setColor(Color.BLACK);
-
+            Annotation annotation = annotate(pipeline, words);
+            List<Rectangle> boxes = new ArrayList<>();
             for (Word word : redactionCandidates) {
                 if (RedactionUtils.isHIPAAPIITemplate(word.getText(), annotation)) {
-                    g2d.fillRect(word.getBoundingBox().x, word.getBoundingBox().y, word.getBoundingBox().width, word.getBoundingBox().height);
+                    boxes.add(word.getBoundingBox());
                 }
             }
+            timings.stop(RedactionTimings.Stage.NER, start);
 
-            g2d.dispose();
-            // Add modified image to new PDF
-            PDPage newPage = new PDPage(PDRectangle.LETTER);
-            redactedDoc.addPage(newPage);
-            PDImageXObject pdImage = LosslessFactory.createFromImage(redactedDoc, filledImage);
-            try (PDPageContentStream contents = new PDPageContentStream(redactedDoc, newPage)) {
-                PDRectangle mediaBox = newPage.getMediaBox();
-                float scale = mediaBox.getWidth() / filledImage.getWidth();  // assumes full-page size match
-                contents.drawImage(pdImage, 0, 0, filledImage.getWidth() * scale, filledImage.getHeight() * scale);
-
-            }
+            // 3. Draw black boxes over PII
+            start = timings.start();
+            drawBoxes(filledImage, boxes);
+            timings.stop(RedactionTimings.Stage.DRAW, start);
 
+            // 4. Add modified image to new PDF
+            start = timings.start();
+            addImagePage(redactedDoc, filledImage);
+            timings.stop(RedactionTimings.Stage.ENCODE, start);
         }
+
+        start = timings.start();
         redactedDoc.save(outputPath);
+        timings.stop(RedactionTimings.Stage.SAVE, start);
         redactedDoc.close();
         filledDoc.close();
         templateDoc.close();
@@ -167,107 +110,148 @@ public class OroPDFDocument {
         return newWords;
     }
 
-
-
-
-
-
     public static void redactHIPAA(OroPDFDocument pdf, String outputPath) throws IOException {
+        redactHIPAA(pdf, outputPath, new RedactionTimings());
+    }
+
+    public static void redactHIPAA(OroPDFDocument pdf, String outputPath, RedactionTimings timings) throws IOException {
+        long start = timings.start();
         PDDocument doc = pdf.copyDocument();
         PDFRenderer renderer = new PDFRenderer(doc);
         PDDocument redactedDoc = new PDDocument();
-
-        ITesseract tesseract = new Tesseract();
-        // Optional: set language or data path
-        tesseract.setDatapath("/usr/local/share/tessdata/");
-        tesseract.setLanguage("eng");
+        ITesseract tesseract = tesseract();
+        StanfordCoreNLP pipeline = nlpPipeline();
+        timings.stop(RedactionTimings.Stage.LOAD, start);
 
         for (int i = 0; i < doc.getNumberOfPages(); i++) {
-            BufferedImage image = renderer.renderImageWithDPI(i, 300, ImageType.RGB);
-            List<RedactedWord> piiList = extractWordsWithCoordinates(image);
-//            for (Map.Entry<String, Rectangle> entry : extractWordsWithCoordinates(image).entrySet()) {
-//                System.out.println("REDACT: " + entry.getKey() + " at " + entry.getValue());
-//            }
+            start = timings.start();
+            BufferedImage image = render(renderer, i);
+            timings.stop(RedactionTimings.Stage.RENDER, start);
+
+            List<RedactedWord> piiList = extractWordsWithCoordinates(image, tesseract, pipeline, timings);
 
             // Draw black boxes over PII
-            Graphics2D g2d = image.createGraphics();
-            g2d.setColor(Color.BLACK);
+            start = timings.start();
+            List<Rectangle> boxes = new ArrayList<>();
             for (RedactedWord word : piiList) {
-                g2d.fillRect(word.bounds.x, word.bounds.y, word.bounds.width, word.bounds.height);
+                boxes.add(word.bounds);
             }
-            g2d.dispose();
+            drawBoxes(image, boxes);
+            timings.stop(RedactionTimings.Stage.DRAW, start);
 
             // Add modified image to new PDF
-            PDPage newPage = new PDPage(PDRectangle.LETTER);
-            redactedDoc.addPage(newPage);
-            PDImageXObject pdImage = LosslessFactory.createFromImage(redactedDoc, image);
-            try (PDPageContentStream contents = new PDPageContentStream(redactedDoc, newPage)) {
-                PDRectangle mediaBox = newPage.getMediaBox();
-                float scale = mediaBox.getWidth() / image.getWidth();  // assumes full-page size match
-                contents.drawImage(pdImage, 0, 0, image.getWidth() * scale, image.getHeight() * scale);
-            }
-
+            start = timings.start();
+            addImagePage(redactedDoc, image);
+            timings.stop(RedactionTimings.Stage.ENCODE, start);
         }
 
+        start = timings.start();
         redactedDoc.save(outputPath);
+        timings.stop(RedactionTimings.Stage.SAVE, start);
         redactedDoc.close();
         doc.close();
     }
 
     public static List<RedactedWord> extractWordsWithCoordinates(BufferedImage image) {
-        ITesseract tesseract = new Tesseract();
-        tesseract.setDatapath("/usr/local/share/tessdata/");  // Set the correct path to tessdata
-        tesseract.setLanguage("eng");  // Set language
+        return extractWordsWithCoordinates(image, tesseract(), nlpPipeline(), new RedactionTimings());
+    }
 
+    private static List<RedactedWord> extractWordsWithCoordinates(BufferedImage image, ITesseract tesseract,
+                                                                  StanfordCoreNLP pipeline, RedactionTimings timings) {
         List<RedactedWord> piiList = new ArrayList<>();
 
         try {
             // Get all words with their bounding boxes
-            List<Word> words = tesseract.getWords(image, ITessAPI.TessPageIteratorLevel.RIL_WORD);
+            long start = timings.start();
+            List<Word> words = ocr(tesseract, image);
+            timings.stop(RedactionTimings.Stage.OCR, start);
 
-            // Necessary annotations for Stanford NLP
-            StringBuilder fullText = new StringBuilder();
-            for (Word word : words) {
-                fullText.append(word.getText()).append(" ");
-            }
+            start = timings.start();
+            piiList = findPII(words, annotate(pipeline, words));
+            timings.stop(RedactionTimings.Stage.NER, start);
+        } catch (Exception e) {
+            System.err.println("OCR failed: " + e.getMessage());
+        }
+        return piiList;
+    }
+
+    // Pipeline stages. Package-private so the benchmarks can time each one in isolation.
 
-            // Setup NLP
-            Properties props = new Properties();
-            props.setProperty("annotators", "tokenize,ssplit,pos,lemma,ner");
-            StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
+    static ITesseract tesseract() {
+        ITesseract tesseract = new Tesseract();
+        tesseract.setDatapath(TESSDATA);
+        tesseract.setLanguage("eng");
+        return tesseract;
+    }
+
+    // Loading the NER models takes seconds, so build one pipeline per document, not per page
+    static StanfordCoreNLP nlpPipeline() {
+        Properties props = new Properties();
+        props.setProperty("annotators", "tokenize,ssplit,pos,lemma,ner");
+        return new StanfordCoreNLP(props);
+    }
+
+    static BufferedImage render(PDFRenderer renderer, int page) throws IOException {
+        return renderer.renderImageWithDPI(page, DPI, ImageType.RGB);
+    }
 
-            // Annotate with CoreNLP
-            Annotation annotation = new Annotation(fullText.toString());
-            pipeline.annotate(annotation);
+    static List<Word> ocr(ITesseract tesseract, BufferedImage image) {
+        return tesseract.getWords(image, ITessAPI.TessPageIteratorLevel.RIL_WORD);
+    }
 
-            // Debug to see the annotation for each token
+    // Necessary annotations for Stanford NLP
+    static Annotation annotate(StanfordCoreNLP pipeline, List<Word> words) {
+        StringBuilder fullText = new StringBuilder();
+        for (Word word : words) {
+            fullText.append(word.getText()).append(" ");
+        }
+        Annotation annotation = new Annotation(fullText.toString());
+        pipeline.annotate(annotation);
+
+        if (DEBUG) {
             System.out.println("NER Token Annotations:");
             for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
                 for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
-                    String tokenText = token.originalText();
-                    String nerTag = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
-
-                    System.out.println(tokenText + " -> " + nerTag);
+                    System.out.println(token.originalText() + " -> " + token.get(CoreAnnotations.NamedEntityTagAnnotation.class));
                 }
             }
+        }
+        return annotation;
+    }
 
-            // Iterate over each word and check the current word and the next word for PII
-            for (Word word : words) {
-                String currentText = word.getText();
-
-                // Check current word for PII
-                if (RedactionUtils.isHIPAAPII(currentText, annotation)) {
-                    System.out.println(currentText + "should be redacted");
-                    piiList.add(new RedactedWord(currentText, word.getBoundingBox()));
-                }
+    static List<RedactedWord> findPII(List<Word> words, Annotation annotation) {
+        List<RedactedWord> piiList = new ArrayList<>();
+        for (Word word : words) {
+            String currentText = word.getText();
+            if (RedactionUtils.isHIPAAPII(currentText, annotation)) {
+                if (DEBUG) System.out.println(currentText + " should be redacted");
+                piiList.add(new RedactedWord(currentText, word.getBoundingBox()));
             }
-
-        } catch (Exception e) {
-            System.err.println("OCR failed: " + e.getMessage());
         }
         return piiList;
     }
 
+    static void drawBoxes(BufferedImage image, List<Rectangle> boxes) {
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.BLACK);
+        for (Rectangle box : boxes) {
+            g2d.fillRect(box.x, box.y, box.width, box.height);
+        }
+        g2d.dispose();
+    }
+
+    // Encodes the image losslessly and adds it as a full letter-size page
+    static void addImagePage(PDDocument doc, BufferedImage image) throws IOException {
+        PDPage newPage = new PDPage(PDRectangle.LETTER);
+        doc.addPage(newPage);
+        PDImageXObject pdImage = LosslessFactory.createFromImage(doc, image);
+        try (PDPageContentStream contents = new PDPageContentStream(doc, newPage)) {
+            PDRectangle mediaBox = newPage.getMediaBox();
+            float scale = mediaBox.getWidth() / image.getWidth();  // assumes full-page size match
+            contents.drawImage(pdImage, 0, 0, image.getWidth() * scale, image.getHeight() * scale);
+        }
+    }
+
     private static Rectangle combineRectangles(Rectangle r1, Rectangle r2) {
         int x = Math.min(r1.x, r2.x);
         int y = Math.min(r1.y, r2.y);
@@ -350,7 +334,7 @@ public class OroPDFDocument {
                 for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
                     String tokenText = token.originalText();
                     String ner = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
-                    System.out.println("Word: " + tokenText + "Annotation: " + ner);
+                    if (DEBUG) System.out.println("Word: " + tokenText + "Annotation: " + ner);
 
                     if (tokenText.equalsIgnoreCase(trimmed)) {
                         if ((ner.equals("PERSON") || ner.equals("LOCATION") || ner.equals("DATE") || ner.equals("STATE_OR_PROVINCE") || ner.equals("ORGANIZATION") || ner.equals("CITY") || ner.equals("NUMBER")) && (!whiteList.contains(word.toLowerCase()))) {
@@ -363,42 +347,4 @@ public class OroPDFDocument {
             return false;
         }
     }
-
-
-
-
-
-
-    public void saveTextAsPDF(String text, String outputPath) throws IOException {
-        PDDocument doc = new PDDocument();
-        PDPage page = new PDPage();
-        doc.addPage(page);
-
-        PDPageContentStream stream = new PDPageContentStream(doc, page);
-        PDType0Font font = PDType0Font.load(doc, new File("src/main/resources/fonts/NotoSans-Regular.ttf"));
-        stream.beginText();
-        stream.setFont(font, 12);
-        stream.newLineAtOffset(50, 700);
-
-        String[] lines = text.split("\n");
-        for (String line : lines) {
-            stream.showText(line);
-            stream.newLineAtOffset(0, -15);
-        }
-
-        stream.endText();
-        stream.close();
-        doc.save(outputPath);
-        doc.close();
-    }
-
-    public PDDocument copyDocument() throws IOException {
-        // Save to memory and reload to make a copy
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        this.document.save(out);
-        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
-        return PDDocument.load(in);
-    }
-
-
 }
@@ -0,0 +1,81 @@
+package oro;
+
+import java.io.IOException;
+import java.util.List;
+
+import static oro.HIPAARedactor.redactHIPAA;
+import static oro.HIPAARedactor.redactHIPAARef;
+
+// OCR / NER redaction built-ins, registered when oro-nlp is on the classpath
+public class NLPFunctions implements OroLibrary {
+
+    @Override
+    public void registerAll(Environment globals) {
+        // Given a PDF instance, redact all information required under HIPAA and save to a new PDF
+        globals.define("redactHIPAA", new OroCallable() {
+            @Override
+            public int arity() {
+                return 2; // PDF instance, redacted file path
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                if (!(arguments.get(0) instanceof OroPDFDocument) || !(arguments.get(1) instanceof String))  {
+                    throw new RuntimeError("Error: Expected arguments of type PDF, String");
+                }
+                else{
+
+                    OroPDFDocument pdf = (OroPDFDocument) arguments.get(0);
+                    String redactedPath = (String) arguments.get(1);
+                    // 1 if successful, 0 if not
+                    try {
+                        redactHIPAA(pdf, redactedPath);
+                    }
+                    catch (IOException e){
+                        throw new RuntimeError("Error redacting HIPAA: " + e.getMessage());
+                    }
+                    return null;
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "<native fun redactHIPAA>";
+            }
+        });
+
+        // Has optional parameter to act as blank document template
+        globals.define("redactHIPAA", new OroCallable() {
+            @Override
+            public int arity() {
+                return 3; // PDF instance form, redacted file path, PDF instance template
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                if (!(arguments.get(0) instanceof OroPDFDocument) || !(arguments.get(1) instanceof String))  {
+                    throw new RuntimeError("Error: Expected arguments of type PDF, String");
+                }
+                else{
+
+                    OroPDFDocument pdf = (OroPDFDocument) arguments.get(0);
+                    String redactedPath = (String) arguments.get(1);
+                    OroPDFDocument template = (OroPDFDocument) arguments.get(2);
+                    // 1 if successful, 0 if not
+                    try {
+                        redactHIPAARef(pdf, redactedPath, template);
+                    }
+                    catch (IOException e){
+                        throw new RuntimeError("Error redacting HIPAA: " + e.getMessage());
+                    }
+                    return null;
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "<native fun redactHIPAA>";
+            }
+        });
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * PDF support for Oro (PDFBox). Adds the PDFDocument, getPDFText and createPDF
+ * built-ins to the core interpreter through the oro.OroLibrary SPI.
+ */
+
+plugins {
+    `java-library`
+    // Distribution with the core interpreter plus PDF support
+    application
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    implementation(project(":app"))
+    api(libs.pdfbox)
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+application {
+    mainClass = "oro.Oro"
+    // mainClass = "oro.PDFRedactionTool"
+}
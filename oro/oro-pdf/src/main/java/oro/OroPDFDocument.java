@@ -0,0 +1,97 @@
+package oro;
+
+// PDFBox
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+// Java standard
+import java.io.*;
+
+public class OroPDFDocument {
+    private PDDocument document;
+    private String filePath;
+
+    public OroPDFDocument(String filePath) throws IOException {
+        this.document = PDDocument.load(new File(filePath));
+        this.filePath = filePath;
+    }
+
+    public String getPDFText() throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        return stripper.getText(document);
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public static void createPDF(String outputPath, String newText) throws IOException {
+        try (PDDocument newDoc = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            newDoc.addPage(page);
+
+            PDPageContentStream contentStream = new PDPageContentStream(newDoc, page);
+            PDType0Font font = loadFont(newDoc);
+            contentStream.setFont(font, 12);
+            contentStream.beginText();
+            contentStream.newLineAtOffset(50, 700);
+
+            // Split text into lines if necessary
+            String[] lines = newText.split("\n");
+            for (String line : lines) {
+                contentStream.showText(line);
+                contentStream.newLineAtOffset(0, -15); // Move down for next line
+            }
+
+            contentStream.endText();
+            contentStream.close();
+
+            newDoc.save(outputPath);
+        }
+    }
+
+    public void saveTextAsPDF(String text, String outputPath) throws IOException {
+        PDDocument doc = new PDDocument();
+        PDPage page = new PDPage();
+        doc.addPage(page);
+
+        PDPageContentStream stream = new PDPageContentStream(doc, page);
+        PDType0Font font = loadFont(doc);
+        stream.beginText();
+        stream.setFont(font, 12);
+        stream.newLineAtOffset(50, 700);
+
+        String[] lines = text.split("\n");
+        for (String line : lines) {
+            stream.showText(line);
+            stream.newLineAtOffset(0, -15);
+        }
+
+        stream.endText();
+        stream.close();
+        doc.save(outputPath);
+        doc.close();
+    }
+
+    public PDDocument copyDocument() throws IOException {
+        // Save to memory and reload to make a copy
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.document.save(out);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        return PDDocument.load(in);
+    }
+
+    // Font is bundled in the oro-pdf jar, so it resolves regardless of the working directory
+    private static PDType0Font loadFont(PDDocument doc) throws IOException {
+        try (InputStream in = OroPDFDocument.class.getResourceAsStream("/NotoSans-Regular.ttf")) {
+            if (in == null) {
+                throw new IOException("Bundled font NotoSans-Regular.ttf not found");
+            }
+            return PDType0Font.load(doc, in);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package oro;
+
+import java.io.IOException;
+import java.util.List;
+
+// PDF built-ins, registered when oro-pdf is on the classpath
+public class PDFFunctions implements OroLibrary {
+
+    @Override
+    public void registerAll(Environment globals) {
+        globals.define("PDFDocument", new OroCallable() {
+            @Override
+            public int arity() {
+                return 1; // File Path
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                if (((String) arguments.get(0)).toLowerCase().endsWith(".pdf") != true) {
+                    throw new RuntimeError("Error: Unsupported file type");
+                }
+                else{
+                    try{
+                        return new OroPDFDocument((String) arguments.get(0)); // Returns a new instance of Document
+                    }
+                    catch (IOException e){
+                        throw new RuntimeError("Error loading PDF: " + e.getMessage());
+                    }
+                }
+
+            }
+
+            @Override
+            public String toString() {
+                return "<native class PDFDocument>";
+            }
+        });
+
+        globals.define("getPDFText", new OroCallable() {
+            @Override
+            public int arity() {
+                return 1; // Document Instance
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                if (!(arguments.get(0) instanceof OroPDFDocument))  {
+                    throw new RuntimeError("Error: Expected argument of type PDF");
+                }
+                else{
+                    try {
+                        OroPDFDocument pdf = (OroPDFDocument) arguments.get(0);
+                        return pdf.getPDFText();
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error getting PDF text: " + e.getMessage());
+                    }
+                }
+
+            }
+
+            @Override
+            public String toString() {
+                return "<native fun getPDFText>";
+            }
+        });
+
+        globals.define("createPDF", new OroCallable() {
+            @Override
+            public int arity() {
+                return 2; // File path, replacement text
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                if (!(arguments.get(0) instanceof String) || !(arguments.get(1) instanceof String))  {
+                    throw new RuntimeError("Error: Expected arguments of type String");
+                }
+                else{
+
+                    String filePath = (String) arguments.get(0);
+                    String replacementText = (String) arguments.get(1);
+                    // 1 if successful, 0 if not
+                    try {
+                        OroPDFDocument.createPDF(filePath, replacementText);
+                    }
+                    catch (IOException e){
+                        throw new RuntimeError("Error creating PDF: " + e.getMessage());
+                    }
+                    return null;
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "<native fun createPDF>";
+            }
+        });
+    }
+}
@@ -77,18 +77,33 @@ public class PDFRedactionTool {
      * Process PDF document and apply redactions
      */
     public static void redactDocument(String inputPath, String outputPath) throws IOException {
+        redactDocument(inputPath, outputPath, new RedactionTimings());
+    }
+
+    /**
+     * Process PDF document and apply redactions, recording time spent per stage
+     */
+    public static void redactDocument(String inputPath, String outputPath, RedactionTimings timings) throws IOException {
         File inputFile = new File(inputPath);
+        long start = timings.start();
         PDDocument document = PDDocument.load(inputFile);
+        timings.stop(RedactionTimings.Stage.LOAD, start);
 
         try {
             // Extract text and identify portions to redact
+            start = timings.start();
             List<RedactionTarget> redactionTargets = identifyRedactionTargets(document);
+            timings.stop(RedactionTimings.Stage.EXTRACT, start);
 
             // Apply redactions
+            start = timings.start();
             applyRedactions(document, redactionTargets);
+            timings.stop(RedactionTimings.Stage.DRAW, start);
 
             // Save the redacted document
+            start = timings.start();
             document.save(outputPath);
+            timings.stop(RedactionTimings.Stage.SAVE, start);
         } finally {
             document.close();
         }
@@ -0,0 +1,70 @@
+package oro;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Wall-clock time spent in each stage of one redaction, summed over pages. Passed to
+// the redaction entry points by benchmarks; callers that don't care pass a fresh one
+// and drop it. Not thread-safe: one instance per redaction.
+public final class RedactionTimings {
+
+    public enum Stage {
+        LOAD,     // parse the input PDF, build OCR and NLP engines
+        RENDER,   // rasterize pages
+        OCR,      // recognize words and their boxes
+        EXTRACT,  // pull positioned text from the text layer
+        NER,      // annotate text and decide which words are PHI
+        DRAW,     // paint redaction boxes
+        ENCODE,   // compress page images into the output document
+        SAVE      // serialize the output document
+    }
+
+    private final long[] nanos = new long[Stage.values().length];
+    private final int[] counts = new int[Stage.values().length];
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void stop(Stage stage, long start) {
+        nanos[stage.ordinal()] += System.nanoTime() - start;
+        counts[stage.ordinal()]++;
+    }
+
+    public long nanos(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    // Number of times the stage ran, e.g. once per page for RENDER
+    public int count(Stage stage) {
+        return counts[stage.ordinal()];
+    }
+
+    public long totalNanos() {
+        long total = 0;
+        for (long n : nanos) total += n;
+        return total;
+    }
+
+    // Milliseconds per stage that ran at least once, in pipeline order
+    public Map<Stage, Double> millis() {
+        Map<Stage, Double> millis = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            if (counts[stage.ordinal()] > 0) {
+                millis.put(stage, nanos[stage.ordinal()] / 1e6);
+            }
+        }
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<Stage, Double> entry : millis().entrySet()) {
+            if (text.length() > 0) text.append(", ");
+            text.append(entry.getKey().name().toLowerCase())
+                .append(String.format(" %.1f ms", entry.getValue()));
+        }
+        return text.toString();
+    }
+}
@@ -13,3 +13,11 @@ plugins {
 
 rootProject.name = "oro"
 include("app")
+
+// Optional modules: PDF support and the OCR/NER redaction stack. Each contributes
+// built-ins to the core interpreter through the oro.OroLibrary ServiceLoader SPI.
+include("oro-pdf")
+include("oro-nlp")
+
+// JMH benchmarks; not part of any distribution
+include("benchmarks")